@@ -0,0 +1,104 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * The permitted characters of a SuffixTree, numbered from 0 in
+ * increasing order, so that the order of the symbols is the order of
+ * the characters.
+ */
+
+final class Alphabet {
+
+    /**
+     * the characters, sorted and without repetition
+     */
+
+    private final char[] chars;
+
+    /**
+     * codes[c] is the symbol of the character c, or -1 if c is not in
+     * the alphabet; characters beyond the end are not in the alphabet
+     */
+
+    private final int[] codes;
+
+    /**
+     * Alphabet lists the permitted characters, in any order.
+     * @stereotype constructor 
+     */
+
+    Alphabet(String alphabet) {
+        char[] temp = alphabet.toCharArray();
+        java.util.Arrays.sort(temp);
+        int size = 0;
+        for (int i = 0; i < temp.length; i++) {
+            if (size == 0 || temp[size - 1] != temp[i]) {
+                temp[size++] = temp[i];
+            }
+        }
+        this.chars = new char[size];
+        System.arraycopy(temp, 0, this.chars, 0, size);
+        this.codes = new int[(size == 0) ? 0 : this.chars[size - 1] + 1];
+        java.util.Arrays.fill(this.codes, -1);
+        for (int i = 0; i < size; i++) {
+            this.codes[this.chars[i]] = i;
+        }
+    }
+
+    /**
+     * returns the number of characters
+     */
+
+    final int size() {
+        return this.chars.length;
+    }
+
+    /**
+     * returns the symbol of c, or -1 if c is not in the alphabet
+     */
+
+    final int encode(char c) {
+        return (c < this.codes.length) ? this.codes[c] : -1;
+    }
+
+    /**
+     * returns the character of symbol
+     */
+
+    final char decode(int symbol) {
+        return this.chars[symbol];
+    }
+
+    /**
+     * returns true if all the chars of token are in the alphabet
+     */
+
+    final boolean accepts(CharSequence token) {
+        for (int i = token.length() - 1; i >= 0; i--) {
+            if (this.encode(token.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * returns the number of bits needed to store one symbol, at least one
+     */
+
+    final int getBitsPerSymbol() {
+        int bits = 1;
+        while ((1 << bits) < this.chars.length) {
+            bits++;
+        }
+        return bits;
+    }
+
+}
@@ -63,32 +63,99 @@ public class Annotation implements Info {
 
     /**
      * A class method to decorate a tree with pathLen information at each node. 
+     * Each node gets its own Annotation object; AnnotationTable stores the
+     * path lengths of all the nodes in a single array. Any of the trees
+     * can be decorated, through its TreeInterface.
      *
      * @param a suffix tree to be decorated.
      */
 
-    public static void addPathLength(SuffixTree tree) {
+    public static void addPathLength(TreeInterface tree) {
 
-        InternalNode root = (InternalNode) tree.getRoot();
+        NodeInterface root = tree.getRoot();
 
-        if (root != null)
-            addPathLength(0, (NodeInterface) root.getFirstChild());
+        if (root == null)
+            return;
+
+        NodeInterface[] stack = new NodeInterface[64];
+        int[] prefixes = new int[64];
+        int size = 0;
+        for (Object c = tree.getFirstChild(root); c != null; c = ((NodeInterface) c).getRightSybling()) {
+            if (size == stack.length) {
+                stack = grow(stack, size);
+                prefixes = grow(prefixes, size);
+            }
+            stack[size] = (NodeInterface) c;
+            prefixes[size++] = 0;
+        }
+        while (size > 0) {
+            size--;
+            NodeInterface node = stack[size];
+            stack[size] = null;
+            int pathLength = prefixes[size] + node.getLength();
+
+            node.setInfo(new Annotation(pathLength));
+
+            Object c = tree.getFirstChild(node);
+            for (; c != null; c = ((NodeInterface) c).getRightSybling()) {
+                if (size == stack.length) {
+                    stack = grow(stack, size);
+                    prefixes = grow(prefixes, size);
+                }
+                stack[size] = (NodeInterface) c;
+                prefixes[size++] = pathLength;
+            }
+        }
     }
 
-    private static void addPathLength(int prefix, NodeInterface node) {
+    /**
+     * A class method to count the suffixes below each node of a tree that
+     * is built, a leaf counting for each of its coordinates. The counts
+     * are kept in an AnnotationTable, and SuffixTree.count reads the count
+     * of the node where the pattern ends instead of visiting its leaves;
+     * they are dropped when the tree is modified.
+     *
+     * @param a suffix tree to be decorated.
+     */
 
-        if (node == null)
-            return;
+    public static void addLeafCount(SuffixTree tree) {
+        annotate(tree, AnnotationTable.LEAF_COUNT);
+    }
+
+    /**
+     * A class method to keep the smallest position of the suffixes below
+     * each node of a tree that is built. SuffixTree.firstOccurrence reads
+     * the position of the node where the pattern ends instead of visiting
+     * its leaves; the positions are dropped when the tree is modified.
+     *
+     * @param a suffix tree to be decorated.
+     */
 
-        int pathLength = prefix + node.getLength();
+    public static void addFirstPosition(SuffixTree tree) {
+        annotate(tree, AnnotationTable.FIRST_POSITION);
+    }
 
-        node.setInfo(new Annotation(pathLength));
+    /**
+     * keeps an AnnotationTable of column, and of the columns the tree
+     * already keeps, in tree
+     */
 
-        if (node instanceof InternalNode)
-            addPathLength(pathLength, (NodeInterface) ((InternalNode) node).getFirstChild());
+    private static void annotate(SuffixTree tree, int column) {
+        AnnotationTable table = tree.getAnnotations();
+        int columns = (table == null) ? column : table.getColumns() | column;
+        tree.setAnnotations(new AnnotationTable(tree, columns));
+    }
 
-        addPathLength(prefix, (NodeInterface) node.getRightSybling());
+    private static NodeInterface[] grow(NodeInterface[] stack, int size) {
+        NodeInterface[] temp = new NodeInterface[2 * size];
+        System.arraycopy(stack, 0, temp, 0, size);
+        return temp;
+    }
 
+    private static int[] grow(int[] stack, int size) {
+        int[] temp = new int[2 * size];
+        System.arraycopy(stack, 0, temp, 0, size);
+        return temp;
     }
 
     /**
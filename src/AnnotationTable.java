@@ -0,0 +1,482 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+
+/**
+ * Annotations of the nodes of a tree stored by column, instead of Info
+ * objects chained on each node: each kind of annotation is an array of
+ * ints indexed by the number of the node. The columns asked for are
+ * allocated at once and filled by a single traversal of the tree, so
+ * reading an annotation is an array access, without a cast.
+ *
+ * The table numbers the nodes in preorder: the root is 0, and a node
+ * has a larger number than its parent. getId returns the number of a
+ * node; the numbers of the nodes of a SuffixTree are kept in the nodes
+ * themselves, and are those of the last table built on the tree. The
+ * table is not updated when the tree is modified.
+ *
+ * The columns are:
+ * - PATH_LENGTH, the length of the path from the root to the node;
+ * - LEAF_COUNT, the number of suffixes below the node, a leaf counting
+ *   for each of its coordinates;
+ * - COLOR_COUNT, the number of distinct strings these suffixes come
+ *   from (after Hui);
+ * - FIRST_POSITION, the smallest position of these suffixes;
+ * - LCA, the tables of Schieber and Vishkin, with which getLca finds the
+ *   lowest common ancestor of two nodes in constant time.
+ */
+
+public final class AnnotationTable {
+
+    public static final int PATH_LENGTH = 1;
+
+    public static final int LEAF_COUNT = 2;
+
+    public static final int COLOR_COUNT = 4;
+
+    public static final int LCA = 8;
+
+    public static final int FIRST_POSITION = 16;
+
+    /**
+     * the columns of this table
+     */
+
+    private int columns;
+
+    /**
+     * the strings of the tree
+     */
+
+    private ListOfTokens tokens;
+
+    /**
+     * the number of each node of an ArraySuffixTree, indexed by its id;
+     * null for a SuffixTree
+     */
+
+    private int[] ids;
+
+    private int noNodes;
+
+    /**
+     * the parent of each node, -1 for the root
+     */
+
+    private int[] parent;
+
+    private int[] pathLength;
+
+    private int[] leafCount;
+
+    private int[] colorCount;
+
+    private int[] firstPosition;
+
+    /**
+     * Schieber and Vishkin: the inlabel of each node, the inlabels of its
+     * ancestors (one bit each), and the node closest to the root of each
+     * inlabel
+     */
+
+    private int[] inlabel;
+
+    private int[] ascendant;
+
+    private int[] head;
+
+    /**
+     * the last node where each string was seen, while the colors are
+     * counted
+     */
+
+    private int[] lastLeaf;
+
+    /**
+     * the pairs of consecutive nodes of the same string, while the colors
+     * are counted
+     */
+
+    private int[] pairs;
+
+    private int noPairs;
+
+    /**
+     * Annotates the nodes of tree with the columns, a combination of
+     * PATH_LENGTH, LEAF_COUNT, COLOR_COUNT, LCA and FIRST_POSITION.
+     * @stereotype constructor
+     */
+
+    public AnnotationTable(SuffixTree tree, int columns) {
+        this.tokens = tree.getTokens();
+        this.ids = null;
+        this.allocate(tree.getNoNodes(), columns);
+
+        CoordinatePool cells = tree.getCoordinatePool();
+        NodeInterface[] stack = new NodeInterface[64];
+        int[] parents = new int[64];
+        int size = 0;
+        stack[size] = tree.getRoot();
+        parents[size++] = -1;
+        while (size > 0) {
+            size--;
+            NodeInterface node = stack[size];
+            stack[size] = null;
+            int v = this.newNode(parents[size], node.getLength());
+            if (node instanceof LeafNode) {
+                LeafNode leaf = (LeafNode) node;
+                leaf.setId(v);
+                int coordinates = leaf.getPositions();
+                if (coordinates >= 0) {
+                    this.addSuffix(v, coordinates);
+                } else {
+                    int cell = -1 - coordinates;
+                    for (; cell != CoordinatePool.NONE; cell = cells.getNext(cell)) {
+                        this.addSuffix(v, cells.getPosition(cell));
+                    }
+                }
+                continue;
+            }
+            ((InternalNode) node).setId(v);
+            Object child = ((InternalNode) node).getFirstChild();
+            for (; child != null; child = ((NodeInterface) child).getRightSybling()) {
+                if (size == stack.length) {
+                    NodeInterface[] temp = new NodeInterface[2 * size];
+                    System.arraycopy(stack, 0, temp, 0, size);
+                    stack = temp;
+                    parents = grow(parents, 2 * size, size);
+                }
+                stack[size] = (NodeInterface) child;
+                parents[size++] = v;
+            }
+        }
+        this.complete(columns);
+    }
+
+    /**
+     * Annotates the nodes of tree with the columns, a combination of
+     * PATH_LENGTH, LEAF_COUNT, COLOR_COUNT, LCA and FIRST_POSITION.
+     * @stereotype constructor
+     */
+
+    public AnnotationTable(ArraySuffixTree tree, int columns) {
+        NodeArrays nodes = tree.getNodes();
+        CoordinatePool cells = nodes.getCoordinatePool();
+        this.tokens = tree.getTokens();
+        this.ids = new int[nodes.size()];
+        this.allocate(nodes.size(), columns);
+
+        int[] stack = new int[64];
+        int[] parents = new int[64];
+        int size = 0;
+        stack[size] = 0;
+        parents[size++] = -1;
+        while (size > 0) {
+            size--;
+            int id = stack[size];
+            int v = this.newNode(parents[size], nodes.getLength(id));
+            this.ids[id] = v;
+            if (nodes.isLeaf(id)) {
+                int coordinates = nodes.getSuffixLink(id);
+                if (coordinates >= 0) {
+                    this.addSuffix(v, coordinates);
+                } else {
+                    int cell = -1 - coordinates;
+                    for (; cell != CoordinatePool.NONE; cell = cells.getNext(cell)) {
+                        this.addSuffix(v, cells.getPosition(cell));
+                    }
+                }
+                continue;
+            }
+            int child = nodes.getFirstChild(id);
+            for (; child != NodeArrays.NONE; child = nodes.getRightSybling(child)) {
+                if (size == stack.length) {
+                    stack = grow(stack, 2 * size, size);
+                    parents = grow(parents, 2 * size, size);
+                }
+                stack[size] = child;
+                parents[size++] = v;
+            }
+        }
+        this.complete(columns);
+    }
+
+    /**
+     * allocates the columns for capacity nodes; the suffixes are counted
+     * for the colors too, and these need the LCA tables
+     */
+
+    private void allocate(int capacity, int columns) {
+        this.columns = columns;
+        this.noNodes = 0;
+        this.parent = new int[capacity];
+        if ((columns & PATH_LENGTH) != 0) {
+            this.pathLength = new int[capacity];
+        }
+        if ((columns & (LEAF_COUNT | COLOR_COUNT)) != 0) {
+            this.leafCount = new int[capacity];
+        }
+        if ((columns & FIRST_POSITION) != 0) {
+            this.firstPosition = new int[capacity];
+        }
+        if ((columns & COLOR_COUNT) != 0) {
+            this.colorCount = new int[capacity];
+            this.lastLeaf = new int[this.tokens.getNoTokens()];
+            Arrays.fill(this.lastLeaf, -1);
+            this.pairs = new int[64];
+            this.noPairs = 0;
+        }
+    }
+
+    /**
+     * numbers the next node of the traversal, below parent
+     */
+
+    private int newNode(int parent, int length) {
+        if (this.noNodes == this.parent.length) {
+            int capacity = this.noNodes + (this.noNodes >> 1) + 16;
+            this.parent = grow(this.parent, capacity, this.noNodes);
+            if (this.pathLength != null) {
+                this.pathLength = grow(this.pathLength, capacity, this.noNodes);
+            }
+            if (this.leafCount != null) {
+                this.leafCount = grow(this.leafCount, capacity, this.noNodes);
+            }
+            if (this.colorCount != null) {
+                this.colorCount = grow(this.colorCount, capacity, this.noNodes);
+            }
+            if (this.firstPosition != null) {
+                this.firstPosition = grow(this.firstPosition, capacity, this.noNodes);
+            }
+        }
+        int v = this.noNodes++;
+        this.parent[v] = parent;
+        if (this.firstPosition != null) {
+            this.firstPosition[v] = Integer.MAX_VALUE;
+        }
+        if (this.pathLength != null) {
+            this.pathLength[v] = (parent < 0) ? 0 : this.pathLength[parent] + length;
+        }
+        return v;
+    }
+
+    /**
+     * Counts the suffix at position, which ends at the leaf v. The leaves
+     * are numbered in preorder, so the leaves of a string are seen in
+     * preorder too: a string is counted once below v if it is counted
+     * once for each of its leaves, less once at the lowest common
+     * ancestor of each two consecutive ones.
+     */
+
+    private void addSuffix(int v, int position) {
+        if (this.firstPosition != null) {
+            this.firstPosition[v] = Math.min(this.firstPosition[v], position);
+        }
+        if (this.leafCount == null) {
+            return;
+        }
+        this.leafCount[v]++;
+        if (this.colorCount == null) {
+            return;
+        }
+        int color = this.tokens.getIndex(position) - this.tokens.getFirstToken();
+        int last = this.lastLeaf[color];
+        if (last == v) {
+            this.colorCount[v]--;
+        } else if (last >= 0) {
+            if (this.noPairs == this.pairs.length) {
+                this.pairs = grow(this.pairs, 2 * this.noPairs, this.noPairs);
+            }
+            this.pairs[this.noPairs++] = last;
+            this.pairs[this.noPairs++] = v;
+        }
+        this.lastLeaf[color] = v;
+    }
+
+    /**
+     * fills the columns that are computed from the parents, once all the
+     * nodes are numbered
+     */
+
+    private void complete(int columns) {
+        int n = this.noNodes;
+        if ((columns & (LCA | COLOR_COUNT)) != 0) {
+            this.buildLca();
+        }
+        if (this.leafCount != null) {
+            for (int v = n - 1; v > 0; v--) {
+                this.leafCount[this.parent[v]] += this.leafCount[v];
+            }
+        }
+        if (this.firstPosition != null) {
+            for (int v = n - 1; v > 0; v--) {
+                int p = this.parent[v];
+                this.firstPosition[p] = Math.min(this.firstPosition[p], this.firstPosition[v]);
+            }
+        }
+        if (this.colorCount != null) {
+            for (int i = 0; i < this.noPairs; i += 2) {
+                this.colorCount[this.getLca(this.pairs[i], this.pairs[i + 1])]--;
+            }
+            for (int v = n - 1; v > 0; v--) {
+                this.colorCount[this.parent[v]] += this.colorCount[v];
+            }
+            for (int v = 0; v < n; v++) {
+                this.colorCount[v] += this.leafCount[v];
+            }
+            this.lastLeaf = null;
+            this.pairs = null;
+        }
+        if ((columns & LEAF_COUNT) == 0) {
+            this.leafCount = null;
+        }
+        if ((columns & LCA) == 0) {
+            this.inlabel = null;
+            this.ascendant = null;
+            this.head = null;
+        }
+    }
+
+    /**
+     * Computes the tables of Schieber and Vishkin. With the nodes numbered
+     * from 1 in preorder, the inlabel of v is the number with the most
+     * trailing zeros among the numbers of the nodes below v; the nodes
+     * that have the same inlabel form a path, whose top is its head.
+     */
+
+    private void buildLca() {
+        int n = this.noNodes;
+        int[] size = new int[n];
+        for (int v = n - 1; v >= 0; v--) {
+            size[v]++;
+            if (v > 0) {
+                size[this.parent[v]] += size[v];
+            }
+        }
+        this.inlabel = size;
+        for (int v = 0; v < n; v++) {
+            int low = v + 1, high = v + size[v];
+            this.inlabel[v] = high & -Integer.highestOneBit((low - 1) ^ high);
+        }
+        this.ascendant = new int[n];
+        this.head = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int p = this.parent[v];
+            if (p >= 0 && this.inlabel[v] == this.inlabel[p]) {
+                this.ascendant[v] = this.ascendant[p];
+            } else {
+                this.ascendant[v] = ((p >= 0) ? this.ascendant[p] : 0) | Integer.lowestOneBit(this.inlabel[v]);
+                this.head[this.inlabel[v]] = v;
+            }
+        }
+    }
+
+    /**
+     * returns the number of node in this table; node is a node of the tree
+     * of this table
+     */
+
+    public final int getId(NodeInterface node) {
+        if (node instanceof InternalNode) {
+            return ((InternalNode) node).getId();
+        }
+        if (node instanceof LeafNode) {
+            return ((LeafNode) node).getId();
+        }
+        return this.ids[((ArrayNode) node).getId()];
+    }
+
+    /**
+     * returns the number of nodes in this table
+     */
+
+    public final int getNoNodes() {
+        return this.noNodes;
+    }
+
+    /**
+     * returns the parent of the node v, or -1 for the root
+     */
+
+    public final int getParent(int v) {
+        return this.parent[v];
+    }
+
+    public final int getPathLength(int v) {
+        return this.pathLength[v];
+    }
+
+    public final int getLeafCount(int v) {
+        return this.leafCount[v];
+    }
+
+    public final int getColorCount(int v) {
+        return this.colorCount[v];
+    }
+
+    /**
+     * returns the smallest position of the suffixes below the node v, or
+     * Integer.MAX_VALUE if there is none
+     */
+
+    public final int getFirstPosition(int v) {
+        return this.firstPosition[v];
+    }
+
+    /**
+     * returns the columns of this table
+     */
+
+    public final int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns the lowest common ancestor of the nodes x and y. The inlabels
+     * of x and y meet at height i; the lowest ancestor common to both at
+     * this height or above, j, is the inlabel of the lowest common
+     * ancestor, which is the higher of the nodes where x and y enter the
+     * path of inlabel j.
+     */
+
+    public final int getLca(int x, int y) {
+        int ix = this.inlabel[x], iy = this.inlabel[y];
+        if (ix == iy) {
+            return Math.min(x, y);
+        }
+        int i = Math.max(31 - Integer.numberOfLeadingZeros(ix ^ iy),
+                         Math.max(Integer.numberOfTrailingZeros(ix), Integer.numberOfTrailingZeros(iy)));
+        int common = this.ascendant[x] & this.ascendant[y] & (-1 << i);
+        int j = Integer.numberOfTrailingZeros(common);
+        return Math.min(this.enter(x, j), this.enter(y, j));
+    }
+
+    /**
+     * returns the lowest ancestor of x whose inlabel has height j, an
+     * ancestor of the inlabel of x
+     */
+
+    private int enter(int x, int j) {
+        if (Integer.numberOfTrailingZeros(this.inlabel[x]) == j) {
+            return x;
+        }
+        int k = 31 - Integer.numberOfLeadingZeros(this.ascendant[x] & ((1 << j) - 1));
+        int w = ((this.inlabel[x] >>> (k + 1)) << (k + 1)) | (1 << k);
+        return this.parent[this.head[w]];
+    }
+
+    private static int[] grow(int[] array, int capacity, int size) {
+        int[] temp = new int[capacity];
+        System.arraycopy(array, 0, temp, 0, size);
+        return temp;
+    }
+
+}
@@ -0,0 +1,474 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+
+/**
+ * A suffix tree whose nodes are stored in parallel arrays of ints
+ * (see NodeArrays) instead of InternalNode and LeafNode objects. It
+ * takes about half the memory of a SuffixTree, and is built by an
+ * ArrayTreeBuilder. The nodes are seen through ArrayNode objects, which
+ * implement NodeInterface and are created on demand.
+ *
+ * The children of a node are found by scanning its syblings, as long as
+ * it has at most ChildIndex.HASHED of them; the nodes with more, such as
+ * the root of a tree over a large alphabet, get a ChildIndex, so that a
+ * step of the construction or of a query takes constant time whatever
+ * the size of the alphabet. Few nodes have that many children, and their
+ * indexes are found from their ids in a small table.
+ */
+
+public final class ArraySuffixTree implements TreeInterface {
+
+    /**
+     * permitted characters in the strings
+     */
+
+    private String alphabet;
+
+    /**
+     * the strings in the tree
+     */
+
+    private ListOfTokens tokens;
+
+    /**
+     * the nodes of the tree
+     */
+
+    private NodeArrays nodes;
+
+    /**
+     * the Info objects attached to the nodes, indexed by node id; created
+     * by the first call to setInfo
+     */
+
+    private Info[] infos;
+
+    /**
+     * the ChildIndex of the nodes that have more than ChildIndex.HASHED
+     * children: an open addressing table from the node ids to the
+     * indexes, whose size is a power of two, and at most half full
+     */
+
+    private int[] indexIds;
+
+    private ChildIndex[] indexes;
+
+    private int noIndexes;
+
+    /**
+     * Alphabet specifies what characters are allowed in the strings added to the suffix tree.
+     * An empty alphabet allows all the characters. The strings of an alphabet of
+     * 256 characters or fewer are stored packed, with at most 8 bits per character.
+     * @stereotype constructor 
+     */
+
+    public ArraySuffixTree(String alphabet) {
+        this(alphabet, 0);
+    }
+
+    /**
+     * Reserves room for the nodes of strings of capacity chars in total.
+     * @stereotype constructor 
+     */
+
+    public ArraySuffixTree(String alphabet, int capacity) {
+        this.alphabet = alphabet;
+        this.tokens = new ListOfTokens(alphabet);
+        this.nodes = new NodeArrays(2 * capacity);
+        this.infos = null;
+        this.indexIds = null;
+        this.indexes = null;
+        this.noIndexes = 0;
+    }
+
+    /**
+     * adds a new string to the suffix tree; returns its index, or -1 if
+     * the string is already in the tree
+     */
+    final int addToken(CharSequence token) {
+        return this.tokens.insertToken(token);
+    }
+
+    /**
+     * returns true if pattern is a substring of one of the strings of the
+     * tree; no object is created
+     */
+    public final boolean contains(CharSequence pattern) {
+        return this.find(pattern) != NodeArrays.NONE;
+    }
+
+    /**
+     * Returns the smallest position where pattern is found, counted from
+     * the first char of the first string, or -1 if it is not found.
+     */
+    public final int firstOccurrence(CharSequence pattern) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? -1 : this.walk(node, null, null, true);
+    }
+
+    /**
+     * returns the number of positions where pattern is found
+     */
+    public final int count(CharSequence pattern) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? 0 : this.walk(node, null, null, false);
+    }
+
+    /**
+     * Returns the coordinates of the positions where pattern is found, in
+     * increasing order, or null if it is not found. The leaves are visited
+     * once.
+     */
+    public final SuffixCoordinates findAll(CharSequence pattern) {
+        int node = this.find(pattern);
+        if (node == NodeArrays.NONE) {
+            return null;
+        }
+        SuffixCoordinates head = new SuffixCoordinates(-1, null);
+        int[] positions = new int[this.walk(node, null, head, false)];
+        return sort(head.getNext(), positions);
+    }
+
+    /**
+     * Puts the positions where pattern is found in positions, in no
+     * particular order, as many as it holds, and returns their number,
+     * which can be larger than positions.length.
+     */
+    public final int findAll(CharSequence pattern, int[] positions) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? 0 : this.walk(node, positions, null, false);
+    }
+
+    /**
+     * Sorts the positions of the list of coordinates first, which has
+     * positions.length cells, using positions; returns first.
+     */
+    static SuffixCoordinates sort(SuffixCoordinates first, int[] positions) {
+        int i = 0;
+        for (SuffixCoordinates temp = first; temp != null; temp = temp.getNext()) {
+            positions[i++] = temp.getPosition();
+        }
+        Arrays.sort(positions);
+        i = 0;
+        for (SuffixCoordinates temp = first; temp != null; temp = temp.getNext()) {
+            temp.setPosition(positions[i++]);
+        }
+        return first;
+    }
+
+    /**
+     * Returns the id of the node at or below the end of the path of
+     * pattern, or NONE if there is no such path, as in an empty tree.
+     */
+    final int find(CharSequence pattern) {
+        NodeArrays nodes = this.nodes;
+        if (nodes.getFirstChild(0) == NodeArrays.NONE) {
+            return NodeArrays.NONE;
+        }
+        int node = 0;
+        int matched = 0;
+        int patternLen = pattern.length();
+        while (matched < patternLen) {
+            if (nodes.isLeaf(node)) {
+                return NodeArrays.NONE;
+            }
+            int symbol = this.tokens.encode(pattern.charAt(matched));
+            if (symbol == -1) {
+                return NodeArrays.NONE;
+            }
+            node = this.getChild(node, symbol);
+            if (node == NodeArrays.NONE) {
+                return NodeArrays.NONE;
+            }
+            int max = Math.min(nodes.getLength(node), patternLen - matched);
+            if (this.tokens.getLCE(pattern, matched, nodes.getLeftIndex(node), max) < max) {
+                return NodeArrays.NONE;
+            }
+            matched += max;
+        }
+        return node;
+    }
+
+    /**
+     * returns the child of the internal node whose branch starts with
+     * symbol, or NONE; the children are in decreasing order of their first
+     * symbol
+     */
+    final int getChild(int node, int symbol) {
+        ChildIndex index = this.getChildIndex(node);
+        if (index != null) {
+            NodeInterface child = index.get(symbol);
+            return (child == null) ? NodeArrays.NONE : ((ArrayNode) child).getId();
+        }
+        NodeArrays nodes = this.nodes;
+        int child = nodes.getFirstChild(node);
+        while (child != NodeArrays.NONE) {
+            int start = this.tokens.symbolAt(nodes.getLeftIndex(child));
+            if (start <= symbol) {
+                return (start == symbol) ? child : NodeArrays.NONE;
+            }
+            child = nodes.getRightSybling(child);
+        }
+        return NodeArrays.NONE;
+    }
+
+    /**
+     * returns the ChildIndex of the internal node, or null if it has
+     * ChildIndex.HASHED children or fewer
+     */
+    final ChildIndex getChildIndex(int node) {
+        if (this.noIndexes == 0) {
+            return null;
+        }
+        int mask = this.indexIds.length - 1;
+        int slot = ChildIndex.mix(node) & mask;
+        int id;
+        while ((id = this.indexIds[slot]) != NodeArrays.NONE) {
+            if (id == node) {
+                return this.indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Indexes the children of the internal node, which has more than
+     * ChildIndex.HASHED of them, and returns the index.
+     */
+    final ChildIndex newChildIndex(int node) {
+        NodeArrays nodes = this.nodes;
+        ChildIndex index = new ChildIndex(2 * ChildIndex.HASHED);
+        for (int child = nodes.getFirstChild(node); child != NodeArrays.NONE;
+             child = nodes.getRightSybling(child)) {
+            index.add(this.tokens.symbolAt(nodes.getLeftIndex(child)), new ArrayNode(this, child));
+        }
+        if (this.indexIds == null || 2 * (this.noIndexes + 1) > this.indexIds.length) {
+            int[] oldIds = this.indexIds;
+            ChildIndex[] oldIndexes = this.indexes;
+            int capacity = (oldIds == null) ? 16 : 2 * oldIds.length;
+            this.indexIds = new int[capacity];
+            Arrays.fill(this.indexIds, NodeArrays.NONE);
+            this.indexes = new ChildIndex[capacity];
+            for (int i = 0; oldIds != null && i < oldIds.length; i++) {
+                if (oldIds[i] != NodeArrays.NONE) {
+                    this.putChildIndex(oldIds[i], oldIndexes[i]);
+                }
+            }
+        }
+        this.putChildIndex(node, index);
+        this.noIndexes++;
+        return index;
+    }
+
+    private void putChildIndex(int node, ChildIndex index) {
+        int mask = this.indexIds.length - 1;
+        int slot = ChildIndex.mix(node) & mask;
+        while (this.indexIds[slot] != NodeArrays.NONE) {
+            slot = (slot + 1) & mask;
+        }
+        this.indexIds[slot] = node;
+        this.indexes[slot] = index;
+    }
+
+    /**
+     * Visits the leaves below node, with a stack of the ids still to
+     * visit. The positions are put in positions, as many as it holds, if
+     * it is not null, and prepended to the list after head, if it is not
+     * null. Returns the smallest position if first is true, the number of
+     * positions otherwise.
+     */
+    private int walk(int node, int[] positions, SuffixCoordinates head, boolean first) {
+        NodeArrays nodes = this.nodes;
+        CoordinatePool pool = nodes.getCoordinatePool();
+        int min = Integer.MAX_VALUE;
+        int count = 0;
+        int[] stack = new int[32];
+        int size = 0;
+        stack[size++] = node;
+        while (size > 0) {
+            node = stack[--size];
+            if (!nodes.isLeaf(node)) {
+                for (int child = nodes.getFirstChild(node); child != NodeArrays.NONE;
+                     child = nodes.getRightSybling(child)) {
+                    if (size == stack.length) {
+                        int[] temp = new int[2 * size];
+                        System.arraycopy(stack, 0, temp, 0, size);
+                        stack = temp;
+                    }
+                    stack[size++] = child;
+                }
+                continue;
+            }
+            int coordinates = nodes.getSuffixLink(node);
+            int cell = (coordinates >= 0) ? CoordinatePool.NONE : -1 - coordinates;
+            int position = (coordinates >= 0) ? coordinates : pool.getPosition(cell);
+            while (true) {
+                min = Math.min(min, position);
+                if (positions != null && count < positions.length) {
+                    positions[count] = position;
+                }
+                if (head != null) {
+                    head.setNext(new SuffixCoordinates(position, head.getNext()));
+                }
+                count++;
+                if (cell == CoordinatePool.NONE || (cell = pool.getNext(cell)) == CoordinatePool.NONE) {
+                    break;
+                }
+                position = pool.getPosition(cell);
+            }
+        }
+        return first ? min : count;
+    }
+
+    /**
+     * returns a view of the root of the tree
+     */
+    public final ArrayNode getRoot() {
+        return new ArrayNode(this, 0);
+    }
+
+    /**
+     * returns the first child of node, or null for a leaf
+     */
+    public final NodeInterface getFirstChild(NodeInterface node) {
+        return (NodeInterface) ((ArrayNode) node).getFirstChild();
+    }
+
+    /**
+     * returns the coordinates of the leaf node, or null for an internal node
+     */
+    public final SuffixCoordinates getCoordinates(NodeInterface node) {
+        return ((ArrayNode) node).getCoordinates();
+    }
+
+    /**
+     * returns the label of the branch leading to node
+     */
+    public final String getLabel(NodeInterface node) {
+        return this.tokens.getLabel(node.getLeftIndex(), node.getLength());
+    }
+
+    /**
+     * returns the nodes of the tree
+     */
+    final NodeArrays getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * returns the strings of the tree
+     */
+    final ListOfTokens getTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * returns a view of the node id, or null if id is NodeArrays.NONE
+     */
+    final ArrayNode getNode(int id) {
+        return (id == NodeArrays.NONE) ? null : new ArrayNode(this, id);
+    }
+
+    /**
+     * returns the substring starting at leftIndex and having length length
+     * from the string collection
+     */
+    final String getSubstring(int leftIndex, int length) {
+        return this.tokens.getSubstring(leftIndex, length);
+    }
+
+    /**
+     * returns the char at position, counted from the first char of the first
+     * string
+     */
+
+    final char charAt(int position) {
+        return this.tokens.charAt(position);
+    }
+
+    /**
+     * returns the symbol at position; symbols are ordered as the chars
+     */
+
+    final int symbolAt(int position) {
+        return this.tokens.symbolAt(position);
+    }
+
+    /**
+     * Returns the length of the Longest Common Extension (LCE) of the
+     * positions i and j of the string collection, up to length chars.
+     */
+
+    final int getLCE(int i, int j, int length) {
+        return this.tokens.getLCE(i, j, length);
+    }
+
+    /**
+     * returns the starting index of the token at indexToken
+     */
+
+    final int getStart(int indexToken) {
+        return this.tokens.getStart(indexToken);
+    }
+
+    /**
+     * Returns the index of the token that contains position.
+     */
+
+    final int getIndex(int position) {
+        return this.tokens.getIndex(position);
+    }
+
+    /**
+     * returns the total length of the strings in the tree
+     */
+
+    final int getTotalLength() {
+        return this.tokens.getTotalLength();
+    }
+
+    /**
+     * returns the total no of nodes in the tree
+     */
+
+    public final int getNoNodes() {
+        return this.nodes.size();
+    }
+
+    /**
+     * returns the first Info object of the node id
+     */
+
+    final Info getInfo(int id) {
+        return (this.infos == null || id >= this.infos.length) ? null : this.infos[id];
+    }
+
+    /**
+     * prepends info to the list of Info objects of the node id
+     */
+
+    final void setInfo(int id, Info info) {
+        if (this.infos == null || id >= this.infos.length) {
+            Info[] temp = new Info[this.nodes.size()];
+            if (this.infos != null) {
+                System.arraycopy(this.infos, 0, temp, 0, this.infos.length);
+            }
+            this.infos = temp;
+        }
+        if (this.infos[id] != null) {
+            info.setNextInfo(this.infos[id]);
+        }
+        this.infos[id] = info;
+    }
+
+}
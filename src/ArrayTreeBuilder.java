@@ -0,0 +1,342 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Builds an ArraySuffixTree. Implements the same Ukkonen algorithm as
+ * TreeBuilder, with the nodes designated by their ids in NodeArrays.
+ */
+
+public final class ArrayTreeBuilder {
+
+    private static final int NONE = NodeArrays.NONE;
+
+    private static final int ROOT = 0;
+
+    /**
+     * the tree in which the string is added
+     */
+
+    private ArraySuffixTree myTree;
+
+    /**
+     * the nodes of myTree
+     */
+
+    private NodeArrays nodes;
+
+    /**
+     * the index of the first char of this string, relatively to the first
+     * char of the first string inserted in the tree
+     */
+
+    private int startPos;
+
+    /**
+     * the position that follows the last char of this string
+     */
+
+    private int endPos;
+
+    /**
+     * the active point: the active node, the position of the first char of
+     * the active edge, and the number of chars matched on that edge
+     */
+
+    private int activeNode;
+
+    private int activeEdge;
+
+    private int activeLength;
+
+    /**
+     * the number of suffixes of the current phase that still have to be
+     * inserted explicitly
+     */
+
+    private int remainder;
+
+    /**
+     * the internal node created by the previous extension of the current
+     * phase, that waits for its suffix link
+     */
+
+    private int needSuffixLink;
+
+    /**
+     * the left sybling of the child returned by the last call to findChild,
+     * when its parent has no ChildIndex
+     */
+
+    private int leftSybling;
+
+    /**
+     * @stereotype constructor 
+     */
+
+    public ArrayTreeBuilder(ArraySuffixTree tree) {
+        this.myTree = tree;
+        this.nodes = tree.getNodes();
+        this.activeNode = ROOT;
+        this.activeLength = 0;
+        this.remainder = 0;
+        this.needSuffixLink = NONE;
+        this.leftSybling = NONE;
+    }
+
+    /**
+     * add a string to the tree this builder is constructed for; returns
+     * the index of the string, or -1 if the string was not added
+     */
+
+    public final int addToken(CharSequence token) {
+        int tokenIndex = this.myTree.addToken(token);
+
+        /**
+         * the string is already in the tree, or it does not have the proper
+         * alphabet
+         */
+
+        if (tokenIndex == -1) { return -1; }
+        /**
+         * a string has at most 2 * length new nodes
+         */
+        this.nodes.ensureCapacity(this.nodes.size() + 2 * token.length());
+        this.insertSuffixes(this.myTree.getStart(tokenIndex), token.length());
+        return tokenIndex;
+    }
+
+    /**
+     * Adds the strings to the tree this builder is constructed for, and
+     * returns the number of strings added. When tokens is a Collection,
+     * the strings and the nodes of the tree are first grown to hold them
+     * all; other Iterables, such as stream::iterator, are read once.
+     */
+
+    public final int addTokens(Iterable<? extends CharSequence> tokens) {
+        if (tokens instanceof Collection) {
+            long length = 0;
+            for (CharSequence token : tokens) {
+                length += token.length();
+            }
+            /**
+             * the positions and the node ids are ints: no more than that
+             * is reserved, and a longer batch fails once the text is full
+             */
+            int capacity = (int) Math.min(length, Integer.MAX_VALUE - this.myTree.getTotalLength());
+            this.myTree.getTokens().ensureCapacity(((Collection<?>) tokens).size(), capacity);
+            this.nodes.ensureCapacity((int) Math.min(this.nodes.size() + 2L * capacity, Integer.MAX_VALUE));
+        }
+        int added = 0;
+        for (Iterator<? extends CharSequence> i = tokens.iterator(); i.hasNext(); ) {
+            CharSequence token = i.next();
+            int start = this.myTree.getTotalLength();
+            if (this.myTree.addToken(token) != -1) {
+                this.nodes.ensureCapacity(this.nodes.size() + 2 * token.length());
+                this.insertSuffixes(start, token.length());
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * adds the suffixes of the tokenLen chars at startPos
+     */
+
+    private void insertSuffixes(int startPos, int tokenLen) {
+        this.startPos = startPos;
+        this.endPos = startPos + tokenLen;
+        this.activeNode = ROOT;
+        this.activeLength = 0;
+        this.remainder = 0;
+        for (int i = this.startPos; i < this.endPos; i++) {
+            this.extend(i);
+        }
+    }
+
+    /**
+     * phase i: adds the char at position i to all the suffixes that are
+     * still implicit, until one of them is already in the tree (rule 3)
+     */
+
+    private void extend(int phase) {
+        NodeArrays nodes = this.nodes;
+        int phaseChar = this.myTree.symbolAt(phase);
+        this.needSuffixLink = NONE;
+        this.remainder++;
+        while (this.remainder > 0) {
+            if (this.activeLength == 0) {
+                this.activeEdge = phase;
+            }
+            int next = this.findChild(this.activeNode, this.myTree.symbolAt(this.activeEdge));
+            if (next == NONE) {
+                /**
+                 * rule 2: a new leaf hangs from the active node
+                 */
+                int leaf = nodes.newLeafNode(phase, this.endPos - phase, NONE, phase - this.remainder + 1);
+                this.insertChild(this.activeNode, leaf, phaseChar);
+                this.addSuffixLink(this.activeNode);
+            } else {
+                int nextLeft = nodes.getLeftIndex(next);
+                int nextLength = nodes.getLength(next);
+                int edgeLength = Math.min(nextLength, phase + 1 - nextLeft);
+                if (this.activeLength >= edgeLength) {
+                    this.activeEdge += edgeLength;
+                    this.activeLength -= edgeLength;
+                    this.activeNode = next;
+                    continue;
+                }
+                int nextChar = this.myTree.symbolAt(nextLeft + this.activeLength);
+                if (nextChar == phaseChar) {
+                    if ((phase == this.endPos - 1) && nodes.isLeaf(next) &&
+                        (this.activeLength + 1 == nextLength)) {
+                        /**
+                         * the suffix ends at a leaf of a previous string
+                         */
+                        nodes.addCoordinates(next, phase - this.remainder + 1);
+                        this.addSuffixLink(this.activeNode);
+                    } else {
+                        /**
+                         * rule 3: do nothing, the phase ends here
+                         */
+                        this.activeLength++;
+                        this.addSuffixLink(this.activeNode);
+                        break;
+                    }
+                } else {
+                    /**
+                     * split the branch
+                     */
+                    int split = nodes.newInternalNode(nextLeft, this.activeLength,
+                                                      nodes.getRightSybling(next), NONE);
+                    this.replaceChild(this.activeNode, split, this.myTree.symbolAt(nextLeft));
+                    nodes.setLeftIndex(next, nextLeft + this.activeLength);
+                    nodes.setLength(next, nextLength - this.activeLength);
+                    int leaf = nodes.newLeafNode(phase, this.endPos - phase, NONE,
+                                                 phase - this.remainder + 1);
+                    if (nextChar > phaseChar) {
+                        nodes.setFirstChild(split, next);
+                        nodes.setRightSybling(next, leaf);
+                    } else {
+                        nodes.setFirstChild(split, leaf);
+                        nodes.setRightSybling(leaf, next);
+                        nodes.setRightSybling(next, NONE);
+                    }
+                    this.addSuffixLink(split);
+                    this.needSuffixLink = split;
+                }
+            }
+            this.remainder--;
+            if ((this.activeNode == ROOT) && (this.activeLength > 0)) {
+                this.activeLength--;
+                this.activeEdge = phase - this.remainder + 1;
+            } else {
+                int link = nodes.getSuffixLink(this.activeNode);
+                this.activeNode = (link != NONE) ? link : ROOT;
+            }
+        }
+    }
+
+    private void addSuffixLink(int node) {
+        if (this.needSuffixLink != NONE) {
+            this.nodes.setSuffixLink(this.needSuffixLink, node);
+            this.needSuffixLink = NONE;
+        }
+    }
+
+    /**
+     * returns the child of node whose branch starts with branchStart, or NONE;
+     * leftSybling is set to the left sybling of that child
+     */
+
+    private int findChild(int node, int branchStart) {
+        ChildIndex index = this.myTree.getChildIndex(node);
+        if (index != null) {
+            NodeInterface child = index.get(branchStart);
+            return (child == null) ? NONE : ((ArrayNode) child).getId();
+        }
+        int previous = NONE;
+        int temp = this.nodes.getFirstChild(node);
+        while (temp != NONE) {
+            int start = this.myTree.symbolAt(this.nodes.getLeftIndex(temp));
+            if (start <= branchStart) {
+                if (start != branchStart) {
+                    temp = NONE;
+                }
+                break;
+            }
+            previous = temp;
+            temp = this.nodes.getRightSybling(temp);
+        }
+        this.leftSybling = previous;
+        return temp;
+    }
+
+    /**
+     * inserts child, whose branch starts with branchStart, among the
+     * children of node; node is indexed once it has more than
+     * ChildIndex.HASHED children
+     */
+
+    private void insertChild(int node, int child, int branchStart) {
+        int previous = NONE;
+        int temp;
+        ChildIndex index = this.myTree.getChildIndex(node);
+        if (index != null) {
+            NodeInterface left = index.getLeftSybling(branchStart);
+            previous = (left == null) ? NONE : ((ArrayNode) left).getId();
+            temp = (previous == NONE) ? this.nodes.getFirstChild(node) : this.nodes.getRightSybling(previous);
+            index.add(branchStart, this.myTree.getNode(child));
+        } else {
+            int count = 0;
+            temp = this.nodes.getFirstChild(node);
+            while ((temp != NONE) && (this.myTree.symbolAt(this.nodes.getLeftIndex(temp)) > branchStart)) {
+                previous = temp;
+                temp = this.nodes.getRightSybling(temp);
+                count++;
+            }
+            for (int rest = temp; rest != NONE && count <= ChildIndex.HASHED; rest = this.nodes.getRightSybling(rest)) {
+                count++;
+            }
+            if (count >= ChildIndex.HASHED) {
+                this.myTree.newChildIndex(node).add(branchStart, this.myTree.getNode(child));
+            }
+        }
+        this.nodes.setRightSybling(child, temp);
+        if (previous == NONE) {
+            this.nodes.setFirstChild(node, child);
+        } else {
+            this.nodes.setRightSybling(previous, child);
+        }
+    }
+
+    /**
+     * replaces the child of node whose branch starts with branchStart,
+     * the last one found by findChild, by newChild
+     */
+
+    private void replaceChild(int node, int newChild, int branchStart) {
+        ChildIndex index = this.myTree.getChildIndex(node);
+        if (index != null) {
+            NodeInterface left = index.getLeftSybling(branchStart);
+            this.leftSybling = (left == null) ? NONE : ((ArrayNode) left).getId();
+            index.set(branchStart, this.myTree.getNode(newChild));
+        }
+        if (this.leftSybling == NONE) {
+            this.nodes.setFirstChild(node, newChild);
+        } else {
+            this.nodes.setRightSybling(this.leftSybling, newChild);
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers batches of queries on a tree using all the threads of a
+ * ForkJoinPool. The results are returned in the order of the patterns.
+ *
+ * The queries of SuffixTree only read the tree, so that any number of
+ * threads can run them at once, as long as no thread modifies the tree:
+ * no string is added or removed while a batch runs. The patterns are
+ * split in ranges, which the threads of the pool share.
+ *
+ * When the patterns are grouped, they are first sorted, and each thread
+ * answers a range of patterns in sorted order: the patterns that share a
+ * prefix follow the same path from the root, which stays in its cache.
+ */
+
+public final class BatchQuery {
+
+    /**
+     * the number of patterns below which a range is not split
+     */
+
+    private static final int RANGE = 1024;
+
+    private static final int CONTAINS = 0;
+
+    private static final int COUNT = 1;
+
+    private static final int FIRST = 2;
+
+    /**
+     * the tree that is queried
+     */
+
+    private SuffixTree myTree;
+
+    private ForkJoinPool pool;
+
+    /**
+     * true if the patterns are sorted before they are answered
+     */
+
+    private boolean grouped;
+
+    /**
+     * Uses the common pool.
+     * @stereotype constructor
+     */
+
+    public BatchQuery(SuffixTree tree) {
+        this(tree, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @stereotype constructor
+     */
+
+    public BatchQuery(SuffixTree tree, ForkJoinPool pool) {
+        this.myTree = tree;
+        this.pool = pool;
+        this.grouped = false;
+    }
+
+    /**
+     * sets whether the patterns are sorted before they are answered, so
+     * that the patterns with a common prefix are answered together
+     */
+
+    public final void setGrouped(boolean grouped) {
+        this.grouped = grouped;
+    }
+
+    /**
+     * returns, for each pattern, true if it is a substring of one of the
+     * strings of the tree
+     */
+
+    public final boolean[] contains(List<? extends CharSequence> patterns) {
+        int[] results = this.run(patterns, CONTAINS);
+        boolean[] found = new boolean[results.length];
+        for (int i = 0; i < results.length; i++) {
+            found[i] = results[i] != 0;
+        }
+        return found;
+    }
+
+    /**
+     * returns the number of positions where each pattern is found
+     */
+
+    public final int[] count(List<? extends CharSequence> patterns) {
+        return this.run(patterns, COUNT);
+    }
+
+    /**
+     * returns the smallest position where each pattern is found, or -1
+     */
+
+    public final int[] firstOccurrence(List<? extends CharSequence> patterns) {
+        return this.run(patterns, FIRST);
+    }
+
+    /**
+     * answers the query of kind for all the patterns
+     */
+
+    private int[] run(List<? extends CharSequence> patterns, int kind) {
+        this.myTree.checkChars();
+        CharSequence[] array = patterns.toArray(new CharSequence[patterns.size()]);
+        int[] order = null;
+        if (this.grouped && array.length > RANGE) {
+            order = sort(array);
+        }
+        int[] results = new int[array.length];
+        this.pool.invoke(new Answer(array, order, results, kind, 0, array.length));
+        return results;
+    }
+
+    /**
+     * returns the indices of the patterns, in the order of the patterns
+     */
+
+    private static int[] sort(final CharSequence[] patterns) {
+        Integer[] indices = new Integer[patterns.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = Integer.valueOf(i);
+        }
+        Arrays.parallelSort(indices, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return CharSequence.compare(patterns[a.intValue()], patterns[b.intValue()]);
+            }
+        });
+        int[] order = new int[indices.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = indices[i].intValue();
+        }
+        return order;
+    }
+
+    /**
+     * answers the patterns from first to last - 1, in the order of order
+     * if it is not null, splitting the range in two while it is large
+     */
+
+    @SuppressWarnings("serial")
+    private final class Answer extends RecursiveAction {
+
+        private final CharSequence[] patterns;
+
+        private final int[] order;
+
+        private final int[] results;
+
+        private final int kind;
+
+        private final int first;
+
+        private final int last;
+
+        Answer(CharSequence[] patterns, int[] order, int[] results, int kind, int first, int last) {
+            this.patterns = patterns;
+            this.order = order;
+            this.results = results;
+            this.kind = kind;
+            this.first = first;
+            this.last = last;
+        }
+
+        protected void compute() {
+            if (this.last - this.first > RANGE) {
+                int middle = (this.first + this.last) >>> 1;
+                invokeAll(new Answer(this.patterns, this.order, this.results, this.kind, this.first, middle),
+                          new Answer(this.patterns, this.order, this.results, this.kind, middle, this.last));
+                return;
+            }
+            for (int i = this.first; i < this.last; i++) {
+                int index = (this.order == null) ? i : this.order[i];
+                CharSequence pattern = this.patterns[index];
+                switch (this.kind) {
+                case CONTAINS:
+                    this.results[index] = myTree.contains(pattern) ? 1 : 0;
+                    break;
+                case COUNT:
+                    this.results[index] = myTree.count(pattern);
+                    break;
+                default:
+                    this.results[index] = myTree.firstOccurrence(pattern);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * A vector of bits that counts its ones before a position (rank) and
+ * finds its k-th one (select). The bits are set while the vector is
+ * built; build adds the counts, after which it cannot be modified.
+ *
+ * The number of ones before each block of 512 bits is stored, about 13%
+ * more than the bits, and the position of every 512th one; rank reads at
+ * most 8 words, select searches the blocks between two samples.
+ */
+
+final class BitVector {
+
+    private static final int LOG_BLOCK = 9;
+
+    private static final int WORDS_PER_BLOCK = 1 << (LOG_BLOCK - 6);
+
+    private static final int LOG_SAMPLE = 9;
+
+    private long[] bits;
+
+    private long length;
+
+    /**
+     * the number of ones before each block
+     */
+
+    private long[] ranks;
+
+    /**
+     * the block of every 512th one
+     */
+
+    private int[] samples;
+
+    private long noOnes;
+
+    /**
+     * @stereotype constructor
+     */
+
+    BitVector(long length) {
+        this.bits = new long[(int) ((length + 63) >>> 6)];
+        this.length = length;
+    }
+
+    final void set(long position) {
+        this.bits[(int) (position >>> 6)] |= 1L << (position & 63);
+    }
+
+    final boolean get(long position) {
+        return (this.bits[(int) (position >>> 6)] & (1L << (position & 63))) != 0;
+    }
+
+    final long length() {
+        return this.length;
+    }
+
+    final long getNoOnes() {
+        return this.noOnes;
+    }
+
+    /**
+     * computes the counts; the bits cannot be set anymore
+     */
+
+    final void build() {
+        int noBlocks = (this.bits.length + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK;
+        this.ranks = new long[noBlocks + 1];
+        long count = 0;
+        int noSamples = 0;
+        int[] samples = new int[16];
+        for (int block = 0; block < noBlocks; block++) {
+            this.ranks[block] = count;
+            int end = Math.min(this.bits.length, (block + 1) * WORDS_PER_BLOCK);
+            for (int w = block * WORDS_PER_BLOCK; w < end; w++) {
+                int ones = Long.bitCount(this.bits[w]);
+                /**
+                 * the blocks where the ones count crosses a multiple of 512
+                 */
+                long next = ((count >>> LOG_SAMPLE) + ((count & ((1 << LOG_SAMPLE) - 1)) == 0 ? 0 : 1)) << LOG_SAMPLE;
+                while (next < count + ones) {
+                    if (noSamples == samples.length) {
+                        int[] temp = new int[2 * noSamples];
+                        System.arraycopy(samples, 0, temp, 0, noSamples);
+                        samples = temp;
+                    }
+                    samples[noSamples++] = block;
+                    next += 1 << LOG_SAMPLE;
+                }
+                count += ones;
+            }
+        }
+        this.ranks[noBlocks] = count;
+        this.noOnes = count;
+        this.samples = new int[noSamples];
+        System.arraycopy(samples, 0, this.samples, 0, noSamples);
+    }
+
+    /**
+     * returns the number of ones before position
+     */
+
+    final long rank1(long position) {
+        int word = (int) (position >>> 6);
+        int block = word >>> (LOG_BLOCK - 6);
+        long rank = this.ranks[block];
+        for (int w = block * WORDS_PER_BLOCK; w < word; w++) {
+            rank += Long.bitCount(this.bits[w]);
+        }
+        if ((position & 63) != 0) {
+            rank += Long.bitCount(this.bits[word] & (-1L >>> (64 - (position & 63))));
+        }
+        return rank;
+    }
+
+    /**
+     * returns the position of the one of rank k, counted from 0
+     */
+
+    final long select1(long k) {
+        /**
+         * the samples bound the blocks of the one, then a binary search
+         * finds the last block with fewer than k + 1 ones before it
+         */
+        int sample = (int) (k >>> LOG_SAMPLE);
+        int low = this.samples[sample];
+        int high = (sample + 1 < this.samples.length) ? this.samples[sample + 1] : this.ranks.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.ranks[middle] <= k) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        long rank = this.ranks[low];
+        int w = low * WORDS_PER_BLOCK;
+        while (true) {
+            int ones = Long.bitCount(this.bits[w]);
+            if (rank + ones > k) {
+                break;
+            }
+            rank += ones;
+            w++;
+        }
+        long word = this.bits[w];
+        for (long r = rank; r < k; r++) {
+            word &= word - 1;
+        }
+        return ((long) w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * returns the number of bytes of this vector
+     */
+
+    final long getSize() {
+        return 8L * this.bits.length + 8L * this.ranks.length + 4L * this.samples.length;
+    }
+
+}
@@ -0,0 +1,178 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.nio.ByteBuffer;
+
+/**
+ * Text that stores each char as a byte in a ByteBuffer; the symbol of a
+ * char is the char itself, from 0 to 255. ASCII and Latin-1 text are
+ * stored as they are, and UTF-8 text byte by byte, without decoding.
+ *
+ * The buffer can be one of the caller's, such as a mapped file: its
+ * bytes become the text as they are read, and are only copied, to a
+ * buffer of this text, when chars are appended.
+ */
+
+final class ByteText extends Text {
+
+    private ByteBuffer bytes;
+
+    private int length;
+
+    /**
+     * true while bytes is the buffer of the caller
+     */
+
+    private boolean wrapped;
+
+    /**
+     * @stereotype constructor
+     */
+
+    ByteText() {
+        this.bytes = ByteBuffer.allocate(16);
+        this.length = 0;
+        this.wrapped = false;
+    }
+
+    /**
+     * A text over the bytes of buffer, from its position to its limit,
+     * which is empty until extend is called.
+     * @stereotype constructor
+     */
+
+    ByteText(ByteBuffer buffer) {
+        this.bytes = buffer.slice();
+        this.length = 0;
+        this.wrapped = true;
+    }
+
+    final int length() {
+        return this.length;
+    }
+
+    final int symbolAt(int position) {
+        return this.bytes.get(position) & 0xFF;
+    }
+
+    final char charAt(int position) {
+        return (char) (this.bytes.get(position) & 0xFF);
+    }
+
+    final int encode(char c) {
+        return (c <= 0xFF) ? c : -1;
+    }
+
+    /**
+     * returns true if the buffer of the caller is still read
+     */
+
+    final boolean isWrapped() {
+        return this.wrapped;
+    }
+
+    /**
+     * returns the number of bytes of the buffer of the caller that are not
+     * in the text yet
+     */
+
+    final int remaining() {
+        return this.wrapped ? this.bytes.capacity() - this.length : 0;
+    }
+
+    /**
+     * adds the next count bytes of the buffer of the caller to the text
+     */
+
+    final void extend(int count) {
+        this.length += count;
+    }
+
+    final void append(CharSequence token) {
+        int tokenLen = token.length();
+        this.grow(this.length + tokenLen);
+        for (int i = 0; i < tokenLen; i++) {
+            this.bytes.put(this.length + i, (byte) token.charAt(i));
+        }
+        this.length += tokenLen;
+    }
+
+    final void append(char[] chars, int offset, int count) {
+        this.grow(this.length + count);
+        for (int i = 0; i < count; i++) {
+            this.bytes.put(this.length + i, (byte) chars[offset + i]);
+        }
+        this.length += count;
+    }
+
+    final void append(Text source, int start, int end) {
+        ByteBuffer from = ((ByteText) source).bytes;
+        this.grow(this.length + end - start);
+        for (int i = start; i < end; i++) {
+            this.bytes.put(this.length++, from.get(i));
+        }
+    }
+
+    /**
+     * Grows the buffer so that it can hold length chars. The bytes of the
+     * buffer of the caller are copied, so that it is never written.
+     */
+
+    final void ensureCapacity(int length) {
+        if (length > this.bytes.capacity() || (this.wrapped && length > this.length)) {
+            ByteBuffer temp = ByteBuffer.allocate(Math.max(length, this.length));
+            for (int i = 0; i < this.length; i++) {
+                temp.put(i, this.bytes.get(i));
+            }
+            this.bytes = temp;
+            this.wrapped = false;
+        }
+    }
+
+    /**
+     * grows the buffer, at least twice, so that it can hold length chars
+     */
+
+    private void grow(int length) {
+        if (length > this.bytes.capacity() || this.wrapped) {
+            this.ensureCapacity(Math.max(length, 2 * this.length));
+        }
+    }
+
+    final String getSubstring(int leftIndex, int length) {
+        char[] temp = new char[length];
+        for (int i = 0; i < length; i++) {
+            temp[i] = (char) (this.bytes.get(leftIndex + i) & 0xFF);
+        }
+        return new String(temp);
+    }
+
+    /**
+     * compares eight bytes at a time; the buffer is big-endian, so the
+     * first byte that differs is in the leading bits
+     */
+
+    final int getLCE(int i, int j, int length) {
+        ByteBuffer bytes = this.bytes;
+        int match = 0;
+        while (match + 8 <= length) {
+            long difference = bytes.getLong(i + match) ^ bytes.getLong(j + match);
+            if (difference != 0) {
+                return match + (Long.numberOfLeadingZeros(difference) >>> 3);
+            }
+            match += 8;
+        }
+        while ((match < length) && (bytes.get(i + match) == bytes.get(j + match))) {
+            match++;
+        }
+        return match;
+    }
+
+}
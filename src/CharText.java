@@ -0,0 +1,105 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Text that stores each char as it is; the symbol of a char is the char
+ * itself. Used when there is no alphabet, or when it is too large to
+ * be packed.
+ */
+
+final class CharText extends Text {
+
+    private char[] chars;
+
+    private int length;
+
+    /**
+     * the permitted characters, or null if all chars are permitted
+     */
+
+    private final Alphabet alphabet;
+
+    /**
+     * @stereotype constructor 
+     */
+
+    CharText(Alphabet alphabet) {
+        this.chars = new char[16];
+        this.length = 0;
+        this.alphabet = alphabet;
+    }
+
+    final int length() {
+        return this.length;
+    }
+
+    final int symbolAt(int position) {
+        return this.chars[position];
+    }
+
+    final char charAt(int position) {
+        return this.chars[position];
+    }
+
+    final int encode(char c) {
+        return (this.alphabet == null || this.alphabet.encode(c) >= 0) ? c : -1;
+    }
+
+    final void append(CharSequence token) {
+        int tokenLen = token.length();
+        this.grow(this.length + tokenLen);
+        if (token instanceof String) {
+            ((String) token).getChars(0, tokenLen, this.chars, this.length);
+        } else {
+            for (int i = 0; i < tokenLen; i++) {
+                this.chars[this.length + i] = token.charAt(i);
+            }
+        }
+        this.length += tokenLen;
+    }
+
+    final void append(char[] chars, int offset, int count) {
+        this.grow(this.length + count);
+        System.arraycopy(chars, offset, this.chars, this.length, count);
+        this.length += count;
+    }
+
+    final void ensureCapacity(int length) {
+        if (length > this.chars.length) {
+            char[] temp = new char[length];
+            System.arraycopy(this.chars, 0, temp, 0, this.length);
+            this.chars = temp;
+        }
+    }
+
+    /**
+     * grows the chars, at least twice, so that they can hold length chars
+     */
+
+    private void grow(int length) {
+        if (length > this.chars.length) {
+            this.ensureCapacity(Math.max(length, 2 * this.chars.length));
+        }
+    }
+
+    final String getSubstring(int leftIndex, int length) {
+        return new String(this.chars, leftIndex, length);
+    }
+
+    final int getLCE(int i, int j, int length) {
+        char[] chars = this.chars;
+        int match = 0;
+        while ((match < length) && (chars[i + match] == chars[j + match])) {
+            match++;
+        }
+        return match;
+    }
+
+}
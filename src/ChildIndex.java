@@ -0,0 +1,254 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Index of the children of an InternalNode that has many children, by
+ * the first symbol of their branch. The children stay linked through
+ * their right syblings; the index only speeds up the lookups. The nodes
+ * of an ArraySuffixTree with many children are indexed the same way,
+ * through ArrayNode views of their children.
+ *
+ * The keys are kept sorted in the same decreasing order as the
+ * syblings, so that a lookup is a binary search and the left sybling of
+ * a child is the previous entry. Once the node has more than HASHED
+ * children, an open addressing table is added on top, and a lookup is
+ * done in constant time on average.
+ */
+
+final class ChildIndex {
+
+    /**
+     * number of children from which the hash table is used
+     */
+
+    static final int HASHED = 32;
+
+    /**
+     * first symbols of the branches, in decreasing order
+     */
+
+    private int[] keys;
+
+    /**
+     * children[i] is the child whose branch starts with keys[i]
+     */
+
+    private NodeInterface[] children;
+
+    /**
+     * number of children
+     */
+
+    private int size;
+
+    /**
+     * open addressing table from the keys to the children; null as long
+     * as there are not more than HASHED children. Its size is a power of
+     * two, and it is at most half full.
+     */
+
+    private int[] tableKeys;
+
+    private NodeInterface[] tableChildren;
+
+    /**
+     * @stereotype constructor 
+     */
+
+    ChildIndex(int capacity) {
+        this.keys = new int[capacity];
+        this.children = new NodeInterface[capacity];
+        this.size = 0;
+        this.tableKeys = null;
+        this.tableChildren = null;
+    }
+
+    final int size() {
+        return this.size;
+    }
+
+    /**
+     * returns the child whose branch starts with key, or null
+     */
+
+    final NodeInterface get(int key) {
+        if (this.tableChildren != null) {
+            int mask = this.tableKeys.length - 1;
+            int slot = mix(key) & mask;
+            NodeInterface child;
+            while ((child = this.tableChildren[slot]) != null) {
+                if (this.tableKeys[slot] == key) {
+                    return child;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+        int i = this.find(key);
+        return (i >= 0) ? this.children[i] : null;
+    }
+
+    /**
+     * returns the left sybling of the child whose branch starts, or would
+     * start, with key: the last child with a greater key, or null
+     */
+
+    final NodeInterface getLeftSybling(int key) {
+        int i = this.find(key);
+        if (i < 0) {
+            i = -1 - i;
+        }
+        return (i > 0) ? this.children[i - 1] : null;
+    }
+
+    /**
+     * returns the index of key in keys if it is there, or else -1 - i,
+     * where i is the index at which it would be inserted
+     */
+
+    private int find(int key) {
+        int low = 0, high = this.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int temp = this.keys[middle];
+            if (temp > key) {
+                low = middle + 1;
+            } else if (temp < key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1 - low;
+    }
+
+    /**
+     * adds child, whose branch starts with key, to the index
+     */
+
+    final void add(int key, NodeInterface child) {
+        int i = -1 - this.find(key);
+        if (this.size == this.keys.length) {
+            int[] tempKeys = new int[2 * this.size];
+            NodeInterface[] tempChildren = new NodeInterface[2 * this.size];
+            System.arraycopy(this.keys, 0, tempKeys, 0, this.size);
+            System.arraycopy(this.children, 0, tempChildren, 0, this.size);
+            this.keys = tempKeys;
+            this.children = tempChildren;
+        }
+        System.arraycopy(this.keys, i, this.keys, i + 1, this.size - i);
+        System.arraycopy(this.children, i, this.children, i + 1, this.size - i);
+        this.keys[i] = key;
+        this.children[i] = child;
+        this.size++;
+        if (this.tableChildren != null && 2 * this.size <= this.tableKeys.length) {
+            this.put(key, child);
+        } else if (this.size > HASHED) {
+            this.rehash();
+        }
+    }
+
+    /**
+     * removes the child whose branch starts with key from the index; the
+     * table is dropped when there are HASHED / 2 children or fewer
+     */
+
+    final void remove(int key) {
+        int i = this.find(key);
+        System.arraycopy(this.keys, i + 1, this.keys, i, this.size - i - 1);
+        System.arraycopy(this.children, i + 1, this.children, i, this.size - i - 1);
+        this.size--;
+        this.children[this.size] = null;
+        if (this.tableChildren != null) {
+            if (2 * this.size <= HASHED) {
+                this.tableKeys = null;
+                this.tableChildren = null;
+            } else {
+                this.delete(key);
+            }
+        }
+    }
+
+    /**
+     * replaces the child whose branch starts with key by child
+     */
+
+    final void set(int key, NodeInterface child) {
+        this.children[this.find(key)] = child;
+        if (this.tableChildren != null) {
+            this.put(key, child);
+        }
+    }
+
+    /**
+     * stores child under key in the table, replacing the previous child
+     * with that key if there is one
+     */
+
+    private void put(int key, NodeInterface child) {
+        int mask = this.tableKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (this.tableChildren[slot] != null && this.tableKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        this.tableKeys[slot] = key;
+        this.tableChildren[slot] = child;
+    }
+
+    /**
+     * Removes key from the table. The entries that follow it, up to an
+     * empty slot, are moved back if their own slot is not between the
+     * freed slot and theirs, so that every lookup still finds them.
+     */
+
+    private void delete(int key) {
+        int mask = this.tableKeys.length - 1;
+        int hole = mix(key) & mask;
+        while (this.tableKeys[hole] != key || this.tableChildren[hole] == null) {
+            hole = (hole + 1) & mask;
+        }
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (this.tableChildren[slot] == null) {
+                break;
+            }
+            int home = mix(this.tableKeys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                this.tableKeys[hole] = this.tableKeys[slot];
+                this.tableChildren[hole] = this.tableChildren[slot];
+                hole = slot;
+            }
+        }
+        this.tableChildren[hole] = null;
+    }
+
+    /**
+     * makes a new table, twice as large as the number of children
+     */
+
+    private void rehash() {
+        int capacity = 2 * HASHED;
+        while (capacity < 4 * this.size) {
+            capacity *= 2;
+        }
+        this.tableKeys = new int[capacity];
+        this.tableChildren = new NodeInterface[capacity];
+        for (int i = 0; i < this.size; i++) {
+            this.put(this.keys[i], this.children[i]);
+        }
+    }
+
+    static int mix(int key) {
+        key *= 0x9E3779B9;
+        return key ^ (key >>> 16);
+    }
+
+}
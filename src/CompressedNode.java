@@ -0,0 +1,170 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * A view of one node of a CompressedSuffixTree: the position of its open
+ * parenthesis, and the string depth of its parent, which gives the
+ * length of its branch. Its children and its right syblings are reached
+ * from it, so that the depth of their parent is known.
+ *
+ * What a view reads from the tree is kept: its close parenthesis, the
+ * position of the suffix of its first row, which gives its left index,
+ * and its string depth. The depth of an internal node is read from the
+ * suffix of the first row of its first child, which is passed to the
+ * view of that child, so that walking down the tree reads one suffix
+ * per node.
+ */
+
+final class CompressedNode implements NodeInterface {
+
+    private final CompressedSuffixTree tree;
+
+    private final long node;
+
+    private final int parentDepth;
+
+    /**
+     * the close parenthesis of this node, the position of the suffix of
+     * its first row and of the first row of its first child, and its
+     * string depth; -1 until they are read
+     */
+
+    private long close;
+
+    private int suffix;
+
+    private int childSuffix;
+
+    private int depth;
+
+    /**
+     * @stereotype constructor
+     */
+
+    CompressedNode(CompressedSuffixTree tree, long node, int parentDepth) {
+        this(tree, node, parentDepth, -1);
+    }
+
+    /**
+     * suffix is the position of the suffix of the first row of node, or
+     * -1 if it is not known
+     * @stereotype constructor
+     */
+
+    CompressedNode(CompressedSuffixTree tree, long node, int parentDepth, int suffix) {
+        this.tree = tree;
+        this.node = node;
+        this.parentDepth = parentDepth;
+        this.close = -1;
+        this.suffix = suffix;
+        this.childSuffix = -1;
+        this.depth = -1;
+    }
+
+    final boolean isLeaf() { return this.tree.isLeaf(this.node); }
+
+    public final int getLeftIndex() {
+        if (this.node == 0) {
+            return 0;
+        }
+        return this.getSuffix() + this.parentDepth;
+    }
+
+    public final int getLength() {
+        return this.getDepth() - this.parentDepth;
+    }
+
+    public final Object getRightSybling() {
+        if (this.node == 0) {
+            return null;
+        }
+        long sybling = this.tree.getRightSybling(this.node, this.getClose());
+        return (sybling == -1) ? null : new CompressedNode(this.tree, sybling, this.parentDepth);
+    }
+
+    /**
+     * returns the first child of this node, or null for a leaf
+     */
+
+    final Object getFirstChild() {
+        if (this.isLeaf() || this.getClose() == this.node + 1) {
+            return null;
+        }
+        return new CompressedNode(this.tree, this.node + 1, this.getDepth(), this.childSuffix);
+    }
+
+    /**
+     * returns the coordinates of this leaf, in the order of the rows, or
+     * null for an internal node
+     */
+
+    public final SuffixCoordinates getCoordinates() {
+        if (!this.isLeaf()) {
+            return null;
+        }
+        SuffixCoordinates coordinates = null;
+        int first = this.tree.getFirstRow(this.node, this.getClose());
+        for (int r = this.tree.getLastRow(this.node); r >= first; r--) {
+            coordinates = new SuffixCoordinates(this.tree.suffixAt(r), coordinates);
+        }
+        return coordinates;
+    }
+
+    /**
+     * returns the string depth of this node: the length of the path from
+     * the root
+     */
+
+    final int getDepth() {
+        if (this.depth == -1) {
+            if (this.node == 0) {
+                this.depth = 0;
+            } else if (this.isLeaf()) {
+                this.depth = this.tree.suffixLength(this.getSuffix());
+            } else {
+                this.childSuffix = this.tree.suffixAt(this.tree.getFirstRow(this.node + 1));
+                this.depth = this.tree.getDepth(this.childSuffix);
+            }
+        }
+        return this.depth;
+    }
+
+    private long getClose() {
+        if (this.close == -1) {
+            this.close = this.tree.findClose(this.node);
+        }
+        return this.close;
+    }
+
+    /**
+     * returns the position of the suffix of the first row of this node
+     */
+
+    private int getSuffix() {
+        if (this.suffix == -1) {
+            this.suffix = this.tree.suffixAt(this.tree.getFirstRow(this.node, this.getClose()));
+        }
+        return this.suffix;
+    }
+
+    public final Info getInfo() { return this.tree.getInfo(this.node); }
+
+    public final void setInfo(Info info) { this.tree.setInfo(this.node, info); }
+
+    public final boolean equals(Object other) {
+        return (other instanceof CompressedNode) &&
+            ((CompressedNode) other).tree == this.tree && ((CompressedNode) other).node == this.node;
+    }
+
+    public final int hashCode() {
+        return (int) this.node;
+    }
+
+}
@@ -0,0 +1,865 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+
+/**
+ * A compressed suffix tree (after Sadakane): a few bytes per char, for
+ * the callers that navigate the tree but cannot afford its nodes. The
+ * text itself is not kept; it is read back from the suffix array.
+ *
+ * It is made of three parts:
+ *
+ * - a compressed suffix array: the function psi, which maps the row of
+ *   a suffix in the suffix array to the row of the next suffix, is
+ *   increasing for the suffixes that start with the same char, and is
+ *   stored as gaps in Elias gamma codes. The position of one suffix in
+ *   32 (SA) and the row of one position in 32 (ISA) are kept, the
+ *   others are found by following psi;
+ * - the LCP array, as the bit vector of Sadakane, of 2n bits: the PLCP
+ *   value of position j plus 2j is the position of its one;
+ * - the topology, as balanced parentheses: a node is an open
+ *   parenthesis, followed by those of its children and a close
+ *   parenthesis. The children are in decreasing order of their first
+ *   char, as in the other trees. The close parenthesis of a node is
+ *   found with a tree of the smallest excess of each block of 256 bits.
+ *
+ * A leaf is the run of rows of the suffixes that are equal up to the end
+ * of their strings; its coordinates are their positions. Navigating
+ * from a node to its first child or to its right sybling, and reading
+ * the length of its branch, takes a time polylogarithmic in the length
+ * of the strings. The nodes are seen through CompressedNode objects.
+ * Like in SuffixArray, the strings must end with a terminator, such as
+ * '$', that appears nowhere else.
+ */
+
+public final class CompressedSuffixTree implements TreeInterface {
+
+    /**
+     * one psi value in PSI_SAMPLE is stored in full
+     */
+
+    private static final int PSI_SAMPLE = 64;
+
+    /**
+     * one position in SA_SAMPLE is sampled in SA and in ISA
+     */
+
+    private static final int SA_SAMPLE = 32;
+
+    /**
+     * the bits of a block of the parentheses, for findClose
+     */
+
+    private static final int LOG_BLOCK = 8;
+
+    /**
+     * the total length of the strings
+     */
+
+    private int length;
+
+    /**
+     * the position of the first char of each string, and the total length
+     */
+
+    private int[] starts;
+
+    /**
+     * the char that ends the strings
+     */
+
+    private char terminator;
+
+    /**
+     * the chars of the strings, in increasing order; the rows of the
+     * suffixes that start with chars[c] are from first[c] to
+     * first[c + 1] - 1
+     */
+
+    private char[] chars;
+
+    private int[] first;
+
+    /**
+     * psi, in gamma codes of the gaps: the gap from the previous value
+     * plus one, or the value plus one for the first row of a char
+     * (the gaps can be 0, see buildPsi)
+     */
+
+    private long[] psiCodes;
+
+    private int[] psiSamples;
+
+    private long[] psiOffsets;
+
+    /**
+     * the rows whose suffix position is sampled, and their positions
+     */
+
+    private BitVector sampledRows;
+
+    private int[] saSamples;
+
+    /**
+     * the row of each position that is a multiple of SA_SAMPLE
+     */
+
+    private int[] isaSamples;
+
+    /**
+     * a one at PLCP[j] + 2j for each position j
+     */
+
+    private BitVector plcp;
+
+    /**
+     * a one at the first row of each leaf
+     */
+
+    private BitVector leafRows;
+
+    /**
+     * the parentheses: a one for an open parenthesis
+     */
+
+    private BitVector parentheses;
+
+    /**
+     * a one at the open parenthesis of each leaf
+     */
+
+    private BitVector leaves;
+
+    /**
+     * the smallest excess in each block of the parentheses, in a complete
+     * binary tree whose leaves are the blocks
+     */
+
+    private int[] minExcess;
+
+    private int noBlocks;
+
+    private int noLeaves;
+
+    /**
+     * the Info objects attached to the nodes, indexed by preorder; created
+     * by the first call to setInfo
+     */
+
+    private Info[] infos;
+
+    /**
+     * Indexes the strings of tokens; the strings already seen, and those
+     * that have chars outside of alphabet, are skipped. An empty alphabet
+     * allows all the characters. The tree is built from a suffix array
+     * and its LCP array, which take 8 bytes per char while it is built.
+     * @stereotype constructor
+     */
+
+    public CompressedSuffixTree(String alphabet, String[] tokens) {
+        ListOfTokens list = new ListOfTokens(alphabet);
+        for (int i = 0; i < tokens.length; i++) {
+            list.insertToken(tokens[i]);
+        }
+        this.length = list.getTotalLength();
+        this.starts = new int[list.getNoTokens() + 1];
+        for (int i = 0; i <= list.getNoTokens(); i++) {
+            this.starts[i] = list.getStart(i);
+        }
+        if (this.length > 0) {
+            this.terminator = list.charAt(this.starts[1] - 1);
+        }
+        SuffixArray array = new SuffixArray(list, 0);
+        int[] sa = array.getSuffixArray();
+        int[] lcp = array.getLCP();
+        array = null;
+        this.buildChars(list, sa);
+        int[] isa = new int[this.length];
+        for (int r = 0; r < this.length; r++) {
+            isa[sa[r]] = r;
+        }
+        this.buildPsi(sa, isa);
+        this.buildSamples(sa, isa);
+        isa = null;
+        this.buildPLCP(sa, lcp);
+        this.buildTopology(sa, lcp);
+    }
+
+    /**
+     * returns true if pattern is a substring of one of the strings of the
+     * tree
+     */
+
+    public final boolean contains(CharSequence pattern) {
+        return this.count(pattern) > 0;
+    }
+
+    /**
+     * Returns the number of positions where pattern is found. The rows of
+     * the suffixes that start with pattern are found from its last char
+     * to its first: the suffixes that start with c and then with the rest
+     * are the rows of c whose psi is in the rows of the rest, and psi
+     * increases over the rows of c. A pattern with the terminator before
+     * its last char would run across two strings, and is found nowhere.
+     */
+
+    public final int count(CharSequence pattern) {
+        int m = pattern.length();
+        if (m == 0) {
+            return this.length;
+        }
+        for (int i = 0; i < m - 1; i++) {
+            if (pattern.charAt(i) == this.terminator) {
+                return 0;
+            }
+        }
+        int c = Arrays.binarySearch(this.chars, pattern.charAt(m - 1));
+        if (c < 0) {
+            return 0;
+        }
+        int low = this.first[c];
+        int high = this.first[c + 1];
+        for (int i = m - 2; i >= 0 && low < high; i--) {
+            c = Arrays.binarySearch(this.chars, pattern.charAt(i));
+            if (c < 0) {
+                return 0;
+            }
+            int next = this.first[c + 1];
+            low = this.psiBound(this.first[c], next, low);
+            high = this.psiBound(low, next, high);
+        }
+        return high - low;
+    }
+
+    /**
+     * Returns the first row from from to to - 1 whose psi is at least row,
+     * or to; psi increases over these rows, which start with one char.
+     * The rows whose psi is stored in full narrow the search to the rows
+     * of one sample, whose gamma codes are then read in one pass.
+     */
+
+    private int psiBound(int from, int to, int row) {
+        if (from >= to) {
+            return from;
+        }
+        int low = (from + PSI_SAMPLE - 1) / PSI_SAMPLE;
+        int high = (to - 1) / PSI_SAMPLE;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.psiSamples[middle] < row) {
+                from = middle * PSI_SAMPLE + 1;
+                low = middle + 1;
+            } else {
+                to = middle * PSI_SAMPLE;
+                high = middle - 1;
+            }
+        }
+        if (from == to) {
+            return from;
+        }
+        int sample = from / PSI_SAMPLE;
+        int r = sample * PSI_SAMPLE;
+        int psi = this.psiSamples[sample];
+        long offset = this.psiOffsets[sample];
+        int next = this.first[this.charIndex(r) + 1];
+        for (r++; r < to; r++) {
+            long window = this.window(offset);
+            int zeros = Long.numberOfLeadingZeros(window);
+            int x = (int) (window >>> (63 - 2 * zeros));
+            offset += 2 * zeros + 1;
+            if (r == next) {
+                psi = x - 1;
+                next = this.first[this.charIndex(r) + 1];
+            } else {
+                psi += x - 1;
+            }
+            if (r >= from && psi >= row) {
+                return r;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * the distinct chars, and the first row of each
+     */
+
+    private void buildChars(ListOfTokens list, int[] sa) {
+        int noChars = 0;
+        char[] chars = new char[16];
+        int[] first = new int[17];
+        for (int r = 0; r < this.length; r++) {
+            char c = list.charAt(sa[r]);
+            if (noChars == 0 || chars[noChars - 1] != c) {
+                if (noChars == chars.length) {
+                    chars = Arrays.copyOf(chars, 2 * noChars);
+                    first = Arrays.copyOf(first, 2 * noChars + 1);
+                }
+                chars[noChars] = c;
+                first[noChars] = r;
+                noChars++;
+            }
+        }
+        first[noChars] = this.length;
+        this.chars = Arrays.copyOf(chars, noChars);
+        this.first = Arrays.copyOf(first, noChars + 1);
+    }
+
+    /**
+     * psi[r] is the row of the suffix at sa[r] + 1; the last suffix has no
+     * next one, and gets 0. It comes first among the suffixes that start
+     * with its char, so psi does not decrease for a char, but the next
+     * value can be 0 too.
+     */
+
+    private void buildPsi(int[] sa, int[] isa) {
+        int noSamples = (this.length + PSI_SAMPLE - 1) / PSI_SAMPLE;
+        this.psiSamples = new int[noSamples];
+        this.psiOffsets = new long[noSamples];
+        this.psiCodes = new long[16];
+        long offset = 0;
+        int previous = 0;
+        int c = 0;
+        for (int r = 0; r < this.length; r++) {
+            int psi = (sa[r] + 1 < this.length) ? isa[sa[r] + 1] : 0;
+            while (this.first[c + 1] <= r) {
+                c++;
+            }
+            if (r % PSI_SAMPLE == 0) {
+                this.psiSamples[r / PSI_SAMPLE] = psi;
+                this.psiOffsets[r / PSI_SAMPLE] = offset;
+            } else if (r == this.first[c]) {
+                offset = this.writeGamma(offset, psi + 1);
+            } else {
+                offset = this.writeGamma(offset, psi - previous + 1);
+            }
+            previous = psi;
+        }
+        this.psiCodes = Arrays.copyOf(this.psiCodes, (int) ((offset + 63) >>> 6) + 1);
+    }
+
+    /**
+     * writes x, at least 1, in Elias gamma code at offset: as many zeros
+     * as x has bits after its first one, then x; returns the next offset
+     */
+
+    private long writeGamma(long offset, int x) {
+        int noBits = 64 - Long.numberOfLeadingZeros(x);
+        long end = offset + 2 * noBits - 1;
+        if ((end >>> 6) + 1 >= this.psiCodes.length) {
+            this.psiCodes = Arrays.copyOf(this.psiCodes, 2 * this.psiCodes.length + (int) (end >>> 6));
+        }
+        offset += noBits - 1;
+        for (int i = noBits - 1; i >= 0; i--, offset++) {
+            if (((x >>> i) & 1) != 0) {
+                this.psiCodes[(int) (offset >>> 6)] |= 1L << (63 - (offset & 63));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * returns psi of the row r
+     */
+
+    final int psi(int r) {
+        int sample = r / PSI_SAMPLE;
+        int psi = this.psiSamples[sample];
+        long offset = this.psiOffsets[sample];
+        int row = sample * PSI_SAMPLE;
+        if (row == r) {
+            return psi;
+        }
+        /**
+         * next is the first row of the next char, where the gaps restart
+         */
+        int c = this.charIndex(row + 1);
+        int next = (this.first[c] <= row) ? this.first[c + 1] : this.first[c];
+        for (row++; row <= r; row++) {
+            /**
+             * read a gamma code: count the zeros, then read as many bits
+             * after the first one. A value below 2^31 has a code of at
+             * most 63 bits, so it is read from one window of 64 bits.
+             */
+            long window = this.window(offset);
+            int zeros = Long.numberOfLeadingZeros(window);
+            int x = (int) (window >>> (63 - 2 * zeros));
+            offset += 2 * zeros + 1;
+            if (row == next) {
+                psi = x - 1;
+                next = this.first[this.charIndex(row) + 1];
+            } else {
+                psi += x - 1;
+            }
+        }
+        return psi;
+    }
+
+    /**
+     * returns the 64 bits of the gamma codes from offset; the codes are
+     * followed by a word of zeros
+     */
+
+    private long window(long offset) {
+        int word = (int) (offset >>> 6);
+        int shift = (int) (offset & 63);
+        long window = this.psiCodes[word] << shift;
+        if (shift != 0) {
+            window |= this.psiCodes[word + 1] >>> (64 - shift);
+        }
+        return window;
+    }
+
+    /**
+     * returns the index in chars of the first char of the suffix at row r
+     */
+
+    private int charIndex(int r) {
+        int low = 0, high = this.chars.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.first[middle] <= r) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * samples the positions multiple of SA_SAMPLE, and the last one, whose
+     * psi does not lead to the next position
+     */
+
+    private void buildSamples(int[] sa, int[] isa) {
+        this.sampledRows = new BitVector(this.length);
+        int noSamples = 0;
+        for (int r = 0; r < this.length; r++) {
+            if (sa[r] % SA_SAMPLE == 0 || sa[r] == this.length - 1) {
+                this.sampledRows.set(r);
+                noSamples++;
+            }
+        }
+        this.sampledRows.build();
+        this.saSamples = new int[noSamples];
+        for (int r = 0, i = 0; r < this.length; r++) {
+            if (this.sampledRows.get(r)) {
+                this.saSamples[i++] = sa[r];
+            }
+        }
+        this.isaSamples = new int[(this.length + SA_SAMPLE - 1) / SA_SAMPLE];
+        for (int j = 0; j < this.length; j += SA_SAMPLE) {
+            this.isaSamples[j / SA_SAMPLE] = isa[j];
+        }
+    }
+
+    /**
+     * returns the position of the suffix at row r
+     */
+
+    final int suffixAt(int r) {
+        int steps = 0;
+        while (!this.sampledRows.get(r)) {
+            r = this.psi(r);
+            steps++;
+        }
+        return this.saSamples[(int) this.sampledRows.rank1(r)] - steps;
+    }
+
+    /**
+     * returns the row of the suffix at position
+     */
+
+    final int rowOf(int position) {
+        int r = this.isaSamples[position / SA_SAMPLE];
+        for (int j = position - position % SA_SAMPLE; j < position; j++) {
+            r = this.psi(r);
+        }
+        return r;
+    }
+
+    /**
+     * PLCP[j] + j never decreases, even where the common prefixes stop at
+     * the end of the strings, so the ones are at distinct positions
+     */
+
+    private void buildPLCP(int[] sa, int[] lcp) {
+        int[] plcp = new int[this.length];
+        for (int r = 0; r < this.length; r++) {
+            plcp[sa[r]] = lcp[r];
+        }
+        this.plcp = new BitVector(2L * this.length + 1);
+        for (int j = 0; j < this.length; j++) {
+            this.plcp.set(plcp[j] + 2L * j);
+        }
+        this.plcp.build();
+    }
+
+    /**
+     * returns the length of the longest common prefix of the suffixes at
+     * rows r - 1 and r
+     */
+
+    final int lcp(int r) {
+        int j = this.suffixAt(r);
+        return (int) (this.plcp.select1(j) - 2L * j);
+    }
+
+    /**
+     * Builds the parentheses from the leaves in increasing order, as
+     * SuffixArrayBuilder builds the nodes: a node opens before its first
+     * leaf and closes after its last one. The parentheses of the tree
+     * whose children are in increasing order, reversed and swapped, are
+     * those of the same tree with its children in decreasing order.
+     */
+
+    private void buildTopology(int[] sa, int[] lcp) {
+        this.leafRows = new BitVector(this.length);
+        int noLeaves = 0;
+        for (int r = 0; r < this.length; r++) {
+            if (r == 0 || lcp[r] < this.suffixLength(sa[r]) || lcp[r] < this.suffixLength(sa[r - 1])) {
+                this.leafRows.set(r);
+                noLeaves++;
+            }
+        }
+        this.leafRows.build();
+        this.noLeaves = noLeaves;
+
+        /**
+         * opens[k] and closes[k] are the numbers of internal nodes whose
+         * first, and last, leaf is k; the stack holds the string depth and
+         * the first leaf of the open nodes
+         */
+        int[] opens = new int[noLeaves + 1];
+        int[] closes = new int[noLeaves + 1];
+        int[] depths = new int[64];
+        int[] lefts = new int[64];
+        int size = 1;
+        depths[0] = 0;
+        lefts[0] = 0;
+        for (int r = 1, k = 1; r < this.length; r++) {
+            if (!this.leafRows.get(r)) {
+                continue;
+            }
+            int common = lcp[r];
+            int left = k - 1;
+            while (depths[size - 1] > common) {
+                size--;
+                opens[lefts[size]]++;
+                closes[k - 1]++;
+                left = lefts[size];
+            }
+            if (depths[size - 1] < common) {
+                if (size == depths.length) {
+                    depths = Arrays.copyOf(depths, 2 * size);
+                    lefts = Arrays.copyOf(lefts, 2 * size);
+                }
+                depths[size] = common;
+                lefts[size] = left;
+                size++;
+            }
+            k++;
+        }
+        while (size > 0) {
+            size--;
+            opens[lefts[size]]++;
+            closes[Math.max(0, noLeaves - 1)]++;
+        }
+
+        long noParentheses = 2L * noLeaves;
+        for (int k = 0; k < noLeaves; k++) {
+            noParentheses += 2L * opens[k];
+        }
+        if (noLeaves == 0) {
+            noParentheses = 2;
+        }
+        this.parentheses = new BitVector(noParentheses);
+        this.leaves = new BitVector(noParentheses);
+
+        /**
+         * position p of the increasing order is position n - 1 - p of the
+         * decreasing order, with the parentheses swapped
+         */
+        long p = noParentheses - 1;
+        if (noLeaves == 0) {
+            this.parentheses.set(0);
+        }
+        for (int k = 0; k < noLeaves; k++) {
+            p -= opens[k];
+            this.parentheses.set(p - 1);
+            this.leaves.set(p - 1);
+            p -= 2;
+            for (int i = 0; i < closes[k]; i++, p--) {
+                this.parentheses.set(p);
+            }
+        }
+        this.parentheses.build();
+        this.leaves.build();
+        this.buildExcess();
+    }
+
+    /**
+     * returns the number of chars from position to the end of its string
+     */
+
+    final int suffixLength(int position) {
+        int low = 0, high = this.starts.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.starts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return this.starts[low + 1] - position;
+    }
+
+    /**
+     * the smallest excess after each parenthesis of each block, and the
+     * smallest of each pair of subtrees above
+     */
+
+    private void buildExcess() {
+        long noParentheses = this.parentheses.length();
+        this.noBlocks = (int) ((noParentheses + (1 << LOG_BLOCK) - 1) >>> LOG_BLOCK);
+        int capacity = 1;
+        while (capacity < this.noBlocks) {
+            capacity *= 2;
+        }
+        this.minExcess = new int[2 * capacity];
+        Arrays.fill(this.minExcess, Integer.MAX_VALUE);
+        int excess = 0;
+        for (long i = 0; i < noParentheses; i++) {
+            excess += this.parentheses.get(i) ? 1 : -1;
+            int leaf = capacity + (int) (i >>> LOG_BLOCK);
+            this.minExcess[leaf] = Math.min(this.minExcess[leaf], excess);
+        }
+        for (int node = capacity - 1; node > 0; node--) {
+            this.minExcess[node] = Math.min(this.minExcess[2 * node], this.minExcess[2 * node + 1]);
+        }
+    }
+
+    /**
+     * returns the excess before position: the open parentheses minus the
+     * close ones
+     */
+
+    private long excess(long position) {
+        return 2 * this.parentheses.rank1(position) - position;
+    }
+
+    /**
+     * returns the close parenthesis of the open parenthesis at position
+     */
+
+    final long findClose(long position) {
+        long target = this.excess(position);
+        long excess = target + 1;
+        long end = Math.min(this.parentheses.length(), ((position >>> LOG_BLOCK) + 1) << LOG_BLOCK);
+        for (long i = position + 1; i < end; i++) {
+            excess += this.parentheses.get(i) ? 1 : -1;
+            if (excess == target) {
+                return i;
+            }
+        }
+
+        /**
+         * the first block to the right whose smallest excess is small
+         * enough: up while the subtrees to the right are too high, then
+         * down to the leftmost leaf low enough
+         */
+        int capacity = this.minExcess.length / 2;
+        int node = capacity + (int) (position >>> LOG_BLOCK);
+        while (true) {
+            while ((node & 1) == 1) {
+                node >>>= 1;
+            }
+            node++;
+            if (this.minExcess[node] <= target) {
+                break;
+            }
+        }
+        while (node < capacity) {
+            node = (this.minExcess[2 * node] <= target) ? 2 * node : 2 * node + 1;
+        }
+        long i = (long) (node - capacity) << LOG_BLOCK;
+        excess = this.excess(i);
+        for (; ; i++) {
+            excess += this.parentheses.get(i) ? 1 : -1;
+            if (excess == target) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * returns a view of the root of the tree
+     */
+
+    public final CompressedNode getRoot() {
+        return new CompressedNode(this, 0, 0);
+    }
+
+    /**
+     * returns the first child of node, or null for a leaf
+     */
+
+    public final NodeInterface getFirstChild(NodeInterface node) {
+        return (NodeInterface) ((CompressedNode) node).getFirstChild();
+    }
+
+    /**
+     * returns the coordinates of the leaf node, or null for an internal node
+     */
+
+    public final SuffixCoordinates getCoordinates(NodeInterface node) {
+        return ((CompressedNode) node).getCoordinates();
+    }
+
+    /**
+     * returns the label of the branch leading to node
+     */
+
+    public final String getLabel(NodeInterface node) {
+        return this.getSubstring(node.getLeftIndex(), node.getLength());
+    }
+
+    final boolean isLeaf(long node) {
+        return this.leaves.get(node);
+    }
+
+    /**
+     * returns the open parenthesis of the right sybling of node, whose
+     * close parenthesis is close, or -1
+     */
+
+    final long getRightSybling(long node, long close) {
+        long next = close + 1;
+        return (next < this.parentheses.length() && this.parentheses.get(next)) ? next : -1;
+    }
+
+    /**
+     * returns the first row of the last leaf of node, in increasing order,
+     * which is its first leaf in the order of the rows
+     */
+
+    final int getFirstRow(long node) {
+        return this.getFirstRow(node, this.findClose(node));
+    }
+
+    /**
+     * returns the first row of node, whose close parenthesis is close
+     */
+
+    final int getFirstRow(long node, long close) {
+        long last = this.leaves.rank1(close) - 1;
+        return (int) this.leafRows.select1(this.noLeaves - 1 - last);
+    }
+
+    /**
+     * returns the rows of the leaf node, from the first to the last
+     */
+
+    final int getLastRow(long node) {
+        long leaf = this.noLeaves - 1 - this.leaves.rank1(node);
+        return (leaf + 1 < this.noLeaves) ? (int) this.leafRows.select1(leaf + 1) - 1 : this.length - 1;
+    }
+
+    /**
+     * Returns the string depth of an internal node whose first child has
+     * the suffix at childSuffix in its first row. The first child of a
+     * node has the greatest suffixes, and the common prefix of its first
+     * suffix with the previous one is the path of the node.
+     */
+
+    final int getDepth(int childSuffix) {
+        return (int) (this.plcp.select1(childSuffix) - 2L * childSuffix);
+    }
+
+    /**
+     * returns the length chars at position, read by following psi
+     */
+
+    public final String getSubstring(int position, int length) {
+        char[] temp = new char[length];
+        int r = (length > 0) ? this.rowOf(position) : 0;
+        for (int i = 0; i < length; i++) {
+            temp[i] = this.chars[this.charIndex(r)];
+            if (i + 1 < length) {
+                r = this.psi(r);
+            }
+        }
+        return new String(temp);
+    }
+
+    /**
+     * returns the position of the first char of the string at indexToken
+     */
+
+    public final int getStart(int indexToken) {
+        return this.starts[indexToken];
+    }
+
+    /**
+     * returns the total length of the strings
+     */
+
+    public final int getTotalLength() {
+        return this.length;
+    }
+
+    /**
+     * returns the no of nodes of the tree
+     */
+
+    public final int getNoNodes() {
+        return (int) (this.parentheses.length() / 2);
+    }
+
+    /**
+     * returns the number of bytes of the tree
+     */
+
+    public final long getSize() {
+        return 8L * this.psiCodes.length + 12L * this.psiSamples.length +
+            this.sampledRows.getSize() + 4L * this.saSamples.length + 4L * this.isaSamples.length +
+            this.plcp.getSize() + this.leafRows.getSize() + this.parentheses.getSize() +
+            this.leaves.getSize() + 4L * this.minExcess.length + 4L * this.starts.length +
+            6L * this.chars.length;
+    }
+
+    /**
+     * returns the first Info object of node
+     */
+
+    final Info getInfo(long node) {
+        int id = (int) this.parentheses.rank1(node);
+        return (this.infos == null) ? null : this.infos[id];
+    }
+
+    /**
+     * prepends info to the list of Info objects of node
+     */
+
+    final void setInfo(long node, Info info) {
+        int id = (int) this.parentheses.rank1(node);
+        if (this.infos == null) {
+            this.infos = new Info[this.getNoNodes()];
+        }
+        if (this.infos[id] != null) {
+            info.setNextInfo(this.infos[id]);
+        }
+        this.infos[id] = info;
+    }
+
+}
@@ -0,0 +1,156 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Shared storage for the coordinates of the leaves that have more than
+ * one suffix. The coordinates of one leaf form a chain of cells; a
+ * cell is a pair of ints, the position of a suffix and the index of the
+ * next cell of the chain (or NONE). The cells of the removed coordinates
+ * are chained in a free list, and used again.
+ *
+ * The cells are added and removed under the lock of the pool, since the
+ * partial trees of ParallelTreeBuilder share one pool and are built at
+ * once; they are read without it.
+ */
+
+final class CoordinatePool {
+
+    /**
+     * marks the end of a chain
+     */
+
+    static final int NONE = -1;
+
+    /**
+     * cells[2 * c] is the position of cell c, cells[2 * c + 1] its next cell
+     */
+
+    private volatile int[] cells;
+
+    /**
+     * number of cells in use, or in the free list
+     */
+
+    private int size;
+
+    /**
+     * the first cell of the free list, or NONE
+     */
+
+    private int free;
+
+    /**
+     * @stereotype constructor 
+     */
+
+    CoordinatePool() {
+        this.cells = new int[16];
+        this.size = 0;
+        this.free = NONE;
+    }
+
+    /**
+     * prepends position to the chain that starts at next, and returns the
+     * new first cell of the chain
+     */
+
+    final synchronized int add(int position, int next) {
+        int cell = this.free;
+        if (cell != NONE) {
+            this.free = this.cells[2 * cell + 1];
+        } else {
+            if (2 * this.size + 2 > this.cells.length) {
+                int[] temp = new int[2 * this.cells.length];
+                System.arraycopy(this.cells, 0, temp, 0, 2 * this.size);
+                this.cells = temp;
+            }
+            cell = this.size++;
+        }
+        int[] cells = this.cells;
+        cells[2 * cell] = position;
+        cells[2 * cell + 1] = next;
+        return cell;
+    }
+
+    /**
+     * removes the first cell that holds position from the chain that
+     * starts at first, and returns the new first cell of the chain
+     */
+
+    final synchronized int remove(int first, int position) {
+        int[] cells = this.cells;
+        int previous = NONE;
+        int cell = first;
+        while (cell != NONE && cells[2 * cell] != position) {
+            previous = cell;
+            cell = cells[2 * cell + 1];
+        }
+        if (cell == NONE) {
+            return first;
+        }
+        int next = cells[2 * cell + 1];
+        if (previous == NONE) {
+            first = next;
+        } else {
+            cells[2 * previous + 1] = next;
+        }
+        cells[2 * cell + 1] = this.free;
+        this.free = cell;
+        return first;
+    }
+
+    /**
+     * appends the chain that starts at next to the chain that starts at
+     * first, and returns first
+     */
+
+    final synchronized int concat(int first, int next) {
+        int[] cells = this.cells;
+        int last = first;
+        while (cells[2 * last + 1] != NONE) {
+            last = cells[2 * last + 1];
+        }
+        cells[2 * last + 1] = next;
+        return first;
+    }
+
+    /**
+     * returns the position stored in cell
+     */
+
+    final int getPosition(int cell) {
+        return this.cells[2 * cell];
+    }
+
+    /**
+     * sets the position stored in cell, when the strings are moved
+     */
+
+    final synchronized void setPosition(int cell, int position) {
+        this.cells[2 * cell] = position;
+    }
+
+    /**
+     * returns the cell that follows cell in its chain, or NONE
+     */
+
+    final int getNext(int cell) {
+        return this.cells[2 * cell + 1];
+    }
+
+    /**
+     * returns the number of cells in use, or in the free list
+     */
+
+    final int size() {
+        return this.size;
+    }
+
+}
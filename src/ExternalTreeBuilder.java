@@ -0,0 +1,1032 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Builds the suffix tree of strings too many for their nodes to fit in
+ * memory, straight to a file that MappedSuffixTree maps (see TreeWriter).
+ *
+ * TreeBuilder cannot do this: Ukkonen algorithm follows a suffix link and
+ * walks down from an arbitrary node at each step, so all the nodes must
+ * be in memory, and with the nodes in a file each step would cost a
+ * random read. Here the suffixes are sorted instead, and the tree is
+ * written once, from left to right, with sequential writes; the strings
+ * are only read in scans, and in the sorts of the suffixes.
+ *
+ * The suffixes are partitioned by their prefixes: a prefix is made one
+ * symbol longer until the suffixes that start with it fit in the memory
+ * allowed, and the prefixes, in increasing order, are grouped in
+ * partitions of at most that many suffixes. A prefix is packed in a long
+ * (see getKey), so that the prefix of each suffix is found by the scan
+ * of the strings with a shift and a read; a prefix is therefore not made
+ * longer than 64 bits allow (21 symbols for DNA), and more suffixes can
+ * share the longest ones. The suffixes of a partition are gathered by a
+ * scan of the strings, and sorted. The sorted suffixes of all the
+ * partitions, one partition after the other, describe the tree from left
+ * to right: each node is written to the file as soon as its last child
+ * is, so only the path from the root to the current leaf is kept in
+ * memory. The suffix links are set at the end, in the mapped file.
+ *
+ * The memory allowed bounds the suffixes of a partition, four bytes
+ * each, and the table of the prefixes, twelve bytes a prefix. The
+ * strings are not kept in memory: their symbols are written to a
+ * temporary file as they are added, as in the file of the tree, and
+ * read from it mapped in memory; only the start and the hash code of
+ * each string are kept. Like in SuffixArray, the strings must end with a
+ * terminator, such as '$', that appears nowhere else.
+ *
+ * The positions and the ids of the nodes are ints, as in the file of the
+ * tree, so the strings can have at most MAX_LENGTH symbols in all, about
+ * a billion; addToken throws an IOException beyond. A larger text has to
+ * be split into several trees.
+ */
+
+public final class ExternalTreeBuilder {
+
+    private static final int NONE = NodeArrays.NONE;
+
+    private static final int LEAF = NodeArrays.LEAF;
+
+    /**
+     * the largest total length of the strings, 2^30 - 1 symbols: their
+     * tree has at most twice as many nodes, whose ids are ints
+     */
+
+    static final int MAX_LENGTH = (Integer.MAX_VALUE - 1) / 2;
+
+    /**
+     * the permitted chars, or null if all chars are permitted; the
+     * symbols of an alphabet of 256 chars or fewer are their ranks, as in
+     * PackedText, and take one byte each
+     */
+
+    private Alphabet alphabet;
+
+    /**
+     * the number of bytes of a symbol: 1 or 2
+     */
+
+    private int symbolSize;
+
+    /**
+     * the directory of the temporary files, or null for the default one
+     */
+
+    private File directory;
+
+    /**
+     * the temporary file of the symbols of the strings, and its stream
+     * while strings are added; they are mapped by write
+     */
+
+    private File textFile;
+
+    private DataOutputStream textOut;
+
+    private MappedFile text;
+
+    /**
+     * starts[i] is the position of the first symbol of string i, and
+     * starts[noTokens] the total length
+     */
+
+    private int[] starts;
+
+    private int noTokens;
+
+    /**
+     * hashes[i] is the hash code of string i, and index an open addressing
+     * table of the strings by hash code, as in ListOfTokens
+     */
+
+    private int[] hashes;
+
+    private int[] index;
+
+    /**
+     * the temporary file read back to compare a string with the strings
+     * of the same hash code, opened by the first such comparison
+     */
+
+    private RandomAccessFile textIn;
+
+    /**
+     * the maximum number of suffixes in a partition, the table of the
+     * prefixes included
+     */
+
+    private int maxSuffixes;
+
+    /**
+     * the number of bits of a symbol in a key (see getKey), and the
+     * number of symbols of a key
+     */
+
+    private int bits;
+
+    private int maxPrefix;
+
+    /**
+     * the keys of the prefixes of the partitions, in increasing order,
+     * with their sign bit flipped so that they are ordered as longs, and
+     * the no of suffixes that start with each
+     */
+
+    private long[] prefixes;
+
+    private int[] counts;
+
+    /**
+     * the file of the nodes, and the no of nodes written, the root included
+     */
+
+    private DataOutputStream nodes;
+
+    private int noNodes;
+
+    /**
+     * the temporary file of the coordinates of the leaves that have
+     * several, and the no of cells written
+     */
+
+    private DataOutputStream cells;
+
+    private int noCells;
+
+    /**
+     * The internal nodes from the root to the current leaf, whose last
+     * child is not written yet: their string depth, the position of one
+     * of their suffixes, and the id of the child written last, which
+     * comes first in their list of children.
+     */
+
+    private int[] depths;
+
+    private int[] positions;
+
+    private int[] children;
+
+    private int size;
+
+    /**
+     * the current leaf: its string depth, the position of its last
+     * suffix, and its coordinates (a position, or -1 - the first cell)
+     */
+
+    private int leafDepth;
+
+    private int leafPosition;
+
+    private int leafCoordinates;
+
+    /**
+     * Keeps the nodes of at most memory / 4 suffixes at a time, a prefix
+     * of the partitions taking the place of three suffixes. The alphabet
+     * lists the permitted chars; all chars are permitted if it is empty.
+     * @stereotype constructor
+     */
+
+    public ExternalTreeBuilder(String alphabet, long memory) {
+        this(alphabet, memory, null);
+    }
+
+    /**
+     * Puts the temporary files in directory, the default one if it is
+     * null.
+     * @stereotype constructor
+     */
+
+    public ExternalTreeBuilder(String alphabet, long memory, File directory) {
+        if (alphabet == null || alphabet.length() == 0) {
+            this.alphabet = null;
+        } else {
+            this.alphabet = new Alphabet(alphabet);
+        }
+        this.symbolSize = (this.alphabet != null && this.alphabet.size() <= 256) ? 1 : 2;
+        this.directory = directory;
+        this.maxSuffixes = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, memory / 4));
+        int noSymbols = (this.symbolSize == 1) ? this.alphabet.size() : Character.MAX_VALUE + 1;
+        this.bits = 32 - Integer.numberOfLeadingZeros(noSymbols);
+        this.maxPrefix = 64 / this.bits;
+        this.starts = new int[8];
+        this.hashes = new int[8];
+        this.index = new int[16];
+        this.noTokens = 0;
+    }
+
+    /**
+     * Adds a string; returns its index, or -1 if it was already added, or
+     * if it has chars that are not in the alphabet. Its symbols are
+     * written to the temporary file, and its suffixes only sorted by
+     * write. Throws an IOException if the strings become longer than
+     * MAX_LENGTH.
+     */
+
+    public final int addToken(CharSequence token) throws IOException {
+        int tokenLen = token.length();
+        for (int i = 0; i < tokenLen; i++) {
+            if (this.encode(token.charAt(i)) == -1) {
+                return -1;
+            }
+        }
+        int hash = ListOfTokens.hashCode(token);
+        int mask = this.index.length - 1;
+        int slot = ListOfTokens.mix(hash) & mask;
+
+        /**
+         * only the strings with the same hash code are read back
+         */
+        int other;
+        while ((other = this.index[slot] - 1) >= 0) {
+            if (this.hashes[other] == hash &&
+                this.starts[other + 1] - this.starts[other] == tokenLen &&
+                this.regionMatches(token, this.starts[other])) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int length = this.starts[this.noTokens];
+        if ((long) length + tokenLen > MAX_LENGTH) {
+            throw new IOException("the strings are too long for the ids of the nodes of their tree");
+        }
+
+        if (this.textOut == null) {
+            this.textFile = File.createTempFile("text", ".tmp", this.directory);
+            this.textFile.deleteOnExit();
+            this.textOut = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(this.textFile), 1 << 16));
+        }
+        for (int i = 0; i < tokenLen; i++) {
+            if (this.symbolSize == 1) {
+                this.textOut.writeByte(this.encode(token.charAt(i)));
+            } else {
+                this.textOut.writeChar(this.encode(token.charAt(i)));
+            }
+        }
+
+        if (this.noTokens + 2 > this.starts.length) {
+            this.starts = Arrays.copyOf(this.starts, 2 * this.starts.length);
+            this.hashes = Arrays.copyOf(this.hashes, 2 * this.hashes.length);
+        }
+        this.hashes[this.noTokens] = hash;
+        this.index[slot] = this.noTokens + 1;
+        this.noTokens++;
+        this.starts[this.noTokens] = length + tokenLen;
+        if (2 * this.noTokens > this.index.length) {
+            this.rehash();
+        }
+        return this.noTokens - 1;
+    }
+
+    /**
+     * returns the symbol of c, or -1 if c is not in the alphabet
+     */
+
+    private int encode(char c) {
+        if (this.alphabet == null) {
+            return c;
+        }
+        int symbol = this.alphabet.encode(c);
+        return (symbol == -1 || this.symbolSize == 1) ? symbol : c;
+    }
+
+    /**
+     * returns true if the chars of token are the symbols at position of
+     * the temporary file, which are read back
+     */
+
+    private boolean regionMatches(CharSequence token, int position) throws IOException {
+        this.textOut.flush();
+        if (this.textIn == null) {
+            this.textIn = new RandomAccessFile(this.textFile, "r");
+        }
+        byte[] bytes = new byte[this.symbolSize * token.length()];
+        this.textIn.seek((long) this.symbolSize * position);
+        this.textIn.readFully(bytes);
+        for (int i = 0; i < token.length(); i++) {
+            int symbol = (this.symbolSize == 1) ? bytes[i] & 0xFF :
+                ((bytes[2 * i] & 0xFF) << 8) | (bytes[2 * i + 1] & 0xFF);
+            if (symbol != this.encode(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * makes a new hash table, twice as large, and inserts all the strings
+     * again
+     */
+
+    private void rehash() {
+        int[] temp = new int[2 * this.index.length];
+        int mask = temp.length - 1;
+        for (int i = 0; i < this.noTokens; i++) {
+            int slot = ListOfTokens.mix(this.hashes[i]) & mask;
+            while (temp[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            temp[slot] = i + 1;
+        }
+        this.index = temp;
+    }
+
+    /**
+     * Writes the suffix tree of the strings added to file, replacing its
+     * content; the strings are then dropped, with their temporary file.
+     * The sizes are checked before anything is written: the ids of the
+     * nodes of the tree must be ints.
+     */
+
+    public final void write(File file) throws IOException {
+        int length = this.starts[this.noTokens];
+        if (length > MAX_LENGTH) {
+            throw new IOException("the strings are too long for the ids of the nodes of their tree");
+        }
+        Alphabet packed = (this.symbolSize == 1) ? this.alphabet : null;
+        long nodeOffset = TreeWriter.getNodeOffset(this.symbolSize, packed, this.noTokens, length);
+        File temp = File.createTempFile("cells", ".tmp", this.directory);
+        try {
+            if (this.textIn != null) {
+                this.textIn.close();
+                this.textIn = null;
+            }
+            if (this.textOut != null) {
+                this.textOut.close();
+                RandomAccessFile input = new RandomAccessFile(this.textFile, "r");
+                try {
+                    this.text = new MappedFile(input.getChannel(), FileChannel.MapMode.READ_ONLY);
+                } finally {
+                    input.close();
+                }
+            }
+            this.nodes = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            this.cells = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+            try {
+                TreeWriter.writeHeader(this.nodes, this.symbolSize, packed, 0, this.noTokens, length, 0, 0);
+                for (int i = 0; i <= this.noTokens; i++) {
+                    this.nodes.writeInt(this.starts[i]);
+                }
+                if (this.textFile != null) {
+                    this.append(this.nodes, this.textFile);
+                }
+                TreeWriter.pad(this.nodes, (long) this.symbolSize * length);
+
+                /**
+                 * room for the root, which is written last
+                 */
+                for (int i = 0; i < MappedSuffixTree.NODE; i++) {
+                    this.nodes.writeInt(0);
+                }
+                this.noNodes = 1;
+                this.noCells = 0;
+                this.writeNodes();
+            } finally {
+                this.nodes.close();
+                this.cells.close();
+            }
+
+            RandomAccessFile output = new RandomAccessFile(file, "rw");
+            try {
+                output.seek(4L * (MappedSuffixTree.HEADER - 2));
+                output.writeInt(this.noNodes);
+                output.writeInt(this.noCells);
+                output.seek(nodeOffset);
+                output.writeInt(0);
+                output.writeInt(0);
+                output.writeInt(this.children[0]);
+                output.writeInt(NONE);
+                output.writeInt(NONE);
+                output.seek(output.length());
+                this.append(output, temp);
+                this.linkAll(new MappedFile(output.getChannel(), FileChannel.MapMode.READ_WRITE), nodeOffset);
+            } finally {
+                output.close();
+            }
+        } finally {
+            this.nodes = null;
+            this.cells = null;
+            this.text = null;
+            this.depths = this.positions = this.children = null;
+            this.prefixes = null;
+            this.counts = null;
+            this.textOut = null;
+            if (this.textFile != null) {
+                this.textFile.delete();
+                this.textFile = null;
+            }
+            this.starts = new int[8];
+            this.hashes = new int[8];
+            this.index = new int[16];
+            this.noTokens = 0;
+            temp.delete();
+        }
+    }
+
+    /**
+     * writes the nodes below the root, partition by partition
+     */
+
+    private void writeNodes() throws IOException {
+        this.depths = new int[64];
+        this.positions = new int[64];
+        this.children = new int[64];
+        this.depths[0] = 0;
+        this.positions[0] = 0;
+        this.children[0] = NONE;
+        this.size = 1;
+        this.leafPosition = NONE;
+
+        this.partition();
+        int noPrefixes = this.prefixes.length;
+
+        /**
+         * the table of the prefixes takes three ints per prefix
+         */
+        long maxSuffixes = Math.max(1, this.maxSuffixes - 3L * noPrefixes);
+        int[] suffixes = null;
+        int first = 0;
+        while (first < noPrefixes) {
+            /**
+             * the prefixes of a partition: the last prefix of a partition is
+             * followed by the first of the next one
+             */
+            int last = first;
+            int count = this.counts[first];
+            while (last + 1 < noPrefixes && (long) count + this.counts[last + 1] <= maxSuffixes) {
+                last++;
+                count += this.counts[last];
+            }
+            if (suffixes == null || suffixes.length < count) {
+                suffixes = new int[count];
+            }
+            int noSuffixes = this.gather(first, last, suffixes);
+            this.sort(suffixes, noSuffixes);
+            for (int i = 0; i < noSuffixes; i++) {
+                this.addSuffix(suffixes[i]);
+            }
+            first = last + 1;
+        }
+        if (this.leafPosition != NONE) {
+            this.close(0);
+        }
+    }
+
+    /**
+     * Sets the prefixes of the partitions, in increasing order, and their
+     * counts: every suffix starts with exactly one of them, and at most
+     * maxSuffixes suffixes, less the tables of the prefixes, start with
+     * each, unless they are all equal or share their first maxPrefix
+     * symbols, or unless the tables alone take maxSuffixes ints, when a
+     * prefix is made longer until one suffix starts with it. Each prefix
+     * made longer costs one scan of the strings.
+     */
+
+    private void partition() {
+        int length = this.starts[this.noTokens];
+        Prefixes done = new Prefixes();
+
+        /**
+         * the prefixes of one symbol are counted by symbol; refine holds
+         * the prefixes to make longer, by their first symbol
+         */
+        int[] first = new int[1 << (8 * this.symbolSize)];
+        boolean[] refine = new boolean[first.length];
+        for (int i = 0; i < length; i++) {
+            first[this.symbolAt(i)]++;
+        }
+        for (int indexToken = 1; indexToken <= this.noTokens; indexToken++) {
+            refine[this.symbolAt(this.starts[indexToken] - 1)] = true;
+        }
+        Prefixes level = new Prefixes();
+        for (int c = 0; c < first.length; c++) {
+            if (first[c] > 0) {
+                level.add((long) (c + 1) << (64 - this.bits), first[c], refine[c]);
+            }
+        }
+        first = null;
+        int prefixLen = 1;
+        while (true) {
+            long limit = Math.max(1, this.maxSuffixes - done.getNoInts() - level.getNoInts());
+            Prefixes longer = new Prefixes();
+            Arrays.fill(refine, false);
+            for (int slot = 0; slot < level.keys.length; slot++) {
+                long key = level.keys[slot];
+                if (key == 0) {
+                    continue;
+                }
+
+                /**
+                 * whole is true if the prefix is a whole suffix: all the
+                 * suffixes that start with it are equal
+                 */
+                if (level.counts[slot] > limit && !level.whole[slot] && prefixLen < this.maxPrefix) {
+                    longer.add(key, 0, false);
+                    refine[(int) (key >>> (64 - this.bits)) - 1] = true;
+                } else {
+                    done.add(key, level.counts[slot], level.whole[slot]);
+                }
+            }
+            if (longer.size == 0) {
+                break;
+            }
+            prefixLen++;
+            long shorter = -1L << (64 - this.bits * (prefixLen - 1));
+            long mask = (prefixLen * this.bits == 64) ? -1L : -1L << (64 - this.bits * prefixLen);
+            level = new Prefixes();
+            long key = 0;
+            for (int i = 0, indexToken = -1, end = 0; i < length; i++) {
+                if (i == end) {
+                    while (i == end) {
+                        indexToken++;
+                        end = this.starts[indexToken + 1];
+                    }
+                    key = this.getKey(i, end);
+                } else {
+                    key = this.nextKey(key, i, end);
+                }
+                if (!refine[this.symbolAt(i)] || end - i < prefixLen - 1 || longer.find(key & shorter) == -1) {
+                    continue;
+                }
+                level.add(key & mask, 1, end - i <= prefixLen);
+            }
+            longer = null;
+        }
+
+        int noPrefixes = done.size;
+        this.prefixes = new long[noPrefixes];
+        int count = 0;
+        for (int slot = 0; slot < done.keys.length; slot++) {
+            if (done.keys[slot] != 0) {
+                this.prefixes[count++] = done.keys[slot] ^ Long.MIN_VALUE;
+            }
+        }
+        Arrays.sort(this.prefixes);
+        this.counts = new int[noPrefixes];
+        for (int i = 0; i < noPrefixes; i++) {
+            this.counts[i] = done.counts[done.find(this.prefixes[i] ^ Long.MIN_VALUE)];
+        }
+    }
+
+    /**
+     * Returns the key of the suffix at position, whose string ends at end:
+     * its first maxPrefix symbols, each plus one, packed from the high
+     * bits of a long, followed by zeros. The keys of two suffixes compare
+     * as unsigned longs as their first maxPrefix symbols, a prefix coming
+     * before the longer strings, and the key of a prefix, whose last
+     * symbols are zeros, is the key of a suffix masked.
+     */
+
+    private long getKey(int position, int end) {
+        int max = Math.min(this.maxPrefix, end - position);
+        long key = 0;
+        for (int i = 0; i < max; i++) {
+            key |= (long) (this.symbolAt(position + i) + 1) << (64 - this.bits * (i + 1));
+        }
+        return key;
+    }
+
+    /**
+     * returns the key of the suffix at position from the key of the
+     * suffix before it, in the same string, with one read of the text
+     */
+
+    private long nextKey(long key, int position, int end) {
+        key <<= this.bits;
+        int last = position + this.maxPrefix - 1;
+        if (last < end) {
+            key |= (long) (this.symbolAt(last) + 1) << (64 - this.bits * this.maxPrefix);
+        }
+        return key;
+    }
+
+    /**
+     * puts in suffixes the positions of the suffixes that start with one
+     * of the prefixes first to last, and returns their number; these are
+     * the suffixes whose keys are at least the first and less than the
+     * prefix after the last one
+     */
+
+    private int gather(int first, int last, int[] suffixes) {
+        int length = this.starts[this.noTokens];
+        long low = this.prefixes[first];
+        long high = (last + 1 < this.prefixes.length) ? this.prefixes[last + 1] : Long.MAX_VALUE;
+        boolean isLast = last + 1 == this.prefixes.length;
+        int count = 0;
+        long key = 0;
+        for (int i = 0, indexToken = -1, end = 0; i < length; i++) {
+            if (i == end) {
+                while (i == end) {
+                    indexToken++;
+                    end = this.starts[indexToken + 1];
+                }
+                key = this.getKey(i, end);
+            } else {
+                key = this.nextKey(key, i, end);
+            }
+            long flipped = key ^ Long.MIN_VALUE;
+            if (flipped >= low && (flipped < high || isLast)) {
+                suffixes[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * returns the symbol at position, read from the temporary file
+     */
+
+    private int symbolAt(int position) {
+        return this.text.getSymbol((long) this.symbolSize * position, this.symbolSize);
+    }
+
+    /**
+     * returns the length of the longest common prefix of the suffixes at
+     * i and j, up to length symbols
+     */
+
+    private int getLCE(int i, int j, int length) {
+        int match = 0;
+        while ((match < length) && (this.symbolAt(i + match) == this.symbolAt(j + match))) {
+            match++;
+        }
+        return match;
+    }
+
+    /**
+     * returns the index of the string that contains position
+     */
+
+    private int getIndex(int position) {
+        int low = 0, high = this.noTokens - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.starts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * returns the length of the suffix at position, up to the end of its
+     * string
+     */
+
+    private int suffixLength(int position) {
+        return this.starts[this.getIndex(position) + 1] - position;
+    }
+
+    /**
+     * Sorts the suffixes by multikey quicksort (Bentley and Sedgewick):
+     * the suffixes are split by their char at some depth into smaller,
+     * equal and greater ones, and the equal ones are split by their next
+     * char. Equal suffixes are sorted by position.
+     */
+
+    private void sort(int[] suffixes, int count) {
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count;
+        stack[top++] = 0;
+        while (top > 0) {
+            int depth = stack[--top];
+            int high = stack[--top];
+            int low = stack[--top];
+            if (high - low < 2) {
+                continue;
+            }
+            int pivot = suffixes[(low + high) >>> 1];
+            int symbol = this.symbolAt(pivot + depth);
+
+            /**
+             * suffixes[low..lt-1] are smaller, [lt..i-1] equal, [gt..high-1]
+             * greater
+             */
+            int lt = low, i = low, gt = high;
+            while (i < gt) {
+                int s = this.symbolAt(suffixes[i] + depth);
+                if (s < symbol) {
+                    int temp = suffixes[lt]; suffixes[lt++] = suffixes[i]; suffixes[i++] = temp;
+                } else if (s > symbol) {
+                    int temp = suffixes[--gt]; suffixes[gt] = suffixes[i]; suffixes[i] = temp;
+                } else {
+                    i++;
+                }
+            }
+            if (top + 9 > stack.length) {
+                int[] temp = new int[2 * stack.length];
+                System.arraycopy(stack, 0, temp, 0, top);
+                stack = temp;
+            }
+            stack[top++] = low; stack[top++] = lt; stack[top++] = depth;
+            stack[top++] = gt; stack[top++] = high; stack[top++] = depth;
+            if (depth + 1 == this.suffixLength(pivot)) {
+                /**
+                 * the equal suffixes end here, with the terminator
+                 */
+                Arrays.sort(suffixes, lt, gt);
+            } else {
+                stack[top++] = lt; stack[top++] = gt; stack[top++] = depth + 1;
+            }
+        }
+    }
+
+    /**
+     * Adds the next suffix in increasing order: the internal nodes deeper
+     * than its longest common prefix with the previous suffix are written,
+     * and the current leaf, unless the suffix is equal to it.
+     */
+
+    private void addSuffix(int position) throws IOException {
+        int depth = this.suffixLength(position);
+        if (this.leafPosition == NONE) {
+            this.newLeaf(position, depth);
+            return;
+        }
+        int common = this.getLCE(this.leafPosition, position, Math.min(depth, this.leafDepth));
+        if (common == this.leafDepth && common == depth) {
+            /**
+             * one more coordinate for the current leaf: the cells are
+             * chained from the last one, as in NodeArrays
+             */
+            if (this.leafCoordinates >= 0) {
+                this.writeCell(this.leafCoordinates, CoordinatePool.NONE);
+            }
+            this.writeCell(position, this.noCells - 1);
+            this.leafCoordinates = -1 - (this.noCells - 1);
+            this.leafPosition = position;
+            return;
+        }
+        this.close(common);
+        this.newLeaf(position, depth);
+    }
+
+    private void newLeaf(int position, int depth) {
+        this.leafPosition = position;
+        this.leafDepth = depth;
+        this.leafCoordinates = position;
+    }
+
+    /**
+     * writes the current leaf, and the internal nodes deeper than depth;
+     * the last node written hangs from a node of string depth depth
+     */
+
+    private void close(int depth) throws IOException {
+        int lastDepth = this.leafDepth;
+        int lastPosition = this.leafPosition;
+        boolean isLeaf = true;
+        int lastChild = NONE;
+        while (true) {
+            int top = this.size - 1;
+            if (this.depths[top] < depth) {
+                /**
+                 * a new internal node, above the last node
+                 */
+                this.push(depth, lastPosition);
+                top++;
+            }
+            int parentDepth = this.depths[top];
+            int id = this.writeNode(lastPosition + parentDepth, lastDepth - parentDepth,
+                                    isLeaf ? LEAF : lastChild, this.children[top],
+                                    isLeaf ? this.leafCoordinates : NONE);
+            this.children[top] = id;
+            if (parentDepth == depth) {
+                return;
+            }
+            lastDepth = parentDepth;
+            lastPosition = this.positions[top];
+            lastChild = this.children[top];
+            isLeaf = false;
+            this.size--;
+        }
+    }
+
+    private void push(int depth, int position) {
+        if (this.size == this.depths.length) {
+            this.depths = Arrays.copyOf(this.depths, 2 * this.size);
+            this.positions = Arrays.copyOf(this.positions, 2 * this.size);
+            this.children = Arrays.copyOf(this.children, 2 * this.size);
+        }
+        this.depths[this.size] = depth;
+        this.positions[this.size] = position;
+        this.children[this.size] = NONE;
+        this.size++;
+    }
+
+    private int writeNode(int leftIndex, int length, int firstChild, int rightSybling, int suffixLink)
+        throws IOException {
+        this.nodes.writeInt(leftIndex);
+        this.nodes.writeInt(length);
+        this.nodes.writeInt(firstChild);
+        this.nodes.writeInt(rightSybling);
+        this.nodes.writeInt(suffixLink);
+        return this.noNodes++;
+    }
+
+    private void writeCell(int position, int next) throws IOException {
+        this.cells.writeInt(position);
+        this.cells.writeInt(next);
+        this.noCells++;
+    }
+
+    /**
+     * appends the content of file to out
+     */
+
+    private void append(DataOutput out, File file) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[1 << 16];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Sets the suffix links of the internal nodes, from the top, as
+     * TreeWriter does: the link of a child is found below the link of its
+     * parent. The nodes are read and written in the mapped file.
+     */
+
+    private void linkAll(MappedFile file, long nodeOffset) {
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int id = stack[--top];
+            int link = getField(file, nodeOffset, id, 4);
+            int child = getField(file, nodeOffset, id, 2);
+            for (; child != NONE; child = getField(file, nodeOffset, child, 3)) {
+                if (getField(file, nodeOffset, child, 2) == LEAF) {
+                    continue;
+                }
+                int leftIndex = getField(file, nodeOffset, child, 0);
+                int length = getField(file, nodeOffset, child, 1);
+                int childLink;
+                if (id == 0) {
+                    childLink = this.walkDown(file, nodeOffset, 0, leftIndex + 1, length - 1);
+                } else {
+                    childLink = this.walkDown(file, nodeOffset, link, leftIndex, length);
+                }
+                file.putInt(nodeOffset + 4L * (MappedSuffixTree.NODE * (long) child + 4), childLink);
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * top);
+                }
+                stack[top++] = child;
+            }
+        }
+        file.force();
+    }
+
+    /**
+     * returns the node found length chars below node, following the chars
+     * from position
+     */
+
+    private int walkDown(MappedFile file, long nodeOffset, int node, int position, int length) {
+        while (length > 0) {
+            int symbol = this.symbolAt(position);
+            int child = getField(file, nodeOffset, node, 2);
+            while (this.symbolAt(getField(file, nodeOffset, child, 0)) != symbol) {
+                child = getField(file, nodeOffset, child, 3);
+            }
+            int childLength = getField(file, nodeOffset, child, 1);
+            position += childLength;
+            length -= childLength;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * returns the int field of the node id of file, whose nodes start at
+     * nodeOffset
+     */
+
+    private static int getField(MappedFile file, long nodeOffset, int id, int field) {
+        return file.getInt(nodeOffset + 4L * (MappedSuffixTree.NODE * (long) id + field));
+    }
+
+    /**
+     * An open addressing table of prefixes, by their keys (see getKey),
+     * with the no of suffixes that start with each, and whether it is a
+     * whole suffix. A key is never 0, which marks an empty slot. The size
+     * of the table is a power of two, and it is at most half full.
+     */
+
+    private static final class Prefixes {
+
+        long[] keys;
+
+        int[] counts;
+
+        boolean[] whole;
+
+        int size;
+
+        /**
+         * @stereotype constructor
+         */
+
+        Prefixes() {
+            this.keys = new long[16];
+            this.counts = new int[16];
+            this.whole = new boolean[16];
+            this.size = 0;
+        }
+
+        /**
+         * returns the slot of key, or -1 if it is not in the table
+         */
+
+        final int find(long key) {
+            int mask = this.keys.length - 1;
+            int slot = ListOfTokens.mix((int) (key ^ (key >>> 32))) & mask;
+            while (this.keys[slot] != 0) {
+                if (this.keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * adds count suffixes to the prefix of key, which is a whole
+         * suffix if whole is true
+         */
+
+        final void add(long key, int count, boolean whole) {
+            int mask = this.keys.length - 1;
+            int slot = ListOfTokens.mix((int) (key ^ (key >>> 32))) & mask;
+            while (this.keys[slot] != 0 && this.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (this.keys[slot] == 0) {
+                this.keys[slot] = key;
+                this.size++;
+            }
+            this.counts[slot] += count;
+            this.whole[slot] |= whole;
+            if (2 * this.size > this.keys.length) {
+                this.rehash();
+            }
+        }
+
+        /**
+         * returns the memory taken by the table, in ints
+         */
+
+        final long getNoInts() {
+            return 3L * this.keys.length + this.whole.length / 4;
+        }
+
+        /**
+         * makes the table twice as large, and inserts all the prefixes
+         * again
+         */
+
+        private void rehash() {
+            long[] oldKeys = this.keys;
+            int[] oldCounts = this.counts;
+            boolean[] oldWhole = this.whole;
+            this.keys = new long[2 * oldKeys.length];
+            this.counts = new int[this.keys.length];
+            this.whole = new boolean[this.keys.length];
+            this.size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    this.add(oldKeys[slot], oldCounts[slot], oldWhole[slot]);
+                }
+            }
+        }
+
+    }
+
+}
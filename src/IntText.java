@@ -0,0 +1,115 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Text of int symbols instead of chars, such as the ids of the words of
+ * a vocabulary; a symbol is any int. It holds no chars: the tokens are
+ * appended as arrays of symbols, and charAt cannot be used.
+ */
+
+final class IntText extends Text {
+
+    private int[] symbols;
+
+    private int length;
+
+    /**
+     * @stereotype constructor
+     */
+
+    IntText() {
+        this.symbols = new int[16];
+        this.length = 0;
+    }
+
+    final int length() {
+        return this.length;
+    }
+
+    final int symbolAt(int position) {
+        return this.symbols[position];
+    }
+
+    final char charAt(int position) {
+        throw new IllegalStateException("the text holds int symbols");
+    }
+
+    /**
+     * no char can be stored
+     */
+
+    final int encode(char c) {
+        return -1;
+    }
+
+    final void append(CharSequence token) {
+        throw new IllegalStateException("the text holds int symbols");
+    }
+
+    final void append(char[] chars, int offset, int count) {
+        throw new IllegalStateException("the text holds int symbols");
+    }
+
+    /**
+     * appends count symbols of symbols from offset
+     */
+
+    final void append(int[] symbols, int offset, int count) {
+        this.grow(this.length + count);
+        System.arraycopy(symbols, offset, this.symbols, this.length, count);
+        this.length += count;
+    }
+
+    /**
+     * appends one symbol
+     */
+
+    final void append(int symbol) {
+        this.grow(this.length + 1);
+        this.symbols[this.length++] = symbol;
+    }
+
+    final void append(Text source, int start, int end) {
+        this.append(((IntText) source).symbols, start, end - start);
+    }
+
+    final void ensureCapacity(int length) {
+        if (length > this.symbols.length) {
+            int[] temp = new int[length];
+            System.arraycopy(this.symbols, 0, temp, 0, this.length);
+            this.symbols = temp;
+        }
+    }
+
+    /**
+     * grows the symbols, at least by half, so that they can hold length
+     * symbols
+     */
+
+    private void grow(int length) {
+        if (length > this.symbols.length) {
+            this.ensureCapacity(Math.max(length, this.symbols.length + (this.symbols.length >> 1)));
+        }
+    }
+
+    final String getSubstring(int leftIndex, int length) {
+        throw new IllegalStateException("the text holds int symbols");
+    }
+
+    final int getLCE(int i, int j, int length) {
+        int[] symbols = this.symbols;
+        int match = 0;
+        while ((match < length) && (symbols[i + match] == symbols[j + match])) {
+            match++;
+        }
+        return match;
+    }
+
+}
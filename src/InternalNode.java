@@ -36,6 +36,12 @@ final class InternalNode implements NodeInterface {
 
     private Info info;
 
+    /**
+     * the number of this node in the last AnnotationTable of its tree
+     */
+
+    private int id;
+
     /**
      * Link to the first child of this node.  There are always at
      * least two children to this node.  The access to the rest of the
@@ -51,6 +57,20 @@ final class InternalNode implements NodeInterface {
 
     private Object suffixLink;
 
+    /**
+     * Index of the children by the first char of their branch, once there
+     * are more than INDEXED of them; null before. A node with few children
+     * simply scans the list of syblings.
+     */
+
+    private ChildIndex children;
+
+    /**
+     * number of children above which a ChildIndex is built
+     */
+
+    static final int INDEXED = 4;
+
     /**
      * @stereotype constructor 
      */
@@ -60,7 +80,8 @@ final class InternalNode implements NodeInterface {
         this.length = 0;
         this.rightSybling = null;
         this.firstChild = null;
-              this.suffixLink = null;
+        this.suffixLink = null;
+        this.children = null;
         this.info = null;
     }
 
@@ -74,6 +95,7 @@ final class InternalNode implements NodeInterface {
         this.rightSybling = rightSybling;
         this.firstChild = firstChild;
         this.suffixLink = null;
+        this.children = null;
         this.info = null;
     }
 
@@ -81,6 +103,141 @@ final class InternalNode implements NodeInterface {
 
     final void setFirstChild(Object firstChild){ this.firstChild = firstChild; }
 
+    /**
+     * returns the child whose branch starts with branchStart, or null;
+     * the children are sorted in decreasing order of their first char
+     */
+
+    final NodeInterface getChild(int branchStart, SuffixTree tree) {
+        if (this.children != null) {
+            return this.children.get(branchStart);
+        }
+        NodeInterface temp = (NodeInterface) this.firstChild;
+        while (temp != null) {
+            int start = tree.symbolAt(temp.getLeftIndex());
+            if (start <= branchStart) {
+                return (start == branchStart) ? temp : null;
+            }
+            temp = (NodeInterface) temp.getRightSybling();
+        }
+        return null;
+    }
+
+    /**
+     * inserts child, whose branch starts with branchStart, among the
+     * children of this node
+     */
+
+    final void addChild(int branchStart, NodeInterface child, SuffixTree tree) {
+        NodeInterface previous = null;
+        NodeInterface temp = null;
+        if (this.children != null) {
+            previous = this.children.getLeftSybling(branchStart);
+            temp = (NodeInterface) ((previous == null) ? this.firstChild : previous.getRightSybling());
+            this.children.add(branchStart, child);
+        } else {
+            int count = 0;
+            temp = (NodeInterface) this.firstChild;
+            while ((temp != null) && (tree.symbolAt(temp.getLeftIndex()) > branchStart)) {
+                previous = temp;
+                temp = (NodeInterface) temp.getRightSybling();
+                count++;
+            }
+            for (NodeInterface rest = temp; rest != null; rest = (NodeInterface) rest.getRightSybling()) {
+                count++;
+            }
+            if (count >= INDEXED) {
+                this.children = new ChildIndex(2 * (count + 1));
+                for (NodeInterface c = (NodeInterface) this.firstChild; c != null;
+                     c = (NodeInterface) c.getRightSybling()) {
+                    this.children.add(tree.symbolAt(c.getLeftIndex()), c);
+                }
+                this.children.add(branchStart, child);
+            }
+        }
+        setRightSybling(child, temp);
+        if (previous == null) {
+            this.firstChild = child;
+        } else {
+            setRightSybling(previous, child);
+        }
+    }
+
+    /**
+     * replaces the child whose branch starts with branchStart by child;
+     * child must already have the right sybling of the child it replaces
+     */
+
+    final void replaceChild(int branchStart, NodeInterface child, SuffixTree tree) {
+        NodeInterface previous = null;
+        if (this.children != null) {
+            previous = this.children.getLeftSybling(branchStart);
+            this.children.set(branchStart, child);
+        } else {
+            NodeInterface temp = (NodeInterface) this.firstChild;
+            while (tree.symbolAt(temp.getLeftIndex()) != branchStart) {
+                previous = temp;
+                temp = (NodeInterface) temp.getRightSybling();
+            }
+        }
+        if (previous == null) {
+            this.firstChild = child;
+        } else {
+            setRightSybling(previous, child);
+        }
+    }
+
+    /**
+     * removes the child whose branch starts with branchStart; the index
+     * is dropped when the node has INDEXED / 2 children or fewer
+     */
+
+    final void removeChild(int branchStart, SuffixTree tree) {
+        NodeInterface previous = null;
+        NodeInterface temp;
+        if (this.children != null) {
+            previous = this.children.getLeftSybling(branchStart);
+            this.children.remove(branchStart);
+            if (2 * this.children.size() <= INDEXED) {
+                this.children = null;
+            }
+            temp = (NodeInterface) ((previous == null) ? this.firstChild : previous.getRightSybling());
+        } else {
+            temp = (NodeInterface) this.firstChild;
+            while (tree.symbolAt(temp.getLeftIndex()) != branchStart) {
+                previous = temp;
+                temp = (NodeInterface) temp.getRightSybling();
+            }
+        }
+        if (previous == null) {
+            this.firstChild = temp.getRightSybling();
+        } else {
+            setRightSybling(previous, temp.getRightSybling());
+        }
+        setRightSybling(temp, null);
+    }
+
+    /**
+     * removes all the children of this node
+     */
+
+    final void clearChildren() {
+        this.firstChild = null;
+        this.children = null;
+    }
+
+    /**
+     * sets the right sybling of node, which is an InternalNode or a LeafNode
+     */
+
+    static void setRightSybling(NodeInterface node, Object rightSybling) {
+        if (node instanceof InternalNode) {
+            ((InternalNode) node).setRightSybling(rightSybling);
+        } else {
+            ((LeafNode) node).setRightSybling(rightSybling);
+        }
+    }
+
     final Object getSuffixLink(){ return this.suffixLink; }
 
     final void setSuffixLink(Object suffixLink){ this.suffixLink = suffixLink; }
@@ -93,6 +250,14 @@ final class InternalNode implements NodeInterface {
 
     final void setLength(int length){ this.length = length; }
 
+    /**
+     * returns the number of this node in the last AnnotationTable of its tree
+     */
+
+    final int getId() { return this.id; }
+
+    final void setId(int id) { this.id = id; }
+
     public final Object getRightSybling() { return this.rightSybling; }
 
     final void setRightSybling(Object rightSybling){ this.rightSybling = rightSybling; }
@@ -0,0 +1,78 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * A view of one node of a LazySuffixTree. Like ArrayNode, it only holds
+ * the id of the node. Asking for the length, the children or the
+ * coordinates of a node builds the part of the tree they need.
+ */
+
+final class LazyNode implements NodeInterface {
+
+    private final LazySuffixTree tree;
+
+    private final int id;
+
+    /**
+     * @stereotype constructor
+     */
+
+    LazyNode(LazySuffixTree tree, int id) {
+        this.tree = tree;
+        this.id = id;
+    }
+
+    /**
+     * returns the id of this node in the tree
+     */
+
+    final int getId() { return this.id; }
+
+    final boolean isLeaf() { return this.tree.isLeaf(this.id); }
+
+    public final int getLeftIndex() { return this.tree.getLeftIndex(this.id); }
+
+    public final int getLength() { return this.tree.getLength(this.id); }
+
+    public final Object getRightSybling() {
+        return this.tree.getNode(this.tree.getRightSybling(this.id));
+    }
+
+    /**
+     * returns the first child of this node, or null for a leaf; the
+     * children are built if needed
+     */
+
+    final Object getFirstChild() {
+        return this.tree.getNode(this.tree.getFirstChild(this.id));
+    }
+
+    /**
+     * returns the coordinates of this leaf, or null for an internal node
+     */
+
+    public final SuffixCoordinates getCoordinates() {
+        return this.tree.getCoordinates(this.id);
+    }
+
+    public final Info getInfo() { return this.tree.getInfo(this.id); }
+
+    public final void setInfo(Info info) { this.tree.setInfo(this.id, info); }
+
+    public final boolean equals(Object other) {
+        return (other instanceof LazyNode) &&
+            ((LazyNode) other).tree == this.tree && ((LazyNode) other).id == this.id;
+    }
+
+    public final int hashCode() {
+        return this.id;
+    }
+
+}
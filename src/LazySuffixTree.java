@@ -0,0 +1,484 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+
+/**
+ * A suffix tree of a collection of strings whose nodes are built on
+ * demand, write-only top-down (WOTD, after Giegerich, Kurtz and Stoye).
+ *
+ * At first, the tree is only its root, above all the suffixes. A node is
+ * expanded the first time its children are asked for: its suffixes are
+ * put in buckets by their char below the node, and each bucket becomes a
+ * child. The length of the branch of a child, the longest common prefix
+ * of its suffixes, is computed the first time it is asked for. Building
+ * the tree thus costs a time, and a number of nodes, proportional to the
+ * part of the tree that is visited; only the strings and one int per
+ * suffix are allocated up front.
+ *
+ * The nodes are seen through LazyNode objects, which implement
+ * NodeInterface, and are numbered in the order they are created: the
+ * root is node 0. The tree has no suffix links, and cannot be modified.
+ * Like in SuffixArray, the strings must end with a terminator, such as
+ * '$', that appears nowhere else; the suffixes that are equal up to
+ * their terminator end at the same leaf.
+ */
+
+public final class LazySuffixTree implements TreeInterface {
+
+    private static final int NONE = NodeArrays.NONE;
+
+    private static final int LEAF = NodeArrays.LEAF;
+
+    /**
+     * the first child of a node whose children are not built yet
+     */
+
+    private static final int UNEXPANDED = -3;
+
+    /**
+     * the length of a branch that is not computed yet
+     */
+
+    private static final int UNKNOWN = -1;
+
+    private static final int ROOT = 0;
+
+    /**
+     * the strings
+     */
+
+    private ListOfTokens tokens;
+
+    /**
+     * The positions of the suffixes. The suffixes of the node id are
+     * suffixes[lo[id]] to suffixes[hi[id] - 1]; expanding the node sorts
+     * them, in the order of its children.
+     */
+
+    private int[] suffixes;
+
+    private int[] leftIndex;
+
+    private int[] length;
+
+    /**
+     * the first child of each node, LEAF for a leaf, or UNEXPANDED
+     */
+
+    private int[] firstChild;
+
+    private int[] rightSybling;
+
+    private int[] lo;
+
+    private int[] hi;
+
+    private int size;
+
+    /**
+     * the Info objects attached to the nodes, indexed by node id; created
+     * by the first call to setInfo
+     */
+
+    private Info[] infos;
+
+    /**
+     * Indexes the strings of tokens; the strings already seen, and those
+     * that have chars outside of alphabet, are skipped. An empty alphabet
+     * allows all the characters. No node is built but the root.
+     * @stereotype constructor
+     */
+
+    public LazySuffixTree(String alphabet, String[] tokens) {
+        this.tokens = new ListOfTokens(alphabet);
+        for (int i = 0; i < tokens.length; i++) {
+            this.tokens.insertToken(tokens[i]);
+        }
+        int n = this.tokens.getTotalLength();
+        this.suffixes = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.suffixes[i] = i;
+        }
+        this.leftIndex = new int[16];
+        this.length = new int[16];
+        this.firstChild = new int[16];
+        this.rightSybling = new int[16];
+        this.lo = new int[16];
+        this.hi = new int[16];
+        this.size = 0;
+        this.infos = null;
+        this.newNode(0, 0, n);
+        this.length[ROOT] = 0;
+    }
+
+    /**
+     * returns a view of the root of the tree
+     */
+
+    public final LazyNode getRoot() {
+        return new LazyNode(this, ROOT);
+    }
+
+    /**
+     * returns the first child of node, or null for a leaf
+     */
+
+    public final NodeInterface getFirstChild(NodeInterface node) {
+        return (NodeInterface) ((LazyNode) node).getFirstChild();
+    }
+
+    /**
+     * returns the coordinates of the leaf node, or null for an internal node
+     */
+
+    public final SuffixCoordinates getCoordinates(NodeInterface node) {
+        return ((LazyNode) node).getCoordinates();
+    }
+
+    /**
+     * returns the label of the branch leading to node
+     */
+
+    public final String getLabel(NodeInterface node) {
+        return this.tokens.getLabel(node.getLeftIndex(), node.getLength());
+    }
+
+    /**
+     * returns a view of the node id, or null if id is NONE
+     */
+
+    final LazyNode getNode(int id) {
+        return (id == NONE) ? null : new LazyNode(this, id);
+    }
+
+    /**
+     * returns true if pattern is a substring of one of the strings; an
+     * empty tree has no substring, not even the empty pattern
+     */
+
+    public final boolean contains(String pattern) {
+        return this.find(pattern) != NONE;
+    }
+
+    /**
+     * Returns the smallest position where pattern is found, counted from
+     * the first char of the first string, or -1 if it is not found. Only
+     * the nodes on the path of pattern are expanded: the positions below
+     * are the suffixes of the node where the path ends.
+     */
+
+    public final int firstOccurrence(String pattern) {
+        int node = this.find(pattern);
+        if (node == NONE) {
+            return -1;
+        }
+        int first = Integer.MAX_VALUE;
+        for (int i = this.lo[node]; i < this.hi[node]; i++) {
+            first = Math.min(first, this.suffixes[i]);
+        }
+        return (first == Integer.MAX_VALUE) ? -1 : first;
+    }
+
+    /**
+     * returns the node at or below the end of pattern, or NONE if pattern
+     * is not in the tree, as in an empty tree
+     */
+
+    final int find(String pattern) {
+        if (this.suffixes.length == 0) {
+            return NONE;
+        }
+        int node = ROOT;
+        int matched = 0;
+        int patternLen = pattern.length();
+        while (matched < patternLen) {
+            node = this.getChild(node, pattern.charAt(matched));
+            if (node == NONE) {
+                return NONE;
+            }
+            int max = Math.min(this.getLength(node), patternLen - matched);
+            if (this.tokens.getLCE(pattern, matched, this.leftIndex[node], max) < max) {
+                return NONE;
+            }
+            matched += max;
+        }
+        return node;
+    }
+
+    /**
+     * returns the child of node whose branch starts with c, or NONE; the
+     * children are in decreasing order of their first char
+     */
+
+    final int getChild(int node, char c) {
+        int child = this.getFirstChild(node);
+        while (child != NONE) {
+            char start = this.tokens.charAt(this.leftIndex[child]);
+            if (start <= c) {
+                return (start == c) ? child : NONE;
+            }
+            child = this.rightSybling[child];
+        }
+        return NONE;
+    }
+
+    final int getLeftIndex(int id) {
+        return this.leftIndex[id];
+    }
+
+    /**
+     * returns the length of the branch of id, computed if needed
+     */
+
+    final int getLength(int id) {
+        if (this.length[id] == UNKNOWN) {
+            this.measure(id);
+        }
+        return this.length[id];
+    }
+
+    /**
+     * returns true if id is a leaf; its length is computed if needed
+     */
+
+    final boolean isLeaf(int id) {
+        if (this.length[id] == UNKNOWN) {
+            this.measure(id);
+        }
+        return this.firstChild[id] == LEAF;
+    }
+
+    /**
+     * returns the first child of id, expanding id if needed, or NONE for a
+     * leaf
+     */
+
+    final int getFirstChild(int id) {
+        if (this.isLeaf(id)) {
+            return NONE;
+        }
+        if (this.firstChild[id] == UNEXPANDED) {
+            this.expand(id);
+        }
+        return this.firstChild[id];
+    }
+
+    final int getRightSybling(int id) {
+        return this.rightSybling[id];
+    }
+
+    /**
+     * returns the coordinates of the leaf id, in increasing order, or null
+     * for an internal node
+     */
+
+    final SuffixCoordinates getCoordinates(int id) {
+        if (!this.isLeaf(id)) {
+            return null;
+        }
+        SuffixCoordinates coordinates = null;
+        for (int i = this.hi[id] - 1; i >= this.lo[id]; i--) {
+            coordinates = new SuffixCoordinates(this.suffixes[i], coordinates);
+        }
+        return coordinates;
+    }
+
+    /**
+     * Computes the length of the branch of id: the longest common prefix of
+     * its suffixes, below its parent. If the suffixes are equal up to
+     * their terminator, id is a leaf.
+     */
+
+    private void measure(int id) {
+        int first = this.suffixes[this.lo[id]];
+        int start = this.leftIndex[id];
+        int depth = start - first;
+        int max = this.tokens.getStart(this.tokens.getIndex(first) + 1) - start;
+        int common = max;
+        for (int i = this.lo[id] + 1; i < this.hi[id] && common > 1; i++) {
+            common = this.tokens.getLCE(start, this.suffixes[i] + depth, common);
+        }
+        this.length[id] = common;
+        if (common == max) {
+            this.firstChild[id] = LEAF;
+        }
+    }
+
+    /**
+     * Builds the children of the internal node id: sorts its suffixes by
+     * their char below id, in decreasing order, and makes a child of each
+     * run of suffixes that have the same char.
+     */
+
+    private void expand(int id) {
+        int low = this.lo[id];
+        int high = this.hi[id];
+        if (low == high) {
+            this.firstChild[id] = NONE;
+            return;
+        }
+        int depth = this.leftIndex[id] + this.length[id] - this.suffixes[low];
+        this.sort(low, high, depth);
+
+        int previous = NONE;
+        int start = low;
+        while (start < high) {
+            int symbol = this.tokens.symbolAt(this.suffixes[start] + depth);
+            int end = start + 1;
+            while (end < high && this.tokens.symbolAt(this.suffixes[end] + depth) == symbol) {
+                end++;
+            }
+            int child = this.newNode(this.suffixes[start] + depth, start, end);
+            if (previous == NONE) {
+                this.firstChild[id] = child;
+            } else {
+                this.rightSybling[previous] = child;
+            }
+            previous = child;
+            start = end;
+        }
+    }
+
+    /**
+     * Sorts suffixes[low..high-1] by their symbol at depth, in decreasing
+     * order. The suffixes are put in buckets when the symbols span a
+     * small range, as they do for the small alphabets; they are sorted
+     * otherwise.
+     */
+
+    private void sort(int low, int high, int depth) {
+        int count = high - low;
+        int[] symbols = new int[count];
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            symbols[i] = this.tokens.symbolAt(this.suffixes[low + i] + depth);
+            min = Math.min(min, symbols[i]);
+            max = Math.max(max, symbols[i]);
+        }
+        if (min == max) {
+            return;
+        }
+        if (max - min < 2 * count + 256) {
+            int[] bucket = new int[max - min + 2];
+            for (int i = 0; i < count; i++) {
+                bucket[max - symbols[i] + 1]++;
+            }
+            for (int b = 1; b < bucket.length; b++) {
+                bucket[b] += bucket[b - 1];
+            }
+            int[] sorted = new int[count];
+            for (int i = 0; i < count; i++) {
+                sorted[bucket[max - symbols[i]]++] = this.suffixes[low + i];
+            }
+            System.arraycopy(sorted, 0, this.suffixes, low, count);
+        } else {
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = ((long) (max - symbols[i]) << 32) | this.suffixes[low + i];
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < count; i++) {
+                this.suffixes[low + i] = (int) keys[i];
+            }
+        }
+    }
+
+    /**
+     * adds a node whose branch starts at leftIndex, above the suffixes
+     * from low to high - 1; its length and its children are unknown
+     */
+
+    private int newNode(int leftIndex, int low, int high) {
+        if (this.size == this.leftIndex.length) {
+            int capacity = this.size + (this.size >> 1);
+            this.leftIndex = grow(this.leftIndex, capacity, this.size);
+            this.length = grow(this.length, capacity, this.size);
+            this.firstChild = grow(this.firstChild, capacity, this.size);
+            this.rightSybling = grow(this.rightSybling, capacity, this.size);
+            this.lo = grow(this.lo, capacity, this.size);
+            this.hi = grow(this.hi, capacity, this.size);
+        }
+        int id = this.size++;
+        this.leftIndex[id] = leftIndex;
+        this.length[id] = UNKNOWN;
+        this.firstChild[id] = UNEXPANDED;
+        this.rightSybling[id] = NONE;
+        this.lo[id] = low;
+        this.hi[id] = high;
+        return id;
+    }
+
+    private static int[] grow(int[] array, int capacity, int size) {
+        int[] temp = new int[capacity];
+        System.arraycopy(array, 0, temp, 0, size);
+        return temp;
+    }
+
+    /**
+     * returns the substring starting at leftIndex and having length length
+     * from the string collection
+     */
+
+    public final String getSubstring(int leftIndex, int length) {
+        return this.tokens.getSubstring(leftIndex, length);
+    }
+
+    /**
+     * returns the position of the first char of the string at indexToken
+     */
+
+    public final int getStart(int indexToken) {
+        return this.tokens.getStart(indexToken);
+    }
+
+    /**
+     * returns the index of the string that contains position
+     */
+
+    public final int getIndex(int position) {
+        return this.tokens.getIndex(position);
+    }
+
+    /**
+     * returns the no of nodes built so far
+     */
+
+    public final int getNoNodes() {
+        return this.size;
+    }
+
+    /**
+     * returns the first Info object of the node id
+     */
+
+    final Info getInfo(int id) {
+        return (this.infos == null || id >= this.infos.length) ? null : this.infos[id];
+    }
+
+    /**
+     * prepends info to the list of Info objects of the node id
+     */
+
+    final void setInfo(int id, Info info) {
+        if (this.infos == null || id >= this.infos.length) {
+            Info[] temp = new Info[this.leftIndex.length];
+            if (this.infos != null) {
+                System.arraycopy(this.infos, 0, temp, 0, this.infos.length);
+            }
+            this.infos = temp;
+        }
+        if (this.infos[id] != null) {
+            info.setNextInfo(this.infos[id]);
+        }
+        this.infos[id] = info;
+    }
+
+}
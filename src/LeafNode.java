@@ -37,11 +37,24 @@ final class LeafNode implements NodeInterface {
     private Info info;
 
     /**
-     * the coordinates of one of the suffixes ending at this leaf node
+     * the number of this node in the last AnnotationTable of its tree
      */
 
-    private SuffixCoordinates coordinates;
+    private int id;
 
+    /**
+     * the number of suffixes ending at this leaf node
+     */
+
+    private int noCoordinates;
+
+    /**
+     * the position of the suffix, when only one suffix ends here, or -1 -
+     * the first cell of the chain of the positions, most recent first, in
+     * the CoordinatePool of the tree, as in NodeArrays
+     */
+
+    private int coordinates;
     /**
      * @stereotype constructor 
      */
@@ -50,7 +63,7 @@ final class LeafNode implements NodeInterface {
         this.leftIndex = leftIndex;
         this.length = length;
         this.rightSybling = rightSybling;
-        this.coordinates = null;
+        this.noCoordinates = 0;
         this.info = null;
     }
 
@@ -62,7 +75,7 @@ final class LeafNode implements NodeInterface {
         this.leftIndex = 0;
         this.length = 0;
         this.rightSybling = null;
-        this.coordinates = null;
+        this.noCoordinates = 0;
         this.info = null;
     }
 
@@ -74,32 +87,159 @@ final class LeafNode implements NodeInterface {
 
     final void setLength(int length){ this.length = length; }
 
+    /**
+     * returns the number of this node in the last AnnotationTable of its tree
+     */
+
+    final int getId() { return this.id; }
+
+    final void setId(int id) { this.id = id; }
+
     public final Object getRightSybling() { return this.rightSybling; }
 
     final void setRightSybling(Object rightSybling){ this.rightSybling = rightSybling; }
 
     /**
-     * Returns the first coordinate object.
+     * Returns the coordinates as a new list, most recent first, or null if
+     * there are none. getNoCoordinates and getPositions read them without
+     * creating any object.
+     */
+
+    public final SuffixCoordinates getCoordinates(SuffixTree tree) {
+        if (this.noCoordinates == 0) {
+            return null;
+        }
+        if (this.coordinates >= 0) {
+            return new SuffixCoordinates(this.coordinates, null);
+        }
+        CoordinatePool pool = tree.getCoordinatePool();
+        SuffixCoordinates first = null, last = null;
+        for (int cell = -1 - this.coordinates; cell != CoordinatePool.NONE; cell = pool.getNext(cell)) {
+            SuffixCoordinates temp = new SuffixCoordinates(pool.getPosition(cell), null);
+            if (last == null) {
+                first = temp;
+            } else {
+                last.setNext(temp);
+            }
+            last = temp;
+        }
+        return first;
+    }
+
+    /**
+     * returns the number of suffixes ending at this leaf node
+     */
+
+    final int getNoCoordinates() {
+        return this.noCoordinates;
+    }
+
+    /**
+     * Returns the position of the only suffix ending at this leaf node, or
+     * -1 - the first cell of the chain of the positions in the
+     * CoordinatePool of the tree, when there are several. There is at
+     * least one.
      */
 
-    public final SuffixCoordinates getCoordinates() {
-        return coordinates;
+    final int getPositions() {
+        return this.coordinates;
+    }
+
+    /**
+     * returns the position of the most recent suffix ending at this leaf
+     * node
+     */
+
+    final int getPosition(SuffixTree tree) {
+        return (this.coordinates >= 0) ? this.coordinates
+            : tree.getCoordinatePool().getPosition(-1 - this.coordinates);
+    }
+
+    /**
+     * adds the current coordinates (the starting index of the current
+     * added suffix) to the coordinates - that in case two strings have
+     * the same suffix
+     */
+
+    final void addCoordinates(int position, SuffixTree tree) {
+        if (this.noCoordinates == 0) {
+            this.coordinates = position;
+        } else {
+            CoordinatePool pool = tree.getCoordinatePool();
+            this.coordinates = -1 - pool.add(position, this.chain(pool));
+        }
+        this.noCoordinates++;
+    }
+
+    /**
+     * Adds the coordinates of other, a leaf of a tree over the same
+     * strings, as if they were added after those of this leaf; the chains
+     * are joined, and other is not used anymore.
+     */
+
+    final void addCoordinates(LeafNode other, SuffixTree tree) {
+        if (this.noCoordinates == 0) {
+            this.coordinates = other.coordinates;
+        } else {
+            CoordinatePool pool = tree.getCoordinatePool();
+            this.coordinates = -1 - pool.concat(other.chain(pool), this.chain(pool));
+        }
+        this.noCoordinates += other.noCoordinates;
+    }
+
+    /**
+     * returns the first cell of the chain of the positions, which is made
+     * when only one suffix ends here
+     */
+
+    private int chain(CoordinatePool pool) {
+        return (this.coordinates >= 0) ? pool.add(this.coordinates, CoordinatePool.NONE) : -1 - this.coordinates;
+    }
+
+    /**
+     * removes position from the coordinates; returns false if the leaf
+     * has no coordinates left
+     */
+
+    final boolean removeCoordinates(int position, SuffixTree tree) {
+        if (this.coordinates >= 0) {
+            if (this.noCoordinates == 1 && this.coordinates == position) {
+                this.noCoordinates = 0;
+            }
+            return this.noCoordinates != 0;
+        }
+        CoordinatePool pool = tree.getCoordinatePool();
+        int first = -1 - this.coordinates;
+        int cell = first;
+        while (cell != CoordinatePool.NONE && pool.getPosition(cell) != position) {
+            cell = pool.getNext(cell);
+        }
+        if (cell != CoordinatePool.NONE) {
+            first = pool.remove(first, position);
+            if (--this.noCoordinates == 1) {
+                this.coordinates = pool.getPosition(first);
+                pool.remove(first, this.coordinates);
+            } else {
+                this.coordinates = -1 - first;
+            }
+        }
+        return true;
     }
 
     /**
-     * prepends the current coordinates (an object that contains the starting
-     * index of the current added suffix) to the list of coordinates -
-     * that in case two strings have the same suffix
+     * moves the positions to those they have once the chars of the removed
+     * strings are dropped from tokens
      */
 
-    final void addCoordinates(int position) {
-        SuffixCoordinates newCoord;
-        if(this.coordinates != null) {
-            newCoord = new SuffixCoordinates(position, this.coordinates);
-        }else{
-            newCoord = new SuffixCoordinates(position, null);
+    final void movePositions(ListOfTokens tokens, SuffixTree tree) {
+        if (this.coordinates >= 0) {
+            this.coordinates = tokens.getCompactedPosition(this.coordinates);
+        } else {
+            CoordinatePool pool = tree.getCoordinatePool();
+            for (int cell = -1 - this.coordinates; cell != CoordinatePool.NONE; cell = pool.getNext(cell)) {
+                pool.setPosition(cell, tokens.getCompactedPosition(pool.getPosition(cell)));
+            }
         }
-        this.coordinates = newCoord;
     }
 
     /**
@@ -8,51 +8,737 @@
  * Contact: turcotte@site.uottawa.ca
  */
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The strings of the tree, stored one after the other in a single
+ * Text. The position of a char is counted from the first symbol of
+ * the first token (cumulative position), and is directly the index of
+ * that char in the Text.
+ */
+
 class ListOfTokens {
 
     /**
-     * head of the list
+     * the chars of all the tokens, concatenated in order of insertion
+     */
+
+    private Text text;
+
+    /**
+     * the permitted chars, or null if all chars are permitted
+     */
+
+    private Alphabet alphabet;
+
+    /**
+     * starts[i] is the position of the first char of token firstToken + i;
+     * starts[noTokens] is always equal to length (prefix sums of the
+     * token lengths)
+     */
+
+    private int[] starts;
+
+    /**
+     * number of tokens in the list, from firstToken
+     */
+
+    private int noTokens;
+
+    /**
+     * the index of the first token in the list; the tokens before it were
+     * removed, and their chars are gone
+     */
+
+    private int firstToken;
+
+    /**
+     * removed[i] is true if token firstToken + i was removed; its chars
+     * stay in the text until the next compaction
+     */
+
+    private boolean[] removed;
+
+    /**
+     * number of removed tokens from firstToken
+     */
+
+    private int noRemoved;
+
+    /**
+     * number of chars of the removed tokens still in the text
+     */
+
+    private int deadLength;
+
+    /**
+     * no token before firstToken + oldest is still in the list
+     */
+
+    private int oldest;
+
+    /**
+     * shifts[i] is the number of chars removed before token firstToken + i
+     * by the compaction in progress; null when there is none
+     */
+
+    private int[] shifts;
+
+    /**
+     * hashes[i] is the hash code of token firstToken + i
      */
 
-    private Token head;
+    private int[] hashes;
+
+    /**
+     * open addressing table from the hash code of a token to its index;
+     * a slot holds the index of a token minus firstToken plus one, 0 for an
+     * empty slot. The removed tokens are not in the table.
+     * Its size is a power of two, and it is at most half full.
+     */
+
+    private int[] index;
+
+    /**
+     * the hash code of the chars appended since beginToken, computed as
+     * String.hashCode
+     */
+
+    private int openHash;
+
+    /**
+     * the number of int symbols of a list of int tokens, 0 for a list of
+     * chars
+     */
+
+    private int noSymbols;
+
+    /**
+     * true if the chars are stored as bytes, in a ByteText
+     */
+
+    private boolean bytes;
 
     ListOfTokens() {
-        this.head = null;
+        this("");
     }
 
     /**
-     * returns token position
-     * inserts token as string if the token is not already there 
+     * The alphabet lists the permitted chars; all chars are permitted if it
+     * is empty. An alphabet of 256 chars or fewer is packed in a PackedText.
+     */
+
+    ListOfTokens(String alphabet) {
+        if (alphabet == null || alphabet.length() == 0) {
+            this.alphabet = null;
+        } else {
+            this.alphabet = new Alphabet(alphabet);
+        }
+        this.text = this.newText();
+        this.starts = new int[8];
+        this.hashes = new int[8];
+        this.removed = new boolean[8];
+        this.index = new int[16];
+        this.noTokens = 0;
+        this.firstToken = 0;
+        this.noRemoved = 0;
+        this.deadLength = 0;
+        this.oldest = 0;
+        this.shifts = null;
+    }
+
+    /**
+     * A list of tokens of int symbols, from 0 to noSymbols - 1, instead of
+     * chars; see insertToken(int[]).
      */
 
-    final int insertToken(String token) {
-              int position = 0;
+    ListOfTokens(int noSymbols) {
+        this("");
+        this.noSymbols = noSymbols;
+        this.text = this.newText();
+    }
 
-               if (this.head == null) {  // empty list
-            Token temp = new Token();
-            temp.setToken(token);
-            this.head = temp;
+    /**
+     * A list of tokens of chars from 0 to 255, stored as bytes, whose text
+     * starts with the bytes of buffer; see wrapTokens.
+     */
+
+    ListOfTokens(ByteBuffer buffer) {
+        this("");
+        this.bytes = true;
+        this.text = new ByteText(buffer);
+    }
+
+    /**
+     * returns an empty text for the alphabet
+     */
+
+    private Text newText() {
+        if (this.noSymbols > 0) {
+            return new IntText();
+        } else if (this.bytes) {
+            return new ByteText();
+        } else if (this.alphabet == null) {
+            return new CharText(null);
+        } else if (this.alphabet.size() <= 256) {
+            return new PackedText(this.alphabet);
         } else {
-            Token current = this.head;
-            while (current != null) { //list not at end
-
-        	if (! (current.getToken()).equals(token)) { //current element different from token
-        	    position++;
-                    if (current.getNext() != null) { //there are more to check
-                            current = current.getNext();
-                    } else { // no more to check, have to insert
-                        Token temp = new Token();
-                        temp.setToken(token);
-                        current.setNext(temp);
-                        break;
-                    }
-                } else { //found it, do not insert
-                    break;
+            return new CharText(this.alphabet);
+        }
+    }
+
+    /**
+     * returns token position
+     * inserts token as string if the token is not already there (a
+     * removed token is not there anymore);
+     * returns -1 if the token is already there, or if it has chars that
+     * are not in the alphabet
+     */
+
+    final int insertToken(CharSequence token) {
+        if (!this.accepts(token)) {
+            return -1;
+        }
+        int tokenLen = token.length();
+        int hash = hashCode(token);
+        int mask = this.index.length - 1;
+        int slot = mix(hash) & mask;
+
+        /**
+         * only the tokens with the same hash code are compared char by char
+         */
+        int position;
+        while ((position = this.index[slot] - 1) >= 0) {
+            if (this.hashes[position] == hash &&
+                this.starts[position + 1] - this.starts[position] == tokenLen &&
+                this.regionMatches(token, this.starts[position])) {
+                return -1;  // found it, do not insert
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        this.text.append(token);
+        return this.addToken(slot, hash);
+    }
+
+    /**
+     * returns the index of the token that has the chars of token, and was
+     * not removed, or -1
+     */
+
+    final int indexOf(CharSequence token) {
+        int tokenLen = token.length();
+        int hash = hashCode(token);
+        int mask = this.index.length - 1;
+        int slot = mix(hash) & mask;
+        int position;
+        while ((position = this.index[slot] - 1) >= 0) {
+            if (this.hashes[position] == hash &&
+                this.starts[position + 1] - this.starts[position] == tokenLen &&
+                this.regionMatches(token, this.starts[position])) {
+                return position + this.firstToken;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a token of int symbols in a list of int tokens, as
+     * insertToken does for chars. The symbols are followed by an end
+     * marker, -1 - the index of the token: the markers are all different,
+     * and smaller than all the symbols. Returns -1 if the token is already
+     * there, or if one of its symbols is not in 0 to noSymbols - 1.
+     */
+
+    final int insertToken(int[] symbols) {
+        if (this.noSymbols == 0) {
+            return -1;
+        }
+        int hash = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] < 0 || symbols[i] >= this.noSymbols) {
+                return -1;
+            }
+            hash = 31 * hash + symbols[i];
+        }
+        int mask = this.index.length - 1;
+        int slot = mix(hash) & mask;
+        int position;
+        while ((position = this.index[slot] - 1) >= 0) {
+            if (this.hashes[position] == hash &&
+                this.starts[position + 1] - this.starts[position] == symbols.length + 1 &&
+                this.regionMatches(symbols, this.starts[position])) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        IntText text = (IntText) this.text;
+        text.append(symbols, 0, symbols.length);
+        text.append(-1 - (this.firstToken + this.noTokens));
+        return this.addToken(slot, hash);
+    }
+
+    /**
+     * Starts a token whose chars are appended by appendChars, and returns
+     * the position of its first char. The token is not a token of the list
+     * until endToken.
+     */
+
+    final int beginToken() {
+        this.openHash = 0;
+        return this.text.length();
+    }
+
+    /**
+     * returns true if all the chars of token can be stored in this list
+     */
+
+    private boolean accepts(CharSequence token) {
+        if (this.noSymbols > 0) {
+            return false;
+        } else if (this.alphabet != null) {
+            return this.alphabet.accepts(token);
+        } else if (this.bytes) {
+            int tokenLen = token.length();
+            for (int i = 0; i < tokenLen; i++) {
+                if (token.charAt(i) > 0xFF) {
+                    return false;
                 }
             }
         }
+        return true;
+    }
 
-        return position;
+    /**
+     * Makes tokens of the bytes of the buffer of a list made by
+     * ListOfTokens(ByteBuffer), without copying them: each token ends
+     * with terminator, and the bytes after the last terminator are not
+     * read. A token that is already in the list is added and removed at
+     * once, and its bytes are dead chars. Returns the index of the first
+     * token made.
+     */
+
+    final int wrapTokens(char terminator) {
+        if (!this.bytes || !((ByteText) this.text).isWrapped()) {
+            throw new IllegalStateException("the list does not read a buffer");
+        }
+        ByteText text = (ByteText) this.text;
+        int first = this.firstToken + this.noTokens;
+        int start = text.length();
+        int end = start + text.remaining();
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            char c = (char) text.symbolAt(i);
+            hash = 31 * hash + c;
+            if (c != terminator) {
+                continue;
+            }
+            text.extend(i + 1 - text.length());
+            this.openHash = hash;
+            int indexToken = this.endToken();
+            if (this.isDuplicate(indexToken)) {
+                this.removeToken(indexToken);
+            }
+            start = i + 1;
+            hash = 0;
+        }
+        return first;
+    }
+
+    /**
+     * returns the symbol of c, or -1 if c cannot be stored in this list
+     */
+
+    final int encode(char c) {
+        return this.text.encode(c);
+    }
+
+    /**
+     * returns the number of bytes of a symbol in a file written by
+     * TreeWriter: 1 for bytes and for the symbols of a packed alphabet, 2
+     * for chars, 4 for int symbols
+     */
+
+    final int getSymbolSize() {
+        if (this.noSymbols > 0) {
+            return 4;
+        }
+        return (this.bytes || this.text instanceof PackedText) ? 1 : 2;
+    }
+
+    /**
+     * returns the number of int symbols of a list of int tokens, 0 for a
+     * list of chars
+     */
+
+    final int getNoSymbols() {
+        return this.noSymbols;
+    }
+
+    /**
+     * returns the alphabet whose chars the symbols number, or null if the
+     * symbol of a char is the char itself
+     */
+
+    final Alphabet getAlphabet() {
+        return (this.text instanceof PackedText) ? this.alphabet : null;
+    }
+
+    /**
+     * returns true if c can be stored in this list
+     */
+
+    final boolean accepts(char c) {
+        return this.text.encode(c) != -1;
+    }
+
+    /**
+     * appends the chars of chars from offset to the token started by
+     * beginToken, up to count chars, and up to the first char that cannot
+     * be stored; returns the number of chars appended
+     */
+
+    final int appendChars(char[] chars, int offset, int count) {
+        int hash = this.openHash;
+        int appended = 0;
+        while (appended < count && this.text.encode(chars[offset + appended]) != -1) {
+            hash = 31 * hash + chars[offset + appended];
+            appended++;
+        }
+        this.text.append(chars, offset, appended);
+        this.openHash = hash;
+        return appended;
+    }
+
+    /**
+     * Ends the token started by beginToken, and returns its index. The
+     * token is added even if it is already in the list; isDuplicate tells
+     * whether it is.
+     */
+
+    final int endToken() {
+        int mask = this.index.length - 1;
+        int slot = mix(this.openHash) & mask;
+        while (this.index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return this.addToken(slot, this.openHash);
+    }
+
+    /**
+     * Returns true if another token of the list, that was not removed, has
+     * the chars of the token at indexToken. Only the tokens with the same
+     * hash code are compared, in place in the text.
+     */
+
+    final boolean isDuplicate(int indexToken) {
+        int position = indexToken - this.firstToken;
+        int hash = this.hashes[position];
+        int start = this.starts[position];
+        int tokenLen = this.starts[position + 1] - start;
+        int mask = this.index.length - 1;
+        int slot = mix(hash) & mask;
+        int other;
+        while ((other = this.index[slot] - 1) >= 0) {
+            if (other != position && this.hashes[other] == hash &&
+                this.starts[other + 1] - this.starts[other] == tokenLen &&
+                this.text.getLCE(this.starts[other], start, tokenLen) == tokenLen) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * makes the chars appended after the last token a token, whose hash
+     * code is hash and goes in the empty slot of the index; returns its
+     * index
+     */
+
+    private int addToken(int slot, int hash) {
+        if (this.noTokens + 2 > this.starts.length) {
+            this.grow(2 * this.starts.length);
+        }
+        this.hashes[this.noTokens] = hash;
+        this.removed[this.noTokens] = false;
+        this.index[slot] = this.noTokens + 1;
+        this.noTokens++;
+        this.starts[this.noTokens] = this.text.length();
+
+        if (2 * (this.noTokens - this.noRemoved) > this.index.length) {
+            this.rehash();
+        }
+
+        return this.firstToken + this.noTokens - 1;
+    }
+
+    /**
+     * Makes room for noTokens more tokens, of length chars in all, so that
+     * inserting them neither copies the arrays nor rehashes the index.
+     */
+
+    final void ensureCapacity(int noTokens, int length) {
+        if (this.noTokens + noTokens + 1 > this.starts.length) {
+            this.grow(this.noTokens + noTokens + 1);
+        }
+        this.text.ensureCapacity(this.text.length() + length);
+        int noLive = this.noTokens - this.noRemoved + noTokens;
+        if (2 * noLive > this.index.length) {
+            this.rehash(noLive);
+        }
+    }
+
+    /**
+     * grows the arrays of the tokens to capacity
+     */
+
+    private void grow(int capacity) {
+        int[] temp = new int[capacity];
+        System.arraycopy(this.starts, 0, temp, 0, this.noTokens + 1);
+        this.starts = temp;
+        temp = new int[capacity];
+        System.arraycopy(this.hashes, 0, temp, 0, this.noTokens);
+        this.hashes = temp;
+        boolean[] flags = new boolean[capacity];
+        System.arraycopy(this.removed, 0, flags, 0, this.noTokens);
+        this.removed = flags;
+    }
+
+    /**
+     * Removes the token at indexToken; returns false if there is no such
+     * token. Its chars stay in the text, as dead chars, until compact is
+     * called, so that the positions do not change.
+     */
+
+    final boolean removeToken(int indexToken) {
+        int position = indexToken - this.firstToken;
+        if (position < 0 || position >= this.noTokens || this.removed[position]) {
+            return false;
+        }
+        int mask = this.index.length - 1;
+        int hole = mix(this.hashes[position]) & mask;
+        while (this.index[hole] != position + 1) {
+            hole = (hole + 1) & mask;
+        }
+
+        /**
+         * the tokens that follow in the table, up to an empty slot, are
+         * moved back when the freed slot is between their own slot and
+         * theirs
+         */
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (this.index[slot] == 0) {
+                break;
+            }
+            int home = mix(this.hashes[this.index[slot] - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                this.index[hole] = this.index[slot];
+                hole = slot;
+            }
+        }
+        this.index[hole] = 0;
+
+        this.removed[position] = true;
+        this.noRemoved++;
+        this.deadLength += this.starts[position + 1] - this.starts[position];
+        return true;
+    }
+
+    /**
+     * returns true if indexToken is a token of the list, and was not
+     * removed
+     */
+
+    final boolean contains(int indexToken) {
+        int position = indexToken - this.firstToken;
+        return position >= 0 && position < this.noTokens && !this.removed[position];
+    }
+
+    /**
+     * returns the index of the oldest token that was not removed, or -1
+     */
+
+    final int getOldestToken() {
+        while (this.oldest < this.noTokens && this.removed[this.oldest]) {
+            this.oldest++;
+        }
+        return (this.oldest < this.noTokens) ? this.firstToken + this.oldest : -1;
+    }
+
+    /**
+     * returns the number of tokens that were not removed
+     */
+
+    final int getNoLiveTokens() {
+        return this.noTokens - this.noRemoved;
+    }
+
+    /**
+     * returns the total length of the tokens that were not removed
+     */
+
+    final int getLiveLength() {
+        return this.text.length() - this.deadLength;
+    }
+
+    /**
+     * returns the number of chars of the removed tokens still in the text
+     */
+
+    final int getDeadLength() {
+        return this.deadLength;
+    }
+
+    /**
+     * Starts a compaction: until compact is called, getCompactedPosition
+     * gives the position that a char of a token that was not removed will
+     * have after the compaction.
+     */
+
+    final void beginCompaction() {
+        this.shifts = new int[this.noTokens];
+        int shift = 0;
+        for (int i = 0; i < this.noTokens; i++) {
+            this.shifts[i] = shift;
+            if (this.removed[i]) {
+                shift += this.starts[i + 1] - this.starts[i];
+            }
+        }
+    }
+
+    /**
+     * returns the position of the char at position after the compaction
+     * in progress
+     */
+
+    final int getCompactedPosition(int position) {
+        return position - this.shifts[this.getIndex(position) - this.firstToken];
+    }
+
+    /**
+     * Drops the chars of the removed tokens. The removed tokens that come
+     * before all the others are dropped too; the others keep their index,
+     * with no chars.
+     */
+
+    final void compact() {
+        int drop = 0;
+        while (drop < this.noTokens && this.removed[drop]) {
+            drop++;
+        }
+        Text compacted = this.newText();
+        for (int i = drop; i < this.noTokens; i++) {
+            int start = this.starts[i];
+            int end = this.starts[i + 1];
+            this.starts[i - drop] = compacted.length();
+            this.hashes[i - drop] = this.hashes[i];
+            this.removed[i - drop] = this.removed[i];
+            if (this.removed[i]) {
+                continue;
+            }
+            compacted.append(this.text, start, end);
+        }
+        this.noTokens -= drop;
+        this.noRemoved -= drop;
+        this.firstToken += drop;
+        this.starts[this.noTokens] = compacted.length();
+        this.text = compacted;
+        this.deadLength = 0;
+        this.oldest = 0;
+        this.shifts = null;
+        this.rehash();
+    }
+
+    /**
+     * makes a new hash table for the tokens that were not removed
+     */
+
+    private void rehash() {
+        this.rehash(this.noTokens - this.noRemoved);
+    }
+
+    /**
+     * makes a new hash table, doubled until noLive tokens fill it at most
+     * half, and inserts all the tokens that were not removed again
+     */
+
+    private void rehash(int noLive) {
+        int capacity = this.index.length;
+        while (2 * noLive > capacity) {
+            capacity *= 2;
+        }
+        int[] temp = new int[capacity];
+        int mask = temp.length - 1;
+        for (int position = 0; position < this.noTokens; position++) {
+            if (this.removed[position]) {
+                continue;
+            }
+            int slot = mix(this.hashes[position]) & mask;
+            while (temp[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            temp[slot] = position + 1;
+        }
+        this.index = temp;
+    }
+
+    /**
+     * returns the hash code of token, computed as String.hashCode
+     */
+
+    static int hashCode(CharSequence token) {
+        if (token instanceof String) {
+            return token.hashCode();
+        }
+        int hash = 0;
+        int tokenLen = token.length();
+        for (int i = 0; i < tokenLen; i++) {
+            hash = 31 * hash + token.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * spreads the bits of a hash code, so that the low bits used to find a
+     * slot depend on all the bits of the hash code
+     */
+
+    static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * returns true if the chars of token are found at position
+     */
+
+    private boolean regionMatches(CharSequence token, int position) {
+        int tokenLen = token.length();
+        for (int i = 0; i < tokenLen; i++) {
+            if (this.text.charAt(position + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * returns true if the symbols of token are found at position
+     */
+
+    private boolean regionMatches(int[] symbols, int position) {
+        for (int i = 0; i < symbols.length; i++) {
+            if (this.text.symbolAt(position + i) != symbols[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -61,15 +747,25 @@ class ListOfTokens {
      */
 
     final String getSubstring(int leftIndex, int length) {
-        int count=0;
-        Token next = null;
-        Token current = this.head;
-        int len = 0;
-        while( leftIndex >= count +  (len=current.getLen())) {
-            count += len;
-            if((next = current.getNext())!= null) { current = next; }
-        }
-        return (current.getToken()).substring(leftIndex - count, leftIndex - count + length);
+        return this.text.getSubstring(leftIndex, length);
+    }
+
+    /**
+     * Returns the char at position, where position is counted from the first
+     * symbol of the first token (cumulative position). No string is created.
+     */
+
+    final char charAt(int position) {
+        return this.text.charAt(position);
+    }
+
+    /**
+     * Returns the symbol at position; the symbols are ordered as the chars,
+     * and are what the tree builders compare.
+     */
+
+    final int symbolAt(int position) {
+        return this.text.symbolAt(position);
     }
 
     /**
@@ -79,15 +775,8 @@ class ListOfTokens {
      */
 
     final String getSubstring(int leftIndex) {
-        int count=0;
-        Token next = null;
-        Token current = this.head;
-        int len = 0;
-        while( leftIndex >= count +  (len=current.getLen())) {
-            count += len;
-            if((next = current.getNext())!= null) { current = next; }
-        }
-        return (current.getToken()).substring(leftIndex - count);
+        int end = this.starts[this.getIndex(leftIndex) - this.firstToken + 1];
+        return this.text.getSubstring(leftIndex, end - leftIndex);
     }
 
     /**
@@ -95,31 +784,28 @@ class ListOfTokens {
      */
 
     final int getStart(int position) {
-        int pos = 0;
-        Token cur = this.head;
-        for(int i=0; i<position; i++) {
-            pos += cur.getLen();
-            cur = cur.getNext();
-        }
-        return pos;
+        return this.starts[position - this.firstToken];
     }
 
     /**
-     * Returns the index of the string that contains position.
+     * Returns the index of the string that contains position; binary
+     * search over the starting positions of the tokens.
      */
 
     final int getIndex(int position) {
 
-        int len, current = 0, index = 0;
-        Token p = head;
+        int low = 0, high = this.noTokens - 1;
 
-        while (current + (len = p.getLen()) <= position) {
-            current += len;
-            p = p.getNext();
-            index++;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.starts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
         }
 
-        return index;
+        return low + this.firstToken;
     }
     
     /**
@@ -127,50 +813,91 @@ class ListOfTokens {
      * at position i of p, and j within the list of tokens.
      */
 
-    final int getLCE(String p, int i, int j, int length) {
-
-        // Move to j
+    final int getLCE(CharSequence p, int i, int j, int length) {
 
-        Token current = head;
-        int count = 0;
+        int total = this.text.length();
 
-        while (j > count + current.getLen()) {
+        if (j >= total) 
+            throw new IndexOutOfBoundsException();
 
-            count += current.getLen();
-            current = current.getNext();
+        int max = Math.min(p.length() - i, Math.min(length, total - j));
+        int match = 0;
 
-            if (current == null) 
-        	throw new IndexOutOfBoundsException();
+        while ((match < max) && 
+               (this.text.encode(p.charAt(i + match)) == this.text.symbolAt(j + match))) {
+            match++;
         }
 
-        String token = current.getToken();
-        int tokenLen = token.length(), offset = j - count;
-        int pLen = p.length(), match = 0;
+        return match;
+    }
 
-        while ((i < pLen) && 
-               (offset < tokenLen) && 
-               (match < length) && 
-               (p.charAt(i) == token.charAt(offset))) {
-            i++;
-            offset++;
+    /**
+     * Returns the length of the Longest Common Extension (LCE), starting
+     * at position i of the symbols p, and j within the list of tokens.
+     */
+
+    final int getLCE(int[] p, int i, int j, int length) {
+        int max = Math.min(p.length - i, Math.min(length, this.text.length() - j));
+        int match = 0;
+        while ((match < max) && (p[i + match] == this.text.symbolAt(j + match))) {
             match++;
         }
-
         return match;
     }
 
+    /**
+     * returns the symbols from leftIndex, having length length
+     */
+
+    final int[] getSymbols(int leftIndex, int length) {
+        int[] symbols = new int[length];
+        for (int i = 0; i < length; i++) {
+            symbols[i] = this.text.symbolAt(leftIndex + i);
+        }
+        return symbols;
+    }
+
+    /**
+     * returns the label of the chars from leftIndex, having length length:
+     * the substring, or the int symbols in brackets
+     */
+
+    final String getLabel(int leftIndex, int length) {
+        if (this.noSymbols > 0) {
+            return Arrays.toString(this.getSymbols(leftIndex, length));
+        }
+        return this.getSubstring(leftIndex, length);
+    }
+
+    /**
+     * Returns the length of the Longest Common Extension (LCE) of the
+     * positions i and j of the list of tokens, up to length symbols.
+     */
+
+    final int getLCE(int i, int j, int length) {
+        return this.text.getLCE(i, j, length);
+    }
+
+    /**
+     * returns the number of strings in this list, from getFirstToken,
+     * the removed ones included
+     */
+    final int getNoTokens() {
+        return this.noTokens;
+    }
+
+    /**
+     * returns the index of the first string in this list
+     */
+    final int getFirstToken() {
+        return this.firstToken;
+    }
 
     /**
      * returns the total length of the strings contained in this list
      */
     final int getTotalLength() {
-        int len = 0;
-        Token cur = this.head;
-        while(cur != null) {
-            len += cur.getLen();
-            cur = cur.getNext();
-        }
-        return len;
+        return this.text.length();
     }
 
 }
@@ -0,0 +1,97 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file mapped in memory in segments of 1 GB, so that it can be larger
+ * than the 2 GB of a MappedByteBuffer. The offsets are longs, counted
+ * from the start of the file. A segment starts at a multiple of its
+ * size: an int or a char at an offset that is a multiple of its size is
+ * never split between two segments.
+ */
+
+final class MappedFile {
+
+    /**
+     * log2 of the size of a segment
+     */
+
+    private static final int SHIFT = 30;
+
+    private static final long MASK = (1L << SHIFT) - 1;
+
+    private MappedByteBuffer[] segments;
+
+    private long size;
+
+    /**
+     * maps the whole file of channel, in mode
+     * @stereotype constructor
+     */
+
+    MappedFile(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        this.size = channel.size();
+        this.segments = new MappedByteBuffer[(int) ((this.size + MASK) >>> SHIFT)];
+        for (int i = 0; i < this.segments.length; i++) {
+            long offset = (long) i << SHIFT;
+            this.segments[i] = channel.map(mode, offset, Math.min(MASK + 1, this.size - offset));
+        }
+    }
+
+    /**
+     * returns the number of bytes of the file
+     */
+
+    final long size() {
+        return this.size;
+    }
+
+    final byte get(long offset) {
+        return this.segments[(int) (offset >>> SHIFT)].get((int) (offset & MASK));
+    }
+
+    final char getChar(long offset) {
+        return this.segments[(int) (offset >>> SHIFT)].getChar((int) (offset & MASK));
+    }
+
+    final int getInt(long offset) {
+        return this.segments[(int) (offset >>> SHIFT)].getInt((int) (offset & MASK));
+    }
+
+    final void putInt(long offset, int value) {
+        this.segments[(int) (offset >>> SHIFT)].putInt((int) (offset & MASK), value);
+    }
+
+    /**
+     * returns the symbol of symbolSize bytes at offset: 1, 2, or 4 for an
+     * int symbol
+     */
+
+    final int getSymbol(long offset, int symbolSize) {
+        if (symbolSize == 1) {
+            return this.get(offset) & 0xFF;
+        }
+        return (symbolSize == 2) ? this.getChar(offset) : this.getInt(offset);
+    }
+
+    /**
+     * writes the changes of a file mapped in READ_WRITE mode to the disk
+     */
+
+    final void force() {
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i].force();
+        }
+    }
+
+}
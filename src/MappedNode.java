@@ -0,0 +1,84 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * A view of one node of a MappedSuffixTree. Like ArrayNode, it only
+ * holds the id of the node; the data is read from the mapped file.
+ */
+
+final class MappedNode implements NodeInterface {
+
+    private final MappedSuffixTree tree;
+
+    private final int id;
+
+    /**
+     * @stereotype constructor
+     */
+
+    MappedNode(MappedSuffixTree tree, int id) {
+        this.tree = tree;
+        this.id = id;
+    }
+
+    /**
+     * returns the id of this node in the file
+     */
+
+    final int getId() { return this.id; }
+
+    final boolean isLeaf() { return this.tree.isLeaf(this.id); }
+
+    public final int getLeftIndex() { return this.tree.getLeftIndex(this.id); }
+
+    public final int getLength() { return this.tree.getLength(this.id); }
+
+    public final Object getRightSybling() {
+        return this.tree.getNode(this.tree.getRightSybling(this.id));
+    }
+
+    /**
+     * returns the first child of this node, or null for a leaf
+     */
+
+    final Object getFirstChild() {
+        return this.isLeaf() ? null : this.tree.getNode(this.tree.getFirstChild(this.id));
+    }
+
+    /**
+     * returns the suffix link of this internal node, or null
+     */
+
+    final Object getSuffixLink() {
+        return this.isLeaf() ? null : this.tree.getNode(this.tree.getSuffixLink(this.id));
+    }
+
+    /**
+     * returns the coordinates of this leaf, or null for an internal node
+     */
+
+    public final SuffixCoordinates getCoordinates() {
+        return this.isLeaf() ? this.tree.getCoordinates(this.id) : null;
+    }
+
+    public final Info getInfo() { return this.tree.getInfo(this.id); }
+
+    public final void setInfo(Info info) { this.tree.setInfo(this.id, info); }
+
+    public final boolean equals(Object other) {
+        return (other instanceof MappedNode) &&
+            ((MappedNode) other).tree == this.tree && ((MappedNode) other).id == this.id;
+    }
+
+    public final int hashCode() {
+        return this.id;
+    }
+
+}
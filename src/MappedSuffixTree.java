@@ -0,0 +1,626 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A suffix tree saved by TreeWriter, read directly from the file mapped
+ * in memory. Nothing is copied to the heap: opening a tree only maps the
+ * file, and the pages are read by the system when a query touches them.
+ * They are shared by all the processes that map the same file.
+ *
+ * The nodes are numbered as in NodeArrays: the root is node 0, and a
+ * missing node is NodeArrays.NONE. They are seen through MappedNode
+ * objects, which implement NodeInterface and are created on demand. The
+ * tree cannot be modified. The file is mapped in segments (see
+ * MappedFile), so that it can be larger than 2 GB.
+ */
+
+public final class MappedSuffixTree implements TreeInterface {
+
+    /**
+     * the first int of a file written by TreeWriter
+     */
+
+    static final int MAGIC = 0x53544632;
+
+    /**
+     * the number of ints in the header
+     */
+
+    static final int HEADER = 7;
+
+    /**
+     * the number of ints of a node
+     */
+
+    static final int NODE = 5;
+
+    /**
+     * the number of bytes of a symbol: 1 or 2, and 4 for int symbols
+     */
+
+    private int symbolSize;
+
+    /**
+     * the number of int symbols of a tree of int symbols, 0 for chars
+     */
+
+    private int noSymbols;
+
+    /**
+     * the alphabet whose chars the symbols number, or null if the symbol
+     * of a char is the char itself
+     */
+
+    private Alphabet alphabet;
+
+    private int noTokens;
+
+    private int totalLength;
+
+    private int noNodes;
+
+    private MappedFile file;
+
+    /**
+     * the offsets in the file of the position of the first char of each
+     * string, of the symbols, of the nodes and of the chains of
+     * coordinates (position and next cell)
+     */
+
+    private long starts;
+
+    private long text;
+
+    private long nodes;
+
+    private long cells;
+
+    /**
+     * the Info objects attached to the nodes, indexed by node id; created
+     * by the first call to setInfo
+     */
+
+    private Info[] infos;
+
+    /**
+     * maps the tree saved in file
+     * @stereotype constructor
+     */
+
+    public MappedSuffixTree(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            if (input.length() < 4L * HEADER) {
+                throw new IOException(file + " is truncated");
+            }
+            this.file = new MappedFile(input.getChannel(), FileChannel.MapMode.READ_ONLY);
+        } finally {
+            input.close();
+        }
+        if (this.file.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a suffix tree");
+        }
+        this.symbolSize = this.file.getInt(4);
+        int noChars = this.file.getInt(8);
+        if (this.symbolSize == 4) {
+            this.noSymbols = noChars;
+            noChars = 0;
+        }
+        this.noTokens = this.file.getInt(12);
+        this.totalLength = this.file.getInt(16);
+        this.noNodes = this.file.getInt(20);
+        int noCells = this.file.getInt(24);
+
+        long offset = 4L * HEADER;
+        if (noChars > 0) {
+            StringBuilder buffer = new StringBuilder(noChars);
+            for (int i = 0; i < noChars; i++) {
+                buffer.append(this.file.getChar(offset + 2L * i));
+            }
+            this.alphabet = new Alphabet(buffer.toString());
+        }
+        offset += 4L * ((2L * noChars + 3) / 4);
+        this.starts = offset;
+        offset += 4L * (this.noTokens + 1);
+        this.text = offset;
+        offset += 4L * (((long) this.symbolSize * this.totalLength + 3) / 4);
+        this.nodes = offset;
+        offset += 4L * NODE * this.noNodes;
+        this.cells = offset;
+        if (offset + 8L * noCells != this.file.size()) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+    /**
+     * returns true if pattern is a substring of one of the strings; an
+     * empty tree has no substring, not even the empty pattern
+     */
+
+    public final boolean contains(String pattern) {
+        return this.find(pattern) != NodeArrays.NONE;
+    }
+
+    /**
+     * Returns the smallest position where pattern is found, counted from
+     * the first char of the first string, or -1 if it is not found.
+     */
+
+    public final int firstOccurrence(String pattern) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? -1 : this.walk(node, null, null, true);
+    }
+
+    /**
+     * returns the number of positions where pattern is found
+     */
+
+    public final int count(String pattern) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? 0 : this.walk(node, null, null, false);
+    }
+
+    /**
+     * Returns the coordinates of the positions where pattern is found, in
+     * increasing order, or null if it is not found. The leaves are visited
+     * once.
+     */
+
+    public final SuffixCoordinates findAll(String pattern) {
+        int node = this.find(pattern);
+        if (node == NodeArrays.NONE) {
+            return null;
+        }
+        SuffixCoordinates head = new SuffixCoordinates(-1, null);
+        int[] positions = new int[this.walk(node, null, head, false)];
+        return ArraySuffixTree.sort(head.getNext(), positions);
+    }
+
+    /**
+     * Puts the positions where pattern is found in positions, in no
+     * particular order, as many as it holds, and returns their number,
+     * which can be larger than positions.length.
+     */
+
+    public final int findAll(String pattern, int[] positions) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? 0 : this.walk(node, positions, null, false);
+    }
+
+    /**
+     * returns true if the sequence of int symbols pattern is found in one
+     * of the sequences of a tree of int symbols
+     */
+
+    public final boolean contains(int[] pattern) {
+        return this.find(pattern) != NodeArrays.NONE;
+    }
+
+    /**
+     * Returns the smallest position where the sequence of int symbols
+     * pattern is found, counted from the first symbol of the first
+     * sequence, or -1 if it is not found.
+     */
+
+    public final int firstOccurrence(int[] pattern) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? -1 : this.walk(node, null, null, true);
+    }
+
+    /**
+     * returns the number of positions where the sequence of int symbols
+     * pattern is found
+     */
+
+    public final int count(int[] pattern) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? 0 : this.walk(node, null, null, false);
+    }
+
+    /**
+     * Returns the coordinates of the positions where the sequence of int
+     * symbols pattern is found, in increasing order, or null if it is not
+     * found.
+     */
+
+    public final SuffixCoordinates findAll(int[] pattern) {
+        int node = this.find(pattern);
+        if (node == NodeArrays.NONE) {
+            return null;
+        }
+        SuffixCoordinates head = new SuffixCoordinates(-1, null);
+        int[] positions = new int[this.walk(node, null, head, false)];
+        return ArraySuffixTree.sort(head.getNext(), positions);
+    }
+
+    /**
+     * Puts the positions where the sequence of int symbols pattern is
+     * found in positions, as findAll does for a String.
+     */
+
+    public final int findAll(int[] pattern, int[] positions) {
+        int node = this.find(pattern);
+        return (node == NodeArrays.NONE) ? 0 : this.walk(node, positions, null, false);
+    }
+
+    /**
+     * Returns the node at or below the end of the int symbols of pattern,
+     * or NONE if pattern is not in the tree. A symbol that is not from 0
+     * to noSymbols - 1 is found nowhere, so that the end markers cannot
+     * be matched. Throws an IllegalStateException if the tree holds
+     * chars.
+     */
+
+    final int find(int[] pattern) {
+        if (this.symbolSize != 4) {
+            throw new IllegalStateException("the tree holds chars: use the String methods");
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i] < 0 || pattern[i] >= this.noSymbols) {
+                return NodeArrays.NONE;
+            }
+        }
+        if (this.getFirstChild(0) == NodeArrays.NONE) {
+            return NodeArrays.NONE;
+        }
+        int node = 0;
+        int matched = 0;
+        while (matched < pattern.length) {
+            if (this.isLeaf(node)) {
+                return NodeArrays.NONE;
+            }
+            node = this.getChild(node, pattern[matched]);
+            if (node == NodeArrays.NONE) {
+                return NodeArrays.NONE;
+            }
+            int position = this.getLeftIndex(node);
+            int max = Math.min(this.getLength(node), pattern.length - matched);
+            for (int i = 1; i < max; i++) {
+                if (this.symbolAt(position + i) != pattern[matched + i]) {
+                    return NodeArrays.NONE;
+                }
+            }
+            matched += max;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node at or below the end of pattern, or NONE if pattern
+     * is not in the tree, as in an empty tree. Throws an
+     * IllegalStateException if the tree holds int symbols.
+     */
+
+    final int find(String pattern) {
+        if (this.symbolSize == 4) {
+            throw new IllegalStateException("the tree holds int symbols: use the int[] methods");
+        }
+        if (this.getFirstChild(0) == NodeArrays.NONE) {
+            return NodeArrays.NONE;
+        }
+        int node = 0;
+        int matched = 0;
+        int patternLen = pattern.length();
+        while (matched < patternLen) {
+            if (this.isLeaf(node)) {
+                return NodeArrays.NONE;
+            }
+            int symbol = this.encode(pattern.charAt(matched));
+            if (symbol == -1) {
+                return NodeArrays.NONE;
+            }
+            node = this.getChild(node, symbol);
+            if (node == NodeArrays.NONE) {
+                return NodeArrays.NONE;
+            }
+            int position = this.getLeftIndex(node);
+            int max = Math.min(this.getLength(node), patternLen - matched);
+            for (int i = 1; i < max; i++) {
+                if (this.symbolAt(position + i) != this.encode(pattern.charAt(matched + i))) {
+                    return NodeArrays.NONE;
+                }
+            }
+            matched += max;
+        }
+        return node;
+    }
+
+    /**
+     * returns the child of the internal node whose branch starts with
+     * symbol, or NONE; the children are in decreasing order of their first
+     * symbol
+     */
+
+    final int getChild(int node, int symbol) {
+        int child = this.getFirstChild(node);
+        while (child != NodeArrays.NONE) {
+            int start = this.symbolAt(this.getLeftIndex(child));
+            if (start <= symbol) {
+                return (start == symbol) ? child : NodeArrays.NONE;
+            }
+            child = this.getRightSybling(child);
+        }
+        return NodeArrays.NONE;
+    }
+
+    /**
+     * Visits the leaves below node, with a stack of the ids still to
+     * visit. The positions are put in positions, as many as it holds, and
+     * prepended to the list after head, if they are not null. Returns the smallest position if first is true, the
+     * number of positions otherwise.
+     */
+
+    private int walk(int node, int[] positions, SuffixCoordinates head, boolean first) {
+        int min = Integer.MAX_VALUE;
+        int count = 0;
+        int[] stack = new int[32];
+        int size = 0;
+        stack[size++] = node;
+        while (size > 0) {
+            int id = stack[--size];
+            if (!this.isLeaf(id)) {
+                int child = this.getFirstChild(id);
+                for (; child != NodeArrays.NONE; child = this.getRightSybling(child)) {
+                    if (size == stack.length) {
+                        int[] temp = new int[2 * size];
+                        System.arraycopy(stack, 0, temp, 0, size);
+                        stack = temp;
+                    }
+                    stack[size++] = child;
+                }
+                continue;
+            }
+            int coordinates = this.getSuffixLink(id);
+            int cell = (coordinates >= 0) ? CoordinatePool.NONE : -1 - coordinates;
+            int position = (coordinates >= 0) ? coordinates : this.getPosition(cell);
+            while (true) {
+                min = Math.min(min, position);
+                if (positions != null && count < positions.length) {
+                    positions[count] = position;
+                }
+                if (head != null) {
+                    head.setNext(new SuffixCoordinates(position, head.getNext()));
+                }
+                count++;
+                if (cell == CoordinatePool.NONE || (cell = this.getNextCell(cell)) == CoordinatePool.NONE) {
+                    break;
+                }
+                position = this.getPosition(cell);
+            }
+        }
+        return first ? min : count;
+    }
+
+    /**
+     * returns a view of the root of the tree
+     */
+
+    public final MappedNode getRoot() {
+        return new MappedNode(this, 0);
+    }
+
+    /**
+     * returns the first child of node, or null for a leaf
+     */
+
+    public final NodeInterface getFirstChild(NodeInterface node) {
+        return (NodeInterface) ((MappedNode) node).getFirstChild();
+    }
+
+    /**
+     * returns the coordinates of the leaf node, or null for an internal node
+     */
+
+    public final SuffixCoordinates getCoordinates(NodeInterface node) {
+        return ((MappedNode) node).getCoordinates();
+    }
+
+    /**
+     * returns the label of the branch leading to node
+     */
+
+    public final String getLabel(NodeInterface node) {
+        return (this.noSymbols > 0) ?
+            Arrays.toString(this.getSymbols(node.getLeftIndex(), node.getLength())) :
+            this.getSubstring(node.getLeftIndex(), node.getLength());
+    }
+
+    /**
+     * returns a view of the node id, or null if id is NodeArrays.NONE
+     */
+
+    final MappedNode getNode(int id) {
+        return (id == NodeArrays.NONE) ? null : new MappedNode(this, id);
+    }
+
+    final boolean isLeaf(int id) { return this.getField(id, 2) == NodeArrays.LEAF; }
+
+    final int getLeftIndex(int id) { return this.getField(id, 0); }
+
+    final int getLength(int id) { return this.getField(id, 1); }
+
+    final int getFirstChild(int id) { return this.getField(id, 2); }
+
+    final int getRightSybling(int id) { return this.getField(id, 3); }
+
+    /**
+     * returns the suffix link of the internal node id, or the coordinates
+     * of the leaf id
+     */
+
+    final int getSuffixLink(int id) { return this.getField(id, 4); }
+
+    /**
+     * returns the int field of the node id
+     */
+
+    private int getField(int id, int field) {
+        return this.file.getInt(this.nodes + 4L * (NODE * (long) id + field));
+    }
+
+    /**
+     * returns the position stored in cell
+     */
+
+    private int getPosition(int cell) {
+        return this.file.getInt(this.cells + 8L * cell);
+    }
+
+    /**
+     * returns the cell that follows cell in its chain, or NONE
+     */
+
+    private int getNextCell(int cell) {
+        return this.file.getInt(this.cells + 8L * cell + 4);
+    }
+
+    /**
+     * returns the coordinates of the leaf id, in the order of its chain
+     */
+
+    final SuffixCoordinates getCoordinates(int id) {
+        int coordinates = this.getSuffixLink(id);
+        if (coordinates >= 0) {
+            return new SuffixCoordinates(coordinates, null);
+        }
+        SuffixCoordinates head = new SuffixCoordinates(-1, null);
+        SuffixCoordinates last = head;
+        for (int cell = -1 - coordinates; cell != CoordinatePool.NONE; cell = this.getNextCell(cell)) {
+            last.setNext(new SuffixCoordinates(this.getPosition(cell), null));
+            last = last.getNext();
+        }
+        return head.getNext();
+    }
+
+    /**
+     * returns the symbol of c, or -1 if c is not in the strings, as in a
+     * tree of int symbols
+     */
+
+    final int encode(char c) {
+        if (this.symbolSize == 4) {
+            return -1;
+        } else if (this.alphabet != null) {
+            return this.alphabet.encode(c);
+        }
+        return (this.symbolSize == 1 && c > 0xFF) ? -1 : c;
+    }
+
+    /**
+     * returns the symbol at position
+     */
+
+    final int symbolAt(int position) {
+        return this.file.getSymbol(this.text + (long) this.symbolSize * position, this.symbolSize);
+    }
+
+    /**
+     * returns the char at position
+     */
+
+    final char charAt(int position) {
+        if (this.symbolSize == 4) {
+            throw new IllegalStateException("the tree holds int symbols: use the int[] methods");
+        }
+        int symbol = this.symbolAt(position);
+        return (this.alphabet == null) ? (char) symbol : this.alphabet.decode(symbol);
+    }
+
+    /**
+     * returns the length chars at leftIndex, as a string
+     */
+
+    public final String getSubstring(int leftIndex, int length) {
+        char[] temp = new char[length];
+        for (int i = 0; i < length; i++) {
+            temp[i] = this.charAt(leftIndex + i);
+        }
+        return new String(temp);
+    }
+
+    /**
+     * returns the length int symbols at leftIndex, in a tree of int
+     * symbols
+     */
+
+    public final int[] getSymbols(int leftIndex, int length) {
+        int[] symbols = new int[length];
+        for (int i = 0; i < length; i++) {
+            symbols[i] = this.symbolAt(leftIndex + i);
+        }
+        return symbols;
+    }
+
+    /**
+     * returns the position of the first char of the string at indexToken
+     */
+
+    public final int getStart(int indexToken) {
+        return this.file.getInt(this.starts + 4L * indexToken);
+    }
+
+    /**
+     * returns the index of the string that contains position
+     */
+
+    public final int getIndex(int position) {
+        int low = 0, high = this.noTokens - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.getStart(middle) <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    public final int getNoTokens() {
+        return this.noTokens;
+    }
+
+    public final int getTotalLength() {
+        return this.totalLength;
+    }
+
+    public final int getNoNodes() {
+        return this.noNodes;
+    }
+
+    /**
+     * returns the first Info object of the node id
+     */
+
+    final Info getInfo(int id) {
+        return (this.infos == null) ? null : this.infos[id];
+    }
+
+    /**
+     * prepends info to the list of Info objects of the node id
+     */
+
+    final void setInfo(int id, Info info) {
+        if (this.infos == null) {
+            this.infos = new Info[this.noNodes];
+        }
+        if (this.infos[id] != null) {
+            info.setNextInfo(this.infos[id]);
+        }
+        this.infos[id] = info;
+    }
+
+}
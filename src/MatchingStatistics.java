@@ -0,0 +1,358 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Computes the matching statistics of a text against the strings of a
+ * tree: for each position of the text, the length of the longest
+ * substring of the strings of the tree that starts there, and its locus,
+ * the node at or below the end of its path.
+ *
+ * The text is read once, char by char, from a Reader or a CharSequence,
+ * and only a buffer of it is kept. The path of the current match is
+ * extended by each char; when it cannot be, the match of the current
+ * position is reported, and the path of the next position is found from
+ * the suffix link of the last node of the path, with the skip/count
+ * trick, as in TreeBuilder. The whole text takes linear time.
+ *
+ * The results are read as with a Matcher: next moves to the next
+ * position, whose match is then returned by getPosition, getLength,
+ * getLocus and getOccurrence. The tree must not be modified meanwhile.
+ * After strings are removed, the occurrence is read from a leaf below the
+ * locus when the branch points to the chars of a removed string.
+ */
+
+public final class MatchingStatistics {
+
+    private static final int BUFFER = 8192;
+
+    /**
+     * the tree in which the text is matched
+     */
+
+    private SuffixTree myTree;
+
+    private ListOfTokens tokens;
+
+    /**
+     * the text, one of them being null
+     */
+
+    private Reader in;
+
+    private CharSequence text;
+
+    private char[] buffer;
+
+    private int bufferPos;
+
+    private int bufferLen;
+
+    /**
+     * the number of chars of the text read so far, the next one not
+     * being matched yet
+     */
+
+    private int read;
+
+    private boolean ended;
+
+    /**
+     * The current match starts at start in the text and has length
+     * chars; its path ends edgeLength chars below node, on the branch of
+     * edge, or at node if edge is null.
+     */
+
+    private int start;
+
+    private int length;
+
+    private InternalNode node;
+
+    private NodeInterface edge;
+
+    private int edgeLength;
+
+    /**
+     * the match returned by the last call to next
+     */
+
+    private int position;
+
+    private int matchLength;
+
+    private NodeInterface locus;
+
+    private int occurrence;
+
+    /**
+     * @stereotype constructor
+     */
+
+    public MatchingStatistics(SuffixTree tree, Reader in) {
+        this(tree, in, null);
+    }
+
+    /**
+     * @stereotype constructor
+     */
+
+    public MatchingStatistics(SuffixTree tree, CharSequence text) {
+        this(tree, null, text);
+    }
+
+    /**
+     * @stereotype constructor
+     */
+
+    private MatchingStatistics(SuffixTree tree, Reader in, CharSequence text) {
+        tree.checkChars();
+        this.myTree = tree;
+        this.tokens = tree.getTokens();
+        this.in = in;
+        this.text = text;
+        this.buffer = (in == null) ? null : new char[BUFFER];
+        this.bufferPos = 0;
+        this.bufferLen = 0;
+        this.read = 0;
+        this.ended = false;
+        this.start = 0;
+        this.length = 0;
+        this.node = tree.getRoot();
+        this.edge = null;
+        this.edgeLength = 0;
+        this.position = -1;
+        this.locus = null;
+    }
+
+    /**
+     * Moves to the next position of the text; returns false at the end of
+     * the text. Reads the chars of the text up to the first one that does
+     * not extend the match of this position. Does not close the Reader.
+     */
+
+    public final boolean next() throws IOException {
+        while (!this.ended) {
+            int c = this.peek();
+            if (c == -1) {
+                this.ended = true;
+                break;
+            }
+            int symbol = this.tokens.encode((char) c);
+            if (symbol != -1 && this.extend(symbol)) {
+                this.consume();
+                continue;
+            }
+            this.report();
+            if (this.length == 0) {
+                /**
+                 * c is found nowhere: the empty match of its position is
+                 * the one reported
+                 */
+                this.consume();
+                this.start++;
+            } else {
+                this.shorten();
+            }
+            return true;
+        }
+        /**
+         * the rest of the text is the current match, and its suffixes
+         */
+        if (this.length == 0) {
+            return false;
+        }
+        this.report();
+        this.shorten();
+        return true;
+    }
+
+    /**
+     * returns the position in the text of the current match
+     */
+
+    public final int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * returns the length of the longest substring of the strings of the
+     * tree that starts at the current position
+     */
+
+    public final int getLength() {
+        return this.matchLength;
+    }
+
+    /**
+     * returns the node at or below the end of the path of the current
+     * match; the root when the match is empty
+     */
+
+    public final NodeInterface getLocus() {
+        return this.locus;
+    }
+
+    /**
+     * returns a position of the strings of the tree where the current
+     * match is found, counted from the first char of the first string, or
+     * -1 when the match is empty
+     */
+
+    public final int getOccurrence() {
+        return this.occurrence;
+    }
+
+    /**
+     * returns the next char of the text, without reading past it, or -1
+     * at its end
+     */
+
+    private int peek() throws IOException {
+        if (this.in == null) {
+            return (this.read < this.text.length()) ? this.text.charAt(this.read) : -1;
+        }
+        if (this.bufferPos == this.bufferLen) {
+            int count;
+            do {
+                count = this.in.read(this.buffer, 0, BUFFER);
+            } while (count == 0);
+            if (count == -1) {
+                return -1;
+            }
+            this.bufferPos = 0;
+            this.bufferLen = count;
+        }
+        return this.buffer[this.bufferPos];
+    }
+
+    /**
+     * moves past the char returned by peek
+     */
+
+    private void consume() {
+        this.read++;
+        this.bufferPos++;
+    }
+
+    /**
+     * extends the path of the current match by symbol; returns false if
+     * there is no such path
+     */
+
+    private boolean extend(int symbol) {
+        if (this.edge == null) {
+            NodeInterface child = this.node.getChild(symbol, this.myTree);
+            if (child == null) {
+                return false;
+            }
+            this.edge = child;
+        } else if (this.edgeLength == this.edge.getLength() ||
+                   this.myTree.symbolAt(this.edge.getLeftIndex() + this.edgeLength) != symbol) {
+            return false;
+        }
+        this.edgeLength++;
+        this.length++;
+        this.normalize();
+        return true;
+    }
+
+    /**
+     * keeps the current match as the one returned by the getters
+     */
+
+    private void report() {
+        this.position = this.start;
+        this.matchLength = this.length;
+        if (this.edge == null) {
+            this.locus = this.node;
+            this.occurrence = this.node.getLeftIndex() + this.node.getLength() - this.length;
+        } else {
+            this.locus = this.edge;
+            this.occurrence = this.edge.getLeftIndex() + this.edgeLength - this.length;
+        }
+        if (this.length == 0) {
+            this.occurrence = -1;
+        } else if (this.tokens.getDeadLength() > 0 &&
+                   !this.tokens.contains(this.tokens.getIndex(this.occurrence))) {
+            this.occurrence = this.liveOccurrence(this.locus);
+        }
+    }
+
+    /**
+     * Returns the position of a suffix below node. The branches can point
+     * to the chars of a removed string until the text is compacted, but
+     * the coordinates of the leaves are those of strings that are still in
+     * the tree, and each suffix below the locus starts with the match.
+     */
+
+    private int liveOccurrence(NodeInterface node) {
+        while (node instanceof InternalNode) {
+            node = (NodeInterface) ((InternalNode) node).getFirstChild();
+        }
+        return ((LeafNode) node).getPosition(this.myTree);
+    }
+
+    /**
+     * Drops the first char of the current match, which is not empty: the
+     * path of the rest is found below the suffix link of node, walking
+     * down the chars of edge that were matched.
+     */
+
+    private void shorten() {
+        int from;
+        int count;
+        if (this.edge == null) {
+            from = 0;
+            count = 0;
+        } else {
+            from = this.edge.getLeftIndex();
+            count = this.edgeLength;
+        }
+        if (this.node == this.myTree.getRoot()) {
+            from++;
+            count--;
+        } else {
+            this.node = (InternalNode) this.node.getSuffixLink();
+        }
+        this.start++;
+        this.length--;
+        this.edge = null;
+        this.edgeLength = 0;
+        while (count > 0) {
+            NodeInterface child = this.node.getChild(this.myTree.symbolAt(from), this.myTree);
+            if (count < child.getLength() || !(child instanceof InternalNode)) {
+                this.edge = child;
+                this.edgeLength = count;
+                break;
+            }
+            this.node = (InternalNode) child;
+            from += child.getLength();
+            count -= child.getLength();
+        }
+        this.normalize();
+    }
+
+    /**
+     * moves to the end of edge when it is matched to its end, and is not
+     * a leaf
+     */
+
+    private void normalize() {
+        if (this.edge instanceof InternalNode && this.edgeLength == this.edge.getLength()) {
+            this.node = (InternalNode) this.edge;
+            this.edge = null;
+            this.edgeLength = 0;
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * The nodes of an ArraySuffixTree, stored in parallel arrays of ints
+ * indexed by the node id instead of one object per node. The root is
+ * always node 0.
+ *
+ * The suffixLink column of a leaf holds its coordinates instead: the
+ * position of its suffix when there is only one, or -1 - c, where c is
+ * the first cell of the chain of its coordinates in a CoordinatePool.
+ */
+
+final class NodeArrays {
+
+    /**
+     * marks a missing node (no child, no sybling, no suffix link)
+     */
+
+    static final int NONE = -1;
+
+    /**
+     * the firstChild of a leaf
+     */
+
+    static final int LEAF = -2;
+
+    private int[] leftIndex;
+
+    private int[] length;
+
+    private int[] firstChild;
+
+    private int[] rightSybling;
+
+    private int[] suffixLink;
+
+    /**
+     * the coordinates of the leaves that have more than one suffix
+     */
+
+    private CoordinatePool coordinates;
+
+    /**
+     * number of nodes in use
+     */
+
+    private int size;
+
+    /**
+     * Creates the arrays for capacity nodes, and the root.
+     * @stereotype constructor 
+     */
+
+    NodeArrays(int capacity) {
+        capacity = Math.max(capacity, 16);
+        this.leftIndex = new int[capacity];
+        this.length = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.rightSybling = new int[capacity];
+        this.suffixLink = new int[capacity];
+        this.coordinates = new CoordinatePool();
+        this.size = 0;
+        this.newInternalNode(0, 0, NONE, NONE);
+    }
+
+    /**
+     * returns the id of a new internal node
+     */
+
+    final int newInternalNode(int leftIndex, int length, int rightSybling, int firstChild) {
+        int id = this.newNode(leftIndex, length, rightSybling);
+        this.firstChild[id] = firstChild;
+        this.suffixLink[id] = NONE;
+        return id;
+    }
+
+    /**
+     * returns the id of a new leaf, for the suffix that starts at position
+     */
+
+    final int newLeafNode(int leftIndex, int length, int rightSybling, int position) {
+        int id = this.newNode(leftIndex, length, rightSybling);
+        this.firstChild[id] = LEAF;
+        this.suffixLink[id] = position;
+        return id;
+    }
+
+    private int newNode(int leftIndex, int length, int rightSybling) {
+        if (this.size == this.leftIndex.length) {
+            this.ensureCapacity(this.size + 1);
+        }
+        int id = this.size++;
+        this.leftIndex[id] = leftIndex;
+        this.length[id] = length;
+        this.rightSybling[id] = rightSybling;
+        return id;
+    }
+
+    /**
+     * grows the arrays so that they can hold at least capacity nodes; they
+     * grow by half at least, so that growing them node by node, or string
+     * by string, copies each node a constant number of times
+     */
+
+    final void ensureCapacity(int capacity) {
+        if (capacity > this.leftIndex.length) {
+            capacity = Math.max(capacity, this.leftIndex.length + (this.leftIndex.length >> 1));
+            this.leftIndex = grow(this.leftIndex, capacity, this.size);
+            this.length = grow(this.length, capacity, this.size);
+            this.firstChild = grow(this.firstChild, capacity, this.size);
+            this.rightSybling = grow(this.rightSybling, capacity, this.size);
+            this.suffixLink = grow(this.suffixLink, capacity, this.size);
+        }
+    }
+
+    private static int[] grow(int[] array, int capacity, int size) {
+        int[] temp = new int[capacity];
+        System.arraycopy(array, 0, temp, 0, size);
+        return temp;
+    }
+
+    /**
+     * returns the number of nodes
+     */
+
+    final int size() {
+        return this.size;
+    }
+
+    final boolean isLeaf(int id) { return this.firstChild[id] == LEAF; }
+
+    final int getLeftIndex(int id) { return this.leftIndex[id]; }
+
+    final void setLeftIndex(int id, int leftIndex) { this.leftIndex[id] = leftIndex; }
+
+    final int getLength(int id) { return this.length[id]; }
+
+    final void setLength(int id, int length) { this.length[id] = length; }
+
+    final int getFirstChild(int id) { return this.firstChild[id]; }
+
+    final void setFirstChild(int id, int firstChild) { this.firstChild[id] = firstChild; }
+
+    final int getRightSybling(int id) { return this.rightSybling[id]; }
+
+    final void setRightSybling(int id, int rightSybling) { this.rightSybling[id] = rightSybling; }
+
+    final int getSuffixLink(int id) { return this.suffixLink[id]; }
+
+    final void setSuffixLink(int id, int suffixLink) { this.suffixLink[id] = suffixLink; }
+
+    /**
+     * returns the chains of coordinates of the leaves
+     */
+
+    final CoordinatePool getCoordinatePool() {
+        return this.coordinates;
+    }
+
+    /**
+     * adds position to the coordinates of the leaf id
+     */
+
+    final void addCoordinates(int id, int position) {
+        int coordinates = this.suffixLink[id];
+        int next = (coordinates >= 0) ? this.coordinates.add(coordinates, CoordinatePool.NONE)
+                                      : -1 - coordinates;
+        this.suffixLink[id] = -1 - this.coordinates.add(position, next);
+    }
+
+    /**
+     * returns the coordinates of the leaf id, most recent first
+     */
+
+    final SuffixCoordinates getCoordinates(int id) {
+        int coordinates = this.suffixLink[id];
+        if (coordinates >= 0) {
+            return new SuffixCoordinates(coordinates, null);
+        }
+        return this.getCoordinatesFrom(-1 - coordinates);
+    }
+
+    private SuffixCoordinates getCoordinatesFrom(int cell) {
+        SuffixCoordinates first = null, last = null;
+        for (; cell != CoordinatePool.NONE; cell = this.coordinates.getNext(cell)) {
+            SuffixCoordinates temp = new SuffixCoordinates(this.coordinates.getPosition(cell), null);
+            if (last == null) {
+                first = temp;
+            } else {
+                last.setNext(temp);
+            }
+            last = temp;
+        }
+        return first;
+    }
+
+}
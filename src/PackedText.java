@@ -0,0 +1,181 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Text that stores the symbols of an alphabet of at most 256 chars
+ * packed in longs, with as many bits per symbol as the alphabet needs,
+ * from 1 to 8. DNA ("acgt$") takes 3 bits per char instead of 16, and
+ * any alphabet of 256 chars or fewer at most a byte. When the number of
+ * bits does not divide 64, a symbol can span two words, and is read
+ * from both.
+ */
+
+final class PackedText extends Text {
+
+    /**
+     * the symbols; symbol i is in the bits i * bits to (i + 1) * bits - 1
+     * of the words, counted from the lowest bit of the first word, and the
+     * bits after the last symbol are zero
+     */
+
+    private long[] words;
+
+    private int length;
+
+    private final Alphabet alphabet;
+
+    /**
+     * the number of bits of a symbol
+     */
+
+    private final int bits;
+
+    /**
+     * the number of whole symbols in 64 bits
+     */
+
+    private final int perWord;
+
+    private final long mask;
+
+    /**
+     * @stereotype constructor 
+     */
+
+    PackedText(Alphabet alphabet) {
+        this.alphabet = alphabet;
+        this.bits = alphabet.getBitsPerSymbol();
+        this.perWord = 64 / this.bits;
+        this.mask = (1L << this.bits) - 1;
+        this.words = new long[4];
+        this.length = 0;
+    }
+
+    final int length() {
+        return this.length;
+    }
+
+    final int symbolAt(int position) {
+        long bit = (long) position * this.bits;
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        long value = this.words[word] >>> offset;
+        if (offset + this.bits > 64) {
+            value |= this.words[word + 1] << (64 - offset);
+        }
+        return (int) (value & this.mask);
+    }
+
+    final char charAt(int position) {
+        return this.alphabet.decode(this.symbolAt(position));
+    }
+
+    final int encode(char c) {
+        return this.alphabet.encode(c);
+    }
+
+    final void append(CharSequence token) {
+        int tokenLen = token.length();
+        this.grow(this.length + tokenLen);
+        for (int i = 0; i < tokenLen; i++) {
+            this.put(this.alphabet.encode(token.charAt(i)));
+        }
+    }
+
+    final void append(char[] chars, int offset, int count) {
+        this.grow(this.length + count);
+        for (int i = offset; i < offset + count; i++) {
+            this.put(this.alphabet.encode(chars[i]));
+        }
+    }
+
+    /**
+     * stores symbol after the last one; the words are large enough
+     */
+
+    private void put(long symbol) {
+        long bit = (long) this.length * this.bits;
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        this.words[word] |= symbol << offset;
+        if (offset + this.bits > 64) {
+            this.words[word + 1] |= symbol >>> (64 - offset);
+        }
+        this.length++;
+    }
+
+    /**
+     * returns the number of words that hold length symbols, and one more
+     * word, which window reads
+     */
+
+    private int getNoWords(int length) {
+        return (int) (((long) length * this.bits) >>> 6) + 2;
+    }
+
+    /**
+     * grows the words so that they can hold length symbols
+     */
+
+    final void ensureCapacity(int length) {
+        int needed = this.getNoWords(length);
+        if (needed > this.words.length) {
+            long[] temp = new long[needed];
+            System.arraycopy(this.words, 0, temp, 0, this.words.length);
+            this.words = temp;
+        }
+    }
+
+    /**
+     * grows the words, at least twice, so that they can hold length symbols
+     */
+
+    private void grow(int length) {
+        int needed = this.getNoWords(length);
+        if (needed > this.words.length) {
+            long[] temp = new long[Math.max(needed, 2 * this.words.length)];
+            System.arraycopy(this.words, 0, temp, 0, this.words.length);
+            this.words = temp;
+        }
+    }
+
+    /**
+     * returns the 64 bits of symbols that start at position
+     */
+
+    private long window(int position) {
+        long bit = (long) position * this.bits;
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        long value = this.words[word] >>> offset;
+        if (offset != 0 && word + 1 < this.words.length) {
+            value |= this.words[word + 1] << (64 - offset);
+        }
+        return value;
+    }
+
+    /**
+     * compares the whole symbols of a word at a time
+     */
+
+    final int getLCE(int i, int j, int length) {
+        int match = 0;
+        while (match < length) {
+            long difference = this.window(i + match) ^ this.window(j + match);
+            if (difference != 0) {
+                match += Long.numberOfTrailingZeros(difference) / this.bits;
+                return Math.min(match, length);
+            }
+            match += this.perWord;
+        }
+        return length;
+    }
+
+}
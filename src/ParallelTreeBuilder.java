@@ -0,0 +1,410 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Adds many strings to a tree using all the threads of a ForkJoinPool.
+ *
+ * The strings are first added to the string collection of the tree, one
+ * after the other. They are then split in parts of about the same total
+ * length; the suffixes of each part are inserted in a partial tree by a
+ * TreeBuilder, and the partial trees are merged two by two. The subtrees
+ * of the children of the root are merged concurrently. Finally, the
+ * suffix links are set again, since a merge invalidates them.
+ *
+ * Like TreeBuilder, the strings must end with a terminator, such as '$',
+ * that appears nowhere else.
+ */
+
+public final class ParallelTreeBuilder {
+
+    /**
+     * the tree in which the strings are added
+     */
+
+    private SuffixTree myTree;
+
+    private ForkJoinPool pool;
+
+    /**
+     * Uses the common pool.
+     * @stereotype constructor 
+     */
+
+    public ParallelTreeBuilder(SuffixTree tree) {
+        this(tree, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @stereotype constructor 
+     */
+
+    public ParallelTreeBuilder(SuffixTree tree, ForkJoinPool pool) {
+        this.myTree = tree;
+        this.pool = pool;
+    }
+
+    /**
+     * adds the strings to the tree this builder is constructed for; the
+     * strings already in the tree, and those that do not have the proper
+     * alphabet, are skipped
+     */
+
+    public final void addTokens(String[] tokens) {
+        int[] indices = new int[tokens.length];
+        int count = 0;
+        long total = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            int index = this.myTree.addToken(tokens[i]);
+            if (index != -1) {
+                indices[count++] = index;
+                total += tokens[i].length();
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        /**
+         * bounds[p] is the first string of part p; the parts have about the
+         * same total length
+         */
+        int parts = Math.min(count, 4 * this.pool.getParallelism());
+        int[] bounds = new int[parts + 1];
+        long length = 0;
+        int part = 1;
+        for (int i = 0; i < count && part < parts; i++) {
+            length += this.myTree.getTokenLength(indices[i]);
+            if (length * parts >= total * part) {
+                bounds[part++] = i + 1;
+            }
+        }
+        while (part <= parts) {
+            bounds[part++] = count;
+        }
+
+        SuffixTree built = this.pool.invoke(new Build(indices, bounds, 0, parts));
+        this.pool.invoke(new MergeRoots(this.myTree, this.myTree.getRoot(), built.getRoot()));
+
+        int noNodes = this.pool.invoke(new Link(this.myTree, null)).intValue();
+        this.myTree.updateNoNodes(noNodes - this.myTree.getNoNodes());
+    }
+
+    /**
+     * builds the tree of the parts first to last - 1, merging the trees of
+     * the two halves
+     */
+
+    @SuppressWarnings("serial")
+    private final class Build extends RecursiveTask<SuffixTree> {
+
+        private final int[] indices;
+
+        private final int[] bounds;
+
+        private final int first;
+
+        private final int last;
+
+        Build(int[] indices, int[] bounds, int first, int last) {
+            this.indices = indices;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        protected SuffixTree compute() {
+            if (this.last - this.first == 1) {
+                SuffixTree partial = new SuffixTree(myTree);
+                TreeBuilder builder = new TreeBuilder(partial);
+                for (int i = this.bounds[this.first]; i < this.bounds[this.last]; i++) {
+                    builder.addSuffixes(this.indices[i]);
+                }
+                return partial;
+            }
+            int middle = (this.first + this.last) >>> 1;
+            Build left = new Build(this.indices, this.bounds, this.first, middle);
+            left.fork();
+            SuffixTree right = new Build(this.indices, this.bounds, middle, this.last).compute();
+            SuffixTree merged = left.join();
+            new MergeRoots(merged, merged.getRoot(), right.getRoot()).compute();
+            return merged;
+        }
+    }
+
+    /**
+     * merges the children of the root source into the root target; the
+     * children that start with the same char are merged concurrently
+     */
+
+    @SuppressWarnings("serial")
+    private static final class MergeRoots extends RecursiveAction {
+
+        private final SuffixTree tree;
+
+        private final InternalNode target;
+
+        private final InternalNode source;
+
+        MergeRoots(SuffixTree tree, InternalNode target, InternalNode source) {
+            this.tree = tree;
+            this.target = target;
+            this.source = source;
+        }
+
+        protected void compute() {
+            int count = 0;
+            for (Object c = this.target.getFirstChild(); c != null; c = ((NodeInterface) c).getRightSybling()) {
+                count++;
+            }
+            for (Object c = this.source.getFirstChild(); c != null; c = ((NodeInterface) c).getRightSybling()) {
+                count++;
+            }
+
+            /**
+             * both lists of children are in decreasing order of their first
+             * char: pair the children with the same first char
+             */
+            MergeChild[] tasks = new MergeChild[count];
+            NodeInterface[] single = new NodeInterface[count];
+            int noTasks = 0, noSingle = 0;
+            NodeInterface a = (NodeInterface) this.target.getFirstChild();
+            NodeInterface b = (NodeInterface) this.source.getFirstChild();
+            while (a != null || b != null) {
+                int keyA = (a == null) ? Integer.MIN_VALUE : this.tree.symbolAt(a.getLeftIndex());
+                int keyB = (b == null) ? Integer.MIN_VALUE : this.tree.symbolAt(b.getLeftIndex());
+                if (a != null && b != null && keyA == keyB) {
+                    tasks[noTasks++] = new MergeChild(this.tree, a, b);
+                    a = (NodeInterface) a.getRightSybling();
+                    b = (NodeInterface) b.getRightSybling();
+                } else if (b == null || (a != null && keyA > keyB)) {
+                    single[noSingle++] = a;
+                    a = (NodeInterface) a.getRightSybling();
+                } else {
+                    single[noSingle++] = b;
+                    b = (NodeInterface) b.getRightSybling();
+                }
+            }
+            if (noTasks > 0) {
+                MergeChild[] temp = new MergeChild[noTasks];
+                System.arraycopy(tasks, 0, temp, 0, noTasks);
+                ForkJoinTask.invokeAll(temp);
+            }
+
+            this.target.clearChildren();
+            for (int i = 0; i < noSingle; i++) {
+                this.target.addChild(this.tree.symbolAt(single[i].getLeftIndex()), single[i], this.tree);
+            }
+            for (int i = 0; i < noTasks; i++) {
+                NodeInterface merged = tasks[i].getMerged();
+                this.target.addChild(this.tree.symbolAt(merged.getLeftIndex()), merged, this.tree);
+            }
+        }
+    }
+
+    /**
+     * merges two nodes whose branches start with the same char
+     */
+
+    @SuppressWarnings("serial")
+    private static final class MergeChild extends RecursiveAction {
+
+        private final SuffixTree tree;
+
+        private final NodeInterface a;
+
+        private final NodeInterface b;
+
+        private NodeInterface merged;
+
+        MergeChild(SuffixTree tree, NodeInterface a, NodeInterface b) {
+            this.tree = tree;
+            this.a = a;
+            this.b = b;
+        }
+
+        protected void compute() {
+            InternalNode parent = new InternalNode();
+            parent.addChild(this.tree.symbolAt(this.a.getLeftIndex()), this.a, this.tree);
+            merge(this.tree, parent, this.b);
+            this.merged = (NodeInterface) parent.getFirstChild();
+        }
+
+        final NodeInterface getMerged() {
+            return this.merged;
+        }
+    }
+
+    /**
+     * sets the suffix links below a child of the root, and returns the
+     * number of nodes found there; with no child, forks one task per child
+     * of the root and returns the number of nodes of the tree
+     */
+
+    @SuppressWarnings("serial")
+    private static final class Link extends RecursiveTask<Integer> {
+
+        private final SuffixTree tree;
+
+        private final NodeInterface top;
+
+        Link(SuffixTree tree, NodeInterface top) {
+            this.tree = tree;
+            this.top = top;
+        }
+
+        protected Integer compute() {
+            if (this.top != null) {
+                return Integer.valueOf(new SuffixLinker(this.tree).link(this.top));
+            }
+            int count = 0;
+            NodeInterface child = (NodeInterface) this.tree.getRoot().getFirstChild();
+            for (; child != null; child = (NodeInterface) child.getRightSybling()) {
+                count++;
+            }
+            Link[] links = new Link[count];
+            count = 0;
+            child = (NodeInterface) this.tree.getRoot().getFirstChild();
+            for (; child != null; child = (NodeInterface) child.getRightSybling()) {
+                links[count++] = new Link(this.tree, child);
+            }
+            ForkJoinTask.invokeAll(links);
+            int noNodes = 1;
+            for (int i = 0; i < links.length; i++) {
+                noNodes += links[i].join().intValue();
+            }
+            return Integer.valueOf(noNodes);
+        }
+    }
+
+    /**
+     * Inserts the subtree child, which comes from another tree over the
+     * same strings, below parent. The pairs (parent, child) still to merge
+     * are kept on a stack rather than by recursion, since a tree can be as
+     * deep as its longest string.
+     */
+
+    static void merge(SuffixTree tree, InternalNode parent, NodeInterface child) {
+        InternalNode[] parents = new InternalNode[16];
+        NodeInterface[] children = new NodeInterface[16];
+        int size = 0;
+        parents[size] = parent;
+        children[size] = child;
+        size++;
+        while (size > 0) {
+            size--;
+            InternalNode p = parents[size];
+            NodeInterface c = children[size];
+            parents[size] = null;
+            children[size] = null;
+
+            int key = tree.symbolAt(c.getLeftIndex());
+            NodeInterface e = p.getChild(key, tree);
+            if (e == null) {
+                p.addChild(key, c, tree);
+                continue;
+            }
+            int lce = tree.getLCE(e.getLeftIndex(), c.getLeftIndex(),
+                                  Math.min(e.getLength(), c.getLength()));
+            InternalNode nextParent;
+            NodeInterface nextChild;
+            if (lce == e.getLength() && lce == c.getLength()) {
+                if ((e instanceof LeafNode) && (c instanceof LeafNode)) {
+                    ((LeafNode) e).addCoordinates((LeafNode) c, tree);
+                    continue;
+                }
+                if ((e instanceof LeafNode) || (c instanceof LeafNode)) {
+                    throw new IllegalStateException("a string does not end with a terminator");
+                }
+                /**
+                 * same branch: the children of c go below e
+                 */
+                NodeInterface grandChild = (NodeInterface) ((InternalNode) c).getFirstChild();
+                while (grandChild != null) {
+                    NodeInterface next = (NodeInterface) grandChild.getRightSybling();
+                    if (size == parents.length) {
+                        parents = grow(parents);
+                        children = grow(children);
+                    }
+                    parents[size] = (InternalNode) e;
+                    children[size] = grandChild;
+                    size++;
+                    grandChild = next;
+                }
+                continue;
+            } else if (lce == e.getLength()) {
+                if (e instanceof LeafNode) {
+                    throw new IllegalStateException("a string does not end with a terminator");
+                }
+                shorten(c, lce);
+                nextParent = (InternalNode) e;
+                nextChild = c;
+            } else if (lce == c.getLength()) {
+                if (c instanceof LeafNode) {
+                    throw new IllegalStateException("a string does not end with a terminator");
+                }
+                InternalNode.setRightSybling(c, e.getRightSybling());
+                p.replaceChild(key, c, tree);
+                shorten(e, lce);
+                nextParent = (InternalNode) c;
+                nextChild = e;
+            } else {
+                /**
+                 * the branches differ after lce chars: split them
+                 */
+                InternalNode split = new InternalNode(e.getLeftIndex(), lce, e.getRightSybling(), null);
+                p.replaceChild(key, split, tree);
+                shorten(e, lce);
+                shorten(c, lce);
+                split.addChild(tree.symbolAt(e.getLeftIndex()), e, tree);
+                split.addChild(tree.symbolAt(c.getLeftIndex()), c, tree);
+                continue;
+            }
+            if (size == parents.length) {
+                parents = grow(parents);
+                children = grow(children);
+            }
+            parents[size] = nextParent;
+            children[size] = nextChild;
+            size++;
+        }
+    }
+
+    /**
+     * removes the first length chars of the branch leading to node
+     */
+
+    private static void shorten(NodeInterface node, int length) {
+        if (node instanceof InternalNode) {
+            ((InternalNode) node).setLeftIndex(node.getLeftIndex() + length);
+            ((InternalNode) node).setLength(node.getLength() - length);
+        } else {
+            ((LeafNode) node).setLeftIndex(node.getLeftIndex() + length);
+            ((LeafNode) node).setLength(node.getLength() - length);
+        }
+    }
+
+    private static InternalNode[] grow(InternalNode[] array) {
+        InternalNode[] temp = new InternalNode[2 * array.length];
+        System.arraycopy(array, 0, temp, 0, array.length);
+        return temp;
+    }
+
+    private static NodeInterface[] grow(NodeInterface[] array) {
+        NodeInterface[] temp = new NodeInterface[2 * array.length];
+        System.arraycopy(array, 0, temp, 0, array.length);
+        return temp;
+    }
+
+}
@@ -0,0 +1,92 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Keeps the most recent strings added to a tree. Once a string is added,
+ * the oldest strings are removed until the strings of the tree fit in
+ * the budget: at most maxLength chars, and at most maxTokens strings. The
+ * string just added is always kept, even if it is longer than maxLength.
+ * A string that is already in the tree is seen again: it is removed and
+ * added back as the most recent one, so that it is kept the longest.
+ *
+ * Removing a string costs time proportional to its length, and the
+ * memory of the removed strings is given back, so that the tree stays the
+ * same size under a steady flow of strings.
+ *
+ * The latency is not flat, though. The chars of the removed strings stay
+ * in the text until they outnumber the live ones; the addToken that
+ * removes the string past that point also compacts the text (see
+ * TreePruner), which walks the whole tree and copies the live chars.
+ * This happens about once every maxLength chars added, and that call
+ * takes time proportional to maxLength instead of the length of the
+ * strings: with random DNA strings of 100 chars, an addToken takes 70
+ * microseconds, but the one that compacts takes about 30 ms for a budget
+ * of 100,000 chars, and 330 ms for a budget of 1,000,000. The compaction
+ * cannot be spread over several calls, since it moves every position of
+ * the text, and the tree is modified between calls.
+ */
+
+public final class SlidingWindow {
+
+    /**
+     * the tree in which the strings are added
+     */
+
+    private SuffixTree myTree;
+
+    private TreeBuilder builder;
+
+    private TreePruner pruner;
+
+    /**
+     * the maximum total length of the strings of the tree
+     */
+
+    private int maxLength;
+
+    /**
+     * the maximum number of strings of the tree
+     */
+
+    private int maxTokens;
+
+    /**
+     * @stereotype constructor
+     */
+
+    public SlidingWindow(SuffixTree tree, int maxLength, int maxTokens) {
+        this.myTree = tree;
+        this.builder = new TreeBuilder(tree);
+        this.pruner = new TreePruner(tree);
+        this.maxLength = maxLength;
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Adds a string to the tree, as TreeBuilder does, then removes the
+     * oldest strings that do not fit in the budget. Returns the index of
+     * the string, or -1 if it has chars that are not in the alphabet.
+     */
+
+    public final int addToken(String token) {
+        ListOfTokens tokens = this.myTree.getTokens();
+        int seen = tokens.indexOf(token);
+        if (seen != -1) {
+            this.pruner.removeToken(seen);
+        }
+        int index = this.builder.addToken(token);
+        while (tokens.getNoLiveTokens() > 1 &&
+               (tokens.getLiveLength() > this.maxLength || tokens.getNoLiveTokens() > this.maxTokens)) {
+            this.pruner.removeToken(tokens.getOldestToken());
+        }
+        return index;
+    }
+
+}
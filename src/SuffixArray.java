@@ -0,0 +1,365 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+
+/**
+ * The suffix array of a collection of strings, and its LCP array.
+ *
+ * The suffix array is built in linear time with the SA-IS algorithm of
+ * Nong, Zhang and Chan (induced sorting), and the LCP array with the
+ * algorithm of Kasai et al. Both are plain int arrays, about 8 bytes per
+ * char: a smaller index than the tree, for the callers that only need to
+ * search sorted suffixes.
+ *
+ * Like the tree, the suffixes are those of each string: the strings must
+ * end with a terminator, such as '$', that appears nowhere else, and the
+ * common prefix of two suffixes stops at the end of their strings. Two
+ * strings may thus have equal suffixes; they are next to each other in
+ * the suffix array, and their LCP is their length.
+ */
+
+public final class SuffixArray {
+
+    /**
+     * the strings
+     */
+
+    private ListOfTokens tokens;
+
+    /**
+     * position of the first char of the first string indexed
+     */
+
+    private int from;
+
+    /**
+     * suffixArray[r] is the position of the suffix of rank r
+     */
+
+    private int[] suffixArray;
+
+    /**
+     * lcp[r] is the length of the longest common prefix of the suffixes of
+     * ranks r - 1 and r; lcp[0] is 0
+     */
+
+    private int[] lcp;
+
+    /**
+     * Indexes the strings of tokens; the strings already seen, and those
+     * that have chars outside of alphabet, are skipped. An empty alphabet
+     * allows all the characters.
+     * @stereotype constructor
+     */
+
+    public SuffixArray(String alphabet, String[] tokens) {
+        this.tokens = new ListOfTokens(alphabet);
+        for (int i = 0; i < tokens.length; i++) {
+            this.tokens.insertToken(tokens[i]);
+        }
+        this.from = 0;
+        this.build();
+    }
+
+    /**
+     * Indexes the suffixes that start at from or after, up to the end of
+     * tokens; from is the first char of a string.
+     * @stereotype constructor
+     */
+
+    SuffixArray(ListOfTokens tokens, int from) {
+        this.tokens = tokens;
+        this.from = from;
+        this.build();
+    }
+
+    /**
+     * Returns the suffix array: the positions of the suffixes, in
+     * increasing order of the suffixes. The position of a char is counted
+     * from the first char of the first string. The array is not copied.
+     */
+
+    public final int[] getSuffixArray() {
+        return this.suffixArray;
+    }
+
+    /**
+     * Returns the LCP array: the length of the longest common prefix of
+     * each suffix and of the previous one in the suffix array. The array
+     * is not copied.
+     */
+
+    public final int[] getLCP() {
+        return this.lcp;
+    }
+
+    /**
+     * returns the number of suffixes
+     */
+
+    public final int size() {
+        return this.suffixArray.length;
+    }
+
+    /**
+     * returns the length chars at position, as a string
+     */
+
+    public final String getSubstring(int position, int length) {
+        return this.tokens.getSubstring(position, length);
+    }
+
+    /**
+     * returns the index of the string that contains position
+     */
+
+    public final int getIndex(int position) {
+        return this.tokens.getIndex(position);
+    }
+
+    /**
+     * returns the position of the first char of the string at indexToken
+     */
+
+    public final int getStart(int indexToken) {
+        return this.tokens.getStart(indexToken);
+    }
+
+    private void build() {
+        int n = this.tokens.getTotalLength() - this.from;
+
+        /**
+         * the symbols are shifted by one, to leave 0 for the sentinel that
+         * SA-IS needs at the end of the text, and by the end markers of
+         * the tokens of int symbols, which are negative
+         */
+        int[] s = new int[n + 1];
+        int min = 0;
+        for (int i = 0; i < n; i++) {
+            s[i] = this.tokens.symbolAt(this.from + i);
+            if (s[i] < min) {
+                min = s[i];
+            }
+        }
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            s[i] += 1 - min;
+            if (s[i] > k) {
+                k = s[i];
+            }
+        }
+        s[n] = 0;
+        int[] sa = new int[n + 1];
+        sais(s, sa, n + 1, k + 1);
+
+        this.suffixArray = new int[n];
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            this.suffixArray[r] = sa[r + 1] + this.from;
+            rank[sa[r + 1]] = r;
+        }
+        sa = null;
+
+        /**
+         * Kasai et al.: the LCP of the suffix at i + 1 is at least the LCP
+         * of the suffix at i minus one. It stops at the end of the string
+         * of i: if the two suffixes match up to the terminator, they have
+         * the same length.
+         */
+        this.lcp = new int[n];
+        int indexToken = (n > 0) ? this.tokens.getIndex(this.from) : 0;
+        int end = this.tokens.getStart(indexToken + 1) - this.from;
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            while (i == end) {
+                indexToken++;
+                end = this.tokens.getStart(indexToken + 1) - this.from;
+                h = 0;
+            }
+            int r = rank[i];
+            if (r == 0) {
+                h = 0;
+                continue;
+            }
+            int j = this.suffixArray[r - 1] - this.from;
+            while (i + h < end && s[i + h] == s[j + h]) {
+                h++;
+            }
+            this.lcp[r] = h;
+            if (h > 0) {
+                h--;
+            }
+        }
+    }
+
+    /**
+     * SA-IS: sorts the suffixes of s[0..n-1], whose symbols are in
+     * [0..k-1], into sa. The last symbol must be 0, and appear nowhere
+     * else.
+     *
+     * A suffix is of type S if it is smaller than the next suffix, L
+     * otherwise; it is LMS (leftmost S) if it is of type S, and the
+     * previous one of type L. Once the LMS suffixes are sorted, the
+     * others are sorted by induction: the L suffixes by a scan from left
+     * to right, the S suffixes by a scan from right to left. The LMS
+     * suffixes are sorted by sorting, recursively, the string of the names
+     * of their LMS substrings, which is at most half as long.
+     */
+
+    private static void sais(int[] s, int[] sa, int n, int k) {
+        boolean[] isS = new boolean[n];
+        isS[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--) {
+            isS[i] = (s[i] < s[i + 1]) || (s[i] == s[i + 1] && isS[i + 1]);
+        }
+        int[] bucket = new int[k];
+
+        /**
+         * first, the LMS substrings are sorted by induction
+         */
+        Arrays.fill(sa, 0, n, -1);
+        bucketEnds(s, bucket, n, k);
+        for (int i = 1; i < n; i++) {
+            if (isS[i] && !isS[i - 1]) {
+                sa[--bucket[s[i]]] = i;
+            }
+        }
+        induce(s, sa, isS, bucket, n, k);
+
+        /**
+         * gather the sorted LMS substrings at the beginning of sa, and
+         * name them: two equal LMS substrings get the same name
+         */
+        int n1 = 0;
+        for (int i = 0; i < n; i++) {
+            int p = sa[i];
+            if (p > 0 && isS[p] && !isS[p - 1]) {
+                sa[n1++] = p;
+            }
+        }
+        Arrays.fill(sa, n1, n, -1);
+        int name = 0;
+        int previous = -1;
+        for (int i = 0; i < n1; i++) {
+            int p = sa[i];
+            boolean differ = false;
+            for (int d = 0; ; d++) {
+                if (previous == -1 || s[p + d] != s[previous + d] ||
+                    isS[p + d] != isS[previous + d]) {
+                    differ = true;
+                    break;
+                }
+                if (d > 0 && isS[p + d] && !isS[p + d - 1]) {
+                    break;
+                }
+            }
+            if (differ) {
+                name++;
+                previous = p;
+            }
+            sa[n1 + (p >> 1)] = name - 1;
+        }
+
+        /**
+         * the reduced string: the names of the LMS substrings, in the order
+         * of the text
+         */
+        int[] s1 = new int[n1];
+        int[] lms = new int[n1];
+        for (int i = n1 + ((n - 1) >> 1), j = n1 - 1; i >= n1; i--) {
+            if (sa[i] >= 0) {
+                s1[j--] = sa[i];
+            }
+        }
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isS[i] && !isS[i - 1]) {
+                lms[j++] = i;
+            }
+        }
+        int[] sa1 = new int[n1];
+        if (name < n1) {
+            sais(s1, sa1, n1, name);
+        } else {
+            for (int i = 0; i < n1; i++) {
+                sa1[s1[i]] = i;
+            }
+        }
+        s1 = null;
+
+        /**
+         * then, the suffixes are sorted by induction from the sorted LMS
+         * suffixes
+         */
+        Arrays.fill(sa, 0, n, -1);
+        bucketEnds(s, bucket, n, k);
+        for (int i = n1 - 1; i >= 0; i--) {
+            int p = lms[sa1[i]];
+            sa[--bucket[s[p]]] = p;
+        }
+        induce(s, sa, isS, bucket, n, k);
+    }
+
+    /**
+     * sorts the L suffixes, then the S suffixes, from the LMS suffixes in sa
+     */
+
+    private static void induce(int[] s, int[] sa, boolean[] isS, int[] bucket, int n, int k) {
+        bucketStarts(s, bucket, n, k);
+        for (int i = 0; i < n; i++) {
+            int j = sa[i] - 1;
+            if (j >= 0 && !isS[j]) {
+                sa[bucket[s[j]]++] = j;
+            }
+        }
+        bucketEnds(s, bucket, n, k);
+        for (int i = n - 1; i >= 0; i--) {
+            int j = sa[i] - 1;
+            if (j >= 0 && isS[j]) {
+                sa[--bucket[s[j]]] = j;
+            }
+        }
+    }
+
+    /**
+     * bucket[c] is the position in sa of the first suffix that starts with c
+     */
+
+    private static void bucketStarts(int[] s, int[] bucket, int n, int k) {
+        Arrays.fill(bucket, 0, k, 0);
+        for (int i = 0; i < n; i++) {
+            bucket[s[i]]++;
+        }
+        int sum = 0;
+        for (int c = 0; c < k; c++) {
+            int count = bucket[c];
+            bucket[c] = sum;
+            sum += count;
+        }
+    }
+
+    /**
+     * bucket[c] is the position in sa after the last suffix that starts
+     * with c
+     */
+
+    private static void bucketEnds(int[] s, int[] bucket, int n, int k) {
+        Arrays.fill(bucket, 0, k, 0);
+        for (int i = 0; i < n; i++) {
+            bucket[s[i]]++;
+        }
+        int sum = 0;
+        for (int c = 0; c < k; c++) {
+            sum += bucket[c];
+            bucket[c] = sum;
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Adds many strings to a tree from their suffix array, rather than with
+ * Ukkonen algorithm. The suffix array and the LCP array are scanned once
+ * from left to right: the sorted suffixes are the leaves of the tree from
+ * left to right, and the LCP of two consecutive suffixes is the depth of
+ * their lowest common ancestor. The arrays are read sequentially, which
+ * suits large collections of strings better than following the links of
+ * the tree for each char.
+ *
+ * The tree is the one TreeBuilder builds: the same nodes, with the same
+ * suffix links, and the children in decreasing order of their first char.
+ * Like TreeBuilder, the strings must end with a terminator, such as '$',
+ * that appears nowhere else.
+ */
+
+public final class SuffixArrayBuilder {
+
+    /**
+     * the tree in which the strings are added
+     */
+
+    private SuffixTree myTree;
+
+    /**
+     * the internal nodes of the rightmost path of the tree being built,
+     * and their depth (the length of the string from the root)
+     */
+
+    private InternalNode[] path;
+
+    private int[] depths;
+
+    private int size;
+
+    /**
+     * @stereotype constructor
+     */
+
+    public SuffixArrayBuilder(SuffixTree tree) {
+        this.myTree = tree;
+        this.path = new InternalNode[64];
+        this.depths = new int[64];
+        this.size = 0;
+    }
+
+    /**
+     * adds the strings to the tree this builder is constructed for; the
+     * strings already in the tree, and those that do not have the proper
+     * alphabet, are skipped. Returns the suffix array of the strings
+     * added.
+     */
+
+    public final SuffixArray addTokens(String[] tokens) {
+        int from = this.myTree.getTotalLength();
+        for (int i = 0; i < tokens.length; i++) {
+            this.myTree.addToken(tokens[i]);
+        }
+        SuffixArray array = new SuffixArray(this.myTree.getTokens(), from);
+
+        /**
+         * the tree of the new strings is built apart, then merged into the
+         * tree; when the tree is empty, the merge only moves the children
+         * of the root
+         */
+        SuffixTree partial = new SuffixTree(this.myTree);
+        this.build(partial, array);
+        NodeInterface child = (NodeInterface) partial.getRoot().getFirstChild();
+        while (child != null) {
+            NodeInterface next = (NodeInterface) child.getRightSybling();
+            ParallelTreeBuilder.merge(this.myTree, this.myTree.getRoot(), child);
+            child = next;
+        }
+
+        int noNodes = new SuffixLinker(this.myTree).linkAll();
+        this.myTree.updateNoNodes(noNodes - this.myTree.getNoNodes());
+        return array;
+    }
+
+    /**
+     * builds the tree of the suffixes of array below the root of tree
+     */
+
+    private void build(SuffixTree tree, SuffixArray array) {
+        int[] suffixArray = array.getSuffixArray();
+        int[] lcp = array.getLCP();
+        int n = suffixArray.length;
+        if (n == 0) {
+            return;
+        }
+        this.size = 0;
+        this.push(tree.getRoot(), 0);
+
+        int indexToken = tree.getIndex(suffixArray[0]);
+        int end = tree.getStart(indexToken + 1);
+        LeafNode leaf = null;
+        for (int r = 0; r < n; r++) {
+            int position = suffixArray[r];
+            if (position < tree.getStart(indexToken) || position >= end) {
+                indexToken = tree.getIndex(position);
+                end = tree.getStart(indexToken + 1);
+            }
+            int length = end - position;
+            if (r > 0) {
+                int common = lcp[r];
+                if (common == length) {
+                    /**
+                     * the same suffix as the previous one, in another string
+                     */
+                    leaf.addCoordinates(position, tree);
+                    continue;
+                }
+
+                /**
+                 * the nodes deeper than common are complete
+                 */
+                while (this.depths[this.size - 1] > common) {
+                    this.size--;
+                    this.path[this.size] = null;
+                }
+
+                /**
+                 * common falls in the branch of the last child of the top
+                 * node: split it
+                 */
+                InternalNode top = this.path[this.size - 1];
+                int depth = this.depths[this.size - 1];
+                if (depth < common) {
+                    NodeInterface last = (NodeInterface) top.getFirstChild();
+                    InternalNode split = new InternalNode(last.getLeftIndex(), common - depth,
+                                                          last.getRightSybling(), null);
+                    top.replaceChild(tree.symbolAt(last.getLeftIndex()), split, tree);
+                    if (last instanceof InternalNode) {
+                        ((InternalNode) last).setLeftIndex(last.getLeftIndex() + common - depth);
+                        ((InternalNode) last).setLength(last.getLength() - common + depth);
+                    } else {
+                        ((LeafNode) last).setLeftIndex(last.getLeftIndex() + common - depth);
+                        ((LeafNode) last).setLength(last.getLength() - common + depth);
+                    }
+                    InternalNode.setRightSybling(last, null);
+                    split.setFirstChild(last);
+                    this.push(split, common);
+                }
+            }
+
+            /**
+             * the suffixes come in increasing order: the new leaf is the
+             * first child of the deepest node of the path
+             */
+            InternalNode top = this.path[this.size - 1];
+            int depth = this.depths[this.size - 1];
+            leaf = new LeafNode(position + depth, length - depth, null);
+            leaf.addCoordinates(position, tree);
+            top.addChild(tree.symbolAt(position + depth), leaf, tree);
+        }
+        while (this.size > 0) {
+            this.size--;
+            this.path[this.size] = null;
+        }
+    }
+
+    private void push(InternalNode node, int depth) {
+        if (this.size == this.path.length) {
+            InternalNode[] tempPath = new InternalNode[2 * this.size];
+            int[] tempDepths = new int[2 * this.size];
+            System.arraycopy(this.path, 0, tempPath, 0, this.size);
+            System.arraycopy(this.depths, 0, tempDepths, 0, this.size);
+            this.path = tempPath;
+            this.depths = tempDepths;
+        }
+        this.path[this.size] = node;
+        this.depths[this.size] = depth;
+        this.size++;
+    }
+
+}
@@ -22,7 +22,7 @@ final class SuffixCoordinates {
      * first string added to the tree
      */
 
-    private final int position;
+    private int position;
 
     /**
      * the next coordinate object
@@ -47,6 +47,14 @@ final class SuffixCoordinates {
         return position;
     }
 
+    /**
+     * sets the position of the suffix, when the strings are moved
+     */
+
+    final void setPosition(int position) {
+        this.position = position;
+    }
+
     /**
      * returns the next coordinate object
      */
@@ -55,12 +63,21 @@ final class SuffixCoordinates {
         return nextCoordinates;
     }
 
-    public String toString() {
+    /**
+     * sets the next coordinate object
+     */
+
+    final void setNext(SuffixCoordinates nextCoordinates) {
+        this.nextCoordinates = nextCoordinates;
+    }
 
-        if (nextCoordinates == null)
-            return Integer.toString(position);
-        else
-            return position + ", " + nextCoordinates.toString();
+    public String toString() {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append(this.position);
+        for (SuffixCoordinates temp = this.nextCoordinates; temp != null; temp = temp.nextCoordinates) {
+            buffer.append(", ").append(temp.position);
+        }
+        return buffer.toString();
     }
 
 }
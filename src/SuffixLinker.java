@@ -0,0 +1,123 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Sets the suffix links of a tree that was not built by TreeBuilder, or
+ * whose links are no longer valid. The nodes are visited from the top:
+ * the suffix link of a node is found by walking down its branch label
+ * from the suffix link of its parent, with the skip/count trick.
+ *
+ * The subtrees of the children of the root can be linked concurrently,
+ * by one SuffixLinker each, as long as the tree is not modified.
+ */
+
+final class SuffixLinker {
+
+    private final SuffixTree tree;
+
+    /**
+     * the nodes still to visit, and their parents
+     */
+
+    private NodeInterface[] nodes;
+
+    private InternalNode[] parents;
+
+    private int size;
+
+    /**
+     * @stereotype constructor 
+     */
+
+    SuffixLinker(SuffixTree tree) {
+        this.tree = tree;
+        this.nodes = new NodeInterface[64];
+        this.parents = new InternalNode[64];
+        this.size = 0;
+    }
+
+    /**
+     * sets the suffix links of all the internal nodes of the tree; returns
+     * the number of nodes of the tree
+     */
+
+    final int linkAll() {
+        int count = 1;
+        NodeInterface child = (NodeInterface) this.tree.getRoot().getFirstChild();
+        for (; child != null; child = (NodeInterface) child.getRightSybling()) {
+            count += this.link(child);
+        }
+        return count;
+    }
+
+    /**
+     * sets the suffix links of the internal nodes below top, a child of the
+     * root, and of top itself; returns the number of nodes below top, top
+     * included
+     */
+
+    final int link(NodeInterface top) {
+        InternalNode root = this.tree.getRoot();
+        int count = 0;
+        this.push(top, root);
+        while (this.size > 0) {
+            this.size--;
+            NodeInterface node = this.nodes[this.size];
+            InternalNode parent = this.parents[this.size];
+            this.nodes[this.size] = null;
+            this.parents[this.size] = null;
+            count++;
+            if (node instanceof InternalNode) {
+                InternalNode v = (InternalNode) node;
+                if (parent == root) {
+                    v.setSuffixLink(this.walkDown(root, v.getLeftIndex() + 1, v.getLength() - 1));
+                } else {
+                    v.setSuffixLink(this.walkDown((InternalNode) parent.getSuffixLink(),
+                                                  v.getLeftIndex(), v.getLength()));
+                }
+                NodeInterface child = (NodeInterface) v.getFirstChild();
+                for (; child != null; child = (NodeInterface) child.getRightSybling()) {
+                    this.push(child, v);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * returns the node found length chars below node, following the chars
+     * from position; there is always a node there in a suffix tree
+     */
+
+    private InternalNode walkDown(InternalNode node, int position, int length) {
+        while (length > 0) {
+            NodeInterface child = node.getChild(this.tree.symbolAt(position), this.tree);
+            position += child.getLength();
+            length -= child.getLength();
+            node = (InternalNode) child;
+        }
+        return node;
+    }
+
+    private void push(NodeInterface node, InternalNode parent) {
+        if (this.size == this.nodes.length) {
+            NodeInterface[] tempNodes = new NodeInterface[2 * this.size];
+            InternalNode[] tempParents = new InternalNode[2 * this.size];
+            System.arraycopy(this.nodes, 0, tempNodes, 0, this.size);
+            System.arraycopy(this.parents, 0, tempParents, 0, this.size);
+            this.nodes = tempNodes;
+            this.parents = tempParents;
+        }
+        this.nodes[this.size] = node;
+        this.parents[this.size] = parent;
+        this.size++;
+    }
+
+}
@@ -8,7 +8,9 @@
  * Contact: turcotte@site.uottawa.ca
  */
 
-public final class SuffixTree {
+import java.nio.ByteBuffer;
+
+public final class SuffixTree implements TreeInterface {
 
     /**
      * the root of the tree
@@ -34,32 +36,468 @@ public final class SuffixTree {
 
     private int noNodes;
 
+    /**
+     * the number of suffixes below each node and their smallest position,
+     * as set by Annotation.addLeafCount and Annotation.addFirstPosition;
+     * null if the tree changed since
+     */
+
+    private AnnotationTable annotations;
+
+    /**
+     * the positions of the leaves that have more than one suffix; shared
+     * with the partial trees, as the strings are
+     */
+
+    private CoordinatePool coordinates;
+
     /**
      * Alphabet specifies what characters are allowed in the strings added to the suffix tree.
+     * An empty alphabet allows all the characters. The strings of an alphabet of
+     * 256 characters or fewer are stored packed, with at most 8 bits per character.
      * @stereotype constructor 
      */
 
     public SuffixTree(String alphabet) {
         this.alphabet = alphabet;
         this.root = new InternalNode();
-        this.tokens = new ListOfTokens();
+        this.tokens = new ListOfTokens(alphabet);
+        this.coordinates = new CoordinatePool();
+        this.noNodes = 1;
+    }
+
+    /**
+     * A tree of sequences of int symbols, from 0 to noSymbols - 1, such as
+     * the ids of the words of a vocabulary, instead of strings. The
+     * sequences are added by TreeBuilder.addToken(int[]), which ends each
+     * with its own end marker, smaller than all the symbols, and queried
+     * by the methods that take int[] patterns; the methods that take
+     * chars throw an IllegalStateException.
+     * @stereotype constructor 
+     */
+
+    public SuffixTree(int noSymbols) {
+        this.alphabet = "";
+        this.root = new InternalNode();
+        this.tokens = new ListOfTokens(noSymbols);
+        this.coordinates = new CoordinatePool();
+        this.noNodes = 1;
+    }
+
+    /**
+     * A tree of strings of chars from 0 to 255, stored as bytes: ASCII or
+     * Latin-1 text is read as it is, and UTF-8 text byte by byte. The
+     * strings start with the bytes of buffer, from its position to its
+     * limit, such as a mapped file, which are read without being copied
+     * or decoded; TreeBuilder.addTokens(char) adds them.
+     * @stereotype constructor 
+     */
+
+    public SuffixTree(ByteBuffer buffer) {
+        this.alphabet = "";
+        this.root = new InternalNode();
+        this.tokens = new ListOfTokens(buffer);
+        this.coordinates = new CoordinatePool();
+        this.noNodes = 1;
+    }
+
+    /**
+     * Creates an empty tree over the same strings as tree; used to build
+     * parts of a tree that are merged afterwards.
+     * @stereotype constructor 
+     */
+
+    SuffixTree(SuffixTree tree) {
+        this.alphabet = tree.alphabet;
+        this.root = new InternalNode();
+        this.tokens = tree.tokens;
+        this.coordinates = tree.coordinates;
         this.noNodes = 1;
     }
 
     /**
-     * adds a new string to the suffix tree 
+     * adds a new string to the suffix tree; returns its index, or -1 if
+     * the string is already in the tree
      */
-    final int addToken(String token) {
+    final int addToken(CharSequence token) {
+        this.checkChars();
         return this.tokens.insertToken(token);
     }
 
+    /**
+     * adds a new sequence of int symbols to the suffix tree; returns its
+     * index, or -1 if the sequence is already in the tree
+     */
+    final int addToken(int[] symbols) {
+        this.checkSymbols();
+        return this.tokens.insertToken(symbols);
+    }
+
+    /**
+     * throws an IllegalStateException if the tree holds int symbols, which
+     * cannot be added or searched as chars
+     */
+    final void checkChars() {
+        if (this.tokens.getNoSymbols() > 0) {
+            throw new IllegalStateException("the tree holds int symbols: use the int[] methods");
+        }
+    }
+
+    /**
+     * throws an IllegalStateException if the tree holds chars
+     */
+    final void checkSymbols() {
+        if (this.tokens.getNoSymbols() == 0) {
+            throw new IllegalStateException("the tree holds chars: use the CharSequence methods");
+        }
+    }
+
+    /**
+     * Removes the string at tokenIndex, the index returned by
+     * TreeBuilder.addToken, with its suffixes; returns false if there is
+     * no such string. The nodes left with a single child are spliced out,
+     * and the suffix links of the other nodes stay valid. Takes time
+     * proportional to the length of the string, plus, now and then, a
+     * compaction of the strings, in time proportional to the size of the
+     * tree, once as many chars were removed as remain.
+     */
+    public final boolean removeToken(int tokenIndex) {
+        return new TreePruner(this).removeToken(tokenIndex);
+    }
+
+    /**
+     * returns true if pattern is a substring of one of the strings of the
+     * tree; no object is created
+     */
+    public final boolean contains(CharSequence pattern) {
+        NodeInterface node = this.find(pattern);
+        return node != null && (node != this.root || this.root.getFirstChild() != null);
+    }
+
+    /**
+     * Returns the smallest position where pattern is found, counted from
+     * the first char of the first string, or -1 if it is not found. After
+     * Annotation.addFirstPosition, it takes time proportional to the
+     * length of pattern; otherwise, the leaves below the end of pattern
+     * are visited.
+     */
+    public final int firstOccurrence(CharSequence pattern) {
+        NodeInterface node = this.find(pattern);
+        return (node == null) ? -1 : this.firstPosition(node);
+    }
+
+    /**
+     * Returns the number of positions where pattern is found. After
+     * Annotation.addLeafCount, it takes time proportional to the length
+     * of pattern; otherwise, the leaves below the end of pattern are
+     * visited.
+     */
+    public final int count(CharSequence pattern) {
+        NodeInterface node = this.find(pattern);
+        if (node == null) {
+            return 0;
+        } else if (this.hasColumn(AnnotationTable.LEAF_COUNT)) {
+            return this.annotations.getLeafCount(this.annotations.getId(node));
+        }
+        return this.collect(node, null);
+    }
+
+    /**
+     * Returns the coordinates of the positions where pattern is found, in
+     * increasing order, or null if it is not found. The leaves are visited
+     * once.
+     */
+    public final SuffixCoordinates findAll(CharSequence pattern) {
+        NodeInterface node = this.find(pattern);
+        if (node == null) {
+            return null;
+        }
+        SuffixCoordinates head = new SuffixCoordinates(-1, null);
+        int[] positions = new int[this.walk(node, null, head, false)];
+        return ArraySuffixTree.sort(head.getNext(), positions);
+    }
+
+    /**
+     * Puts the positions where pattern is found in positions, in no
+     * particular order, as many as it holds, and returns their number,
+     * which can be larger than positions.length.
+     */
+    public final int findAll(CharSequence pattern, int[] positions) {
+        NodeInterface node = this.find(pattern);
+        return (node == null) ? 0 : this.collect(node, positions);
+    }
+
+    /**
+     * Returns the node at or below the end of the path of pattern, or null
+     * if there is no such path. Each char of pattern is encoded once, and
+     * compared with the branches in place.
+     */
+    final NodeInterface find(CharSequence pattern) {
+        this.checkChars();
+        NodeInterface node = this.root;
+        int matched = 0;
+        int patternLen = pattern.length();
+        while (matched < patternLen) {
+            if (!(node instanceof InternalNode)) {
+                return null;
+            }
+            int symbol = this.tokens.encode(pattern.charAt(matched));
+            if (symbol == -1) {
+                return null;
+            }
+            node = ((InternalNode) node).getChild(symbol, this);
+            if (node == null) {
+                return null;
+            }
+            int max = Math.min(node.getLength(), patternLen - matched);
+            if (this.tokens.getLCE(pattern, matched, node.getLeftIndex(), max) < max) {
+                return null;
+            }
+            matched += max;
+        }
+        return node;
+    }
+
+    /**
+     * returns true if the sequence of int symbols pattern is found in one
+     * of the sequences of the tree
+     */
+    public final boolean contains(int[] pattern) {
+        NodeInterface node = this.find(pattern);
+        return node != null && (node != this.root || this.root.getFirstChild() != null);
+    }
+
+    /**
+     * Returns the smallest position where the sequence of int symbols
+     * pattern is found, counted from the first symbol of the first
+     * sequence, or -1 if it is not found.
+     */
+    public final int firstOccurrence(int[] pattern) {
+        NodeInterface node = this.find(pattern);
+        return (node == null) ? -1 : this.firstPosition(node);
+    }
+
+    /**
+     * Returns the number of positions where the sequence of int symbols
+     * pattern is found, as count does for chars.
+     */
+    public final int count(int[] pattern) {
+        NodeInterface node = this.find(pattern);
+        if (node == null) {
+            return 0;
+        } else if (this.hasColumn(AnnotationTable.LEAF_COUNT)) {
+            return this.annotations.getLeafCount(this.annotations.getId(node));
+        }
+        return this.collect(node, null);
+    }
+
+    /**
+     * Returns the coordinates of the positions where the sequence of int
+     * symbols pattern is found, in increasing order, or null if it is not
+     * found.
+     */
+    public final SuffixCoordinates findAll(int[] pattern) {
+        NodeInterface node = this.find(pattern);
+        if (node == null) {
+            return null;
+        }
+        SuffixCoordinates head = new SuffixCoordinates(-1, null);
+        int[] positions = new int[this.walk(node, null, head, false)];
+        return ArraySuffixTree.sort(head.getNext(), positions);
+    }
+
+    /**
+     * Puts the positions where the sequence of int symbols pattern is
+     * found in positions, in no particular order, as many as it holds, and
+     * returns their number, which can be larger than positions.length.
+     */
+    public final int findAll(int[] pattern, int[] positions) {
+        NodeInterface node = this.find(pattern);
+        return (node == null) ? 0 : this.collect(node, positions);
+    }
+
+    /**
+     * Returns the node at or below the end of the path of the int symbols
+     * of pattern, or null if there is no such path. A symbol that is not
+     * from 0 to noSymbols - 1 is found nowhere, so that the end markers
+     * cannot be matched.
+     */
+    final NodeInterface find(int[] pattern) {
+        this.checkSymbols();
+        int noSymbols = this.tokens.getNoSymbols();
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i] < 0 || pattern[i] >= noSymbols) {
+                return null;
+            }
+        }
+        NodeInterface node = this.root;
+        int matched = 0;
+        while (matched < pattern.length) {
+            if (!(node instanceof InternalNode)) {
+                return null;
+            }
+            node = ((InternalNode) node).getChild(pattern[matched], this);
+            if (node == null) {
+                return null;
+            }
+            int max = Math.min(node.getLength(), pattern.length - matched);
+            if (this.tokens.getLCE(pattern, matched, node.getLeftIndex(), max) < max) {
+                return null;
+            }
+            matched += max;
+        }
+        return node;
+    }
+
+    /**
+     * returns the smallest position of the suffixes below node, or -1; it
+     * is read from the annotations if they have it
+     */
+    final int firstPosition(NodeInterface node) {
+        int first;
+        if (this.hasColumn(AnnotationTable.FIRST_POSITION)) {
+            first = this.annotations.getFirstPosition(this.annotations.getId(node));
+        } else {
+            first = this.walk(node, null, null, true);
+        }
+        return (first == Integer.MAX_VALUE) ? -1 : first;
+    }
+
+    /**
+     * puts the positions of the suffixes below node in positions, if it is
+     * not null, as many as it holds, and returns their number
+     */
+    final int collect(NodeInterface node, int[] positions) {
+        return this.walk(node, positions, null, false);
+    }
+
+    /**
+     * Visits the leaves below node, with a stack of the syblings still to
+     * visit. The positions are put in positions, as many as it holds, if
+     * it is not null, and prepended to the list after head, if it is not
+     * null. Returns the smallest position if first is true, the number of
+     * positions otherwise.
+     */
+    private int walk(NodeInterface node, int[] positions, SuffixCoordinates head, boolean first) {
+        int min = Integer.MAX_VALUE;
+        int count = 0;
+        NodeInterface[] stack = null;
+        int size = 0;
+        while (true) {
+            Object child = (node instanceof InternalNode) ? ((InternalNode) node).getFirstChild() : null;
+            if (child == null) {
+                if (node instanceof LeafNode) {
+                    int coordinates = ((LeafNode) node).getPositions();
+                    int cell = (coordinates >= 0) ? CoordinatePool.NONE : -1 - coordinates;
+                    int position = (coordinates >= 0) ? coordinates : this.coordinates.getPosition(cell);
+                    while (true) {
+                        min = Math.min(min, position);
+                        if (positions != null && count < positions.length) {
+                            positions[count] = position;
+                        }
+                        if (head != null) {
+                            head.setNext(new SuffixCoordinates(position, head.getNext()));
+                        }
+                        count++;
+                        if (cell == CoordinatePool.NONE || (cell = this.coordinates.getNext(cell)) == CoordinatePool.NONE) {
+                            break;
+                        }
+                        position = this.coordinates.getPosition(cell);
+                    }
+                }
+                if (size == 0) {
+                    break;
+                }
+                node = stack[--size];
+                continue;
+            }
+            node = (NodeInterface) child;
+            for (child = node.getRightSybling(); child != null; child = ((NodeInterface) child).getRightSybling()) {
+                if (stack == null || size == stack.length) {
+                    NodeInterface[] temp = new NodeInterface[(stack == null) ? 32 : 2 * size];
+                    if (stack != null) {
+                        System.arraycopy(stack, 0, temp, 0, size);
+                    }
+                    stack = temp;
+                }
+                stack[size++] = (NodeInterface) child;
+            }
+        }
+        return first ? min : count;
+    }
+
     /**
      * returns the root of the tree
      */
-    final InternalNode getRoot() {
+    public final InternalNode getRoot() {
         return this.root;
     }
 
+    /**
+     * returns the first child of node, or null for a leaf
+     */
+    public final NodeInterface getFirstChild(NodeInterface node) {
+        return (node instanceof InternalNode) ? (NodeInterface) ((InternalNode) node).getFirstChild() : null;
+    }
+
+    /**
+     * returns the coordinates of the leaf node, or null for an internal node
+     */
+    public final SuffixCoordinates getCoordinates(NodeInterface node) {
+        return (node instanceof LeafNode) ? ((LeafNode) node).getCoordinates(this) : null;
+    }
+
+    /**
+     * returns the number of suffixes that end at the leaf node, or 0 for
+     * an internal node; no object is created
+     */
+    public final int getNoCoordinates(NodeInterface node) {
+        return (node instanceof LeafNode) ? ((LeafNode) node).getNoCoordinates() : 0;
+    }
+
+    /**
+     * Puts the positions of the suffixes that end at the leaf node in
+     * positions, most recent first, as many as it holds, and returns their
+     * number, which can be larger than positions.length; returns 0 for an
+     * internal node. No object is created, so one array can be reused for
+     * all the leaves.
+     */
+    public final int getPositions(NodeInterface node, int[] positions) {
+        if (!(node instanceof LeafNode) || ((LeafNode) node).getNoCoordinates() == 0) {
+            return 0;
+        }
+        int coordinates = ((LeafNode) node).getPositions();
+        if (coordinates >= 0) {
+            if (positions.length > 0) {
+                positions[0] = coordinates;
+            }
+            return 1;
+        }
+        int count = 0;
+        for (int cell = -1 - coordinates; cell != CoordinatePool.NONE; cell = this.coordinates.getNext(cell)) {
+            if (count < positions.length) {
+                positions[count] = this.coordinates.getPosition(cell);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * returns the label of the branch leading to node
+     */
+    public final String getLabel(NodeInterface node) {
+        return this.tokens.getLabel(node.getLeftIndex(), node.getLength());
+    }
+
+    /**
+     * returns the int symbols starting at leftIndex and having length
+     * length, in a tree of int symbols
+     */
+    final int[] getSymbols(int leftIndex, int length) {
+        return this.tokens.getSymbols(leftIndex, length);
+    }
+
     /**
      * returns the substring starting at leftIndex and having length length
      * from the string collection
@@ -80,6 +518,32 @@ public final class SuffixTree {
         return tokens.getLCE(pattern, pos, node.getLeftIndex(), node.getLength());
     }
 
+    /**
+     * returns the char at position, counted from the first char of the first
+     * string; used instead of getSubstring when a single char is needed
+     */
+
+    final char charAt(int position) {
+        return this.tokens.charAt(position);
+    }
+
+    /**
+     * returns the symbol at position; symbols are ordered as the chars
+     */
+
+    final int symbolAt(int position) {
+        return this.tokens.symbolAt(position);
+    }
+
+    /**
+     * Returns the length of the Longest Common Extension (LCE) of the
+     * positions i and j of the string collection, up to length chars.
+     */
+
+    final int getLCE(int i, int j, int length) {
+        return this.tokens.getLCE(i, j, length);
+    }
+
     /**
      * returns the suffix starting at leftIndex 
      */
@@ -96,6 +560,30 @@ public final class SuffixTree {
         return this.tokens.getStart(indexToken);
     }
 
+    /**
+     * returns the strings of the tree
+     */
+
+    final ListOfTokens getTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * returns the positions of the leaves that have more than one suffix
+     */
+
+    final CoordinatePool getCoordinatePool() {
+        return this.coordinates;
+    }
+
+    /**
+     * returns the length of the token at indexToken
+     */
+
+    final int getTokenLength(int indexToken) {
+        return this.tokens.getStart(indexToken + 1) - this.tokens.getStart(indexToken);
+    }
+
     /**
      * Returns the index of the token that contains position.
      */
@@ -127,6 +615,29 @@ public final class SuffixTree {
 
     final void updateNoNodes(int value) {
         this.noNodes += value;
+        this.annotations = null;
+    }
+
+    /**
+     * returns the annotations kept by the tree, or null
+     */
+    final AnnotationTable getAnnotations() {
+        return this.annotations;
+    }
+
+    /**
+     * keeps table, whose leaf counts and first positions count and
+     * firstOccurrence read until the tree changes
+     */
+    final void setAnnotations(AnnotationTable table) {
+        this.annotations = table;
+    }
+
+    /**
+     * returns true if the annotations kept by the tree have column
+     */
+    private boolean hasColumn(int column) {
+        return this.annotations != null && (this.annotations.getColumns() & column) != 0;
     }
 
 }
@@ -0,0 +1,104 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * The storage of the chars of all the tokens, concatenated in order of
+ * insertion. Each char is stored as a symbol, an int; the symbols are
+ * what the tree builders compare, and their order is the order of the
+ * chars.
+ */
+
+abstract class Text {
+
+    /**
+     * returns the number of symbols stored
+     */
+
+    abstract int length();
+
+    /**
+     * returns the symbol at position
+     */
+
+    abstract int symbolAt(int position);
+
+    /**
+     * returns the char at position
+     */
+
+    abstract char charAt(int position);
+
+    /**
+     * returns the symbol of c, or -1 if c cannot be stored
+     */
+
+    abstract int encode(char c);
+
+    /**
+     * appends the chars of token, which can all be stored
+     */
+
+    abstract void append(CharSequence token);
+
+    /**
+     * grows the storage so that it can hold length symbols
+     */
+
+    abstract void ensureCapacity(int length);
+
+    /**
+     * appends count chars of chars from offset, which can all be stored
+     */
+
+    abstract void append(char[] chars, int offset, int count);
+
+    /**
+     * appends the symbols of source from start to end - 1; source is a
+     * text of the same kind
+     */
+
+    void append(Text source, int start, int end) {
+        char[] buffer = new char[Math.min(8192, end - start)];
+        while (start < end) {
+            int count = Math.min(buffer.length, end - start);
+            for (int j = 0; j < count; j++) {
+                buffer[j] = source.charAt(start + j);
+            }
+            this.append(buffer, 0, count);
+            start += count;
+        }
+    }
+
+    /**
+     * returns the chars from leftIndex, having length length, as a string
+     */
+
+    String getSubstring(int leftIndex, int length) {
+        char[] temp = new char[length];
+        for (int i = 0; i < length; i++) {
+            temp[i] = this.charAt(leftIndex + i);
+        }
+        return new String(temp);
+    }
+
+    /**
+     * Returns the length of the Longest Common Extension (LCE) of the
+     * positions i and j, up to length symbols.
+     */
+
+    int getLCE(int i, int j, int length) {
+        int match = 0;
+        while ((match < length) && (this.symbolAt(i + match) == this.symbolAt(j + match))) {
+            match++;
+        }
+        return match;
+    }
+
+}
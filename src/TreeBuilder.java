@@ -1,5 +1,5 @@
 /* This copyrighted source code is freely distributed under the terms
- * of the GNU General Public License. 
+ * of the GNU General Public License.
  *
  * See LICENSE for details.
  *
@@ -8,130 +8,179 @@
  * Contact: turcotte@site.uottawa.ca
  */
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * Used to build the tree; the tree structure itself is very simple.
  * Implements Ukkonen algorithm.
+ *
+ * The position in the tree is kept as an active point: the active node,
+ * the position of the first char of the active edge, and the number of
+ * chars matched on that edge. The end of the substring S[j..i-1], where j
+ * is the first suffix that is still implicit, is always found by walking
+ * down activeLength chars from activeNode along the edge that starts with
+ * the char at activeEdge.
+ *
+ * A string can also be read from a Reader, a channel or a buffer, such
+ * as a mapped file, without being copied in a String first: the phases
+ * are run as the chars arrive. Until the end of the string is known, the
+ * leaves of the string are open, and they are cut at the end.
  */
 
 public final class TreeBuilder {
 
     /**
-     * the current node; it is always the node where the
-     * substring S[ j..i] ends (where j is the index of the previous phase)
+     * the tree in which the string is added
      */
 
-    private LinkedList current;
+    private SuffixTree myTree;
 
     /**
-     * the tree in which the string is added
+     * the index of the current token;
+     * it is assigned in the order of insertion of the strings in the tree
      */
 
-    private SuffixTree myTree;
+    private int tokenIndex;
 
     /**
-     * if the current internal node was just inserted, it does not have
-     * a suffix link attached to it; in this case, we have to remeber the string
-     * that labels the branch leading to this node
-     * (gamma will be followed down from the node at the end of the suffix link
-     * starting form the parent of this node
+     * the index of the first char ofthis string, relatively to the first
+     * char of the first string inserted in the tree
      */
 
-    private String gamma;
+    private int startPos;
 
     /**
-     * the index of the current token;
-     * it is assigned in the order of insertion of the strings in the tree
+     * number of nodes added to the tree during the insertion of this string
      */
 
-    private int tokenIndex;
+    private int noNodes;
 
     /**
-     * preserves the internal node that was previously added to the tree,
-     * as well as its parent
-     * this is necesary when the chain of explicit extensions ends in the
-     * current phase, so that we can restore the starting point for the next
-     * phase
+     * store the token length, so that we don't have to call token.length() each
+     * time (expensive)
      */
 
-    private LinkedList previous;
+    private int tokenLen;
 
     /**
-     * records the last extension phase, so that we know where to start form
-     * when inserting a new suffix in the tree
+     * the node from which the active point is reached
      */
 
-    private int lastExtPhase;
+    private InternalNode activeNode;
 
     /**
-     * the string that is currently inserted
+     * the position, in the string collection, of the char that selects the
+     * branch leaving activeNode; meaningless when activeLength is 0
      */
 
-    private String token;
+    private int activeEdge;
 
     /**
-     * the index of the first char ofthis string, relatively to the first
-     * char of the first string inserted in the tree
+     * the number of chars of the active edge that are matched
      */
 
-    private int startPos;
+    private int activeLength;
 
     /**
-     * number of nodes added to the tree during the insertion of this string
+     * the number of suffixes of the current phase that still have to be
+     * inserted explicitly
      */
 
-    private int noNodes;
+    private int remainder;
 
     /**
-     * store the token length, so that we don't have to call token.length() each
-     * time (expensive)
+     * the internal node created by the previous extension of the current
+     * phase; it waits for its suffix link, which is the node reached by the
+     * next extension
      */
 
-    private int tokenLen;
+    private InternalNode needSuffixLink;
 
     /**
-     * store the gamma length, so that we don't have to call gamma.length() each
-     * time (expensive)
+     * the length of the open leaves, while a string is read
+     */
+
+    private static final int OPEN = Integer.MAX_VALUE;
+
+    /**
+     * the number of chars read at a time
      */
 
-    private int gammaLen;
+    private static final int BUFFER = 8192;
 
     /**
-     * Initialized always at the root of the tree, 
+     * the leaves of the string being read, whose length is not known yet
+     */
+
+    private LeafNode[] openLeaves;
+
+    private int noOpenLeaves;
+
+    /**
+     * the terminator of the string being read
+     */
+
+    private char terminator;
+
+    /**
+     * the number of times the loop of extend has run since the builder
+     * was created: one step per suffix inserted, per phase ended by rule
+     * 3, and per branch skipped by the skip/count trick
+     */
+
+    private long steps;
+
+    /**
+     * Initialized always at the root of the tree,
      * each time a new string is added to the tree.
-     * @stereotype constructor 
+     * @stereotype constructor
      * @input one string that is to be added to the given tree
      * @output no output; constructs the tree, or adds to its structure
      * @preconditions a tree has to be constructed first
      * @postconditions the tree has all the suffixes of the given string
      */
     public TreeBuilder(SuffixTree tree) {
-        this.current = new LinkedList();
-        this.previous = new LinkedList();
-        /**
-         * initialize the previous and current list of nodes
-         */
-        this.current.addFirst(tree.getRoot());
-        this.previous.addFirst(tree.getRoot());
         this.myTree = tree;
-        this.token = null;
         this.tokenLen = 0;
-        /**
-         * always initialize the last extension phase to -1, since no phase was
-         * done
-         */
-        this.lastExtPhase = -1;
-        this.gamma = "";
-        this.gammaLen = 0;
         this.noNodes = 0;
+        this.activeNode = tree.getRoot();
+        this.activeEdge = 0;
+        this.activeLength = 0;
+        this.remainder = 0;
+        this.needSuffixLink = null;
+        this.openLeaves = null;
+        this.noOpenLeaves = 0;
+        this.steps = 0;
     }
 
     /**
-     * add a string to the tree this builder is constructed for
+     * Returns the number of steps of the construction so far. Ukkonen
+     * algorithm takes a number of steps linear in the number of chars
+     * added, whatever the strings, so that the steps per char stay below
+     * a constant; examples/Timing.java checks it.
      */
-    public final void addToken(String token) {
-        this.token = token;
+    final long getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * add a string to the tree this builder is constructed for; returns
+     * the index of the string, which SuffixTree.removeToken takes, or -1
+     * if the string was not added; throws an IllegalStateException if the
+     * tree holds int symbols
+     */
+    public final int addToken(CharSequence token) {
         this.tokenIndex = this.myTree.addToken(token);
 
         /**
@@ -139,449 +188,368 @@ public final class TreeBuilder {
          * alphabet
          */
 
-               if(this.tokenIndex == -1) { return; }
-        this.tokenLen = this.token.length();
-        this.startPos = this.myTree.getStart(this.tokenIndex);
-        int lastExplicit = this.startPos -1;
-        /**
-         * first extension of the first phase of any string does not require
-         * any going up or down
-         */
-        this.extend(this.startPos, this.startPos);
-        /**
-         * start the phases;
-         * note that each phase starts from the last explicit extension
-         */
-        for ( int i = 1 + this.startPos; i < this.tokenLen + this.startPos; i++) {
-            boolean isExplicit = true;
-            while((isExplicit) && (lastExplicit < i)) {
-        	lastExplicit++;
-                    this.goUp(lastExplicit, i);
-                this.goDown();
-                isExplicit = this.extend(i, lastExplicit);
+        if(this.tokenIndex == -1) { return -1; }
+        this.addSuffixes(this.tokenIndex);
+        return this.tokenIndex;
+    }
+
+    /**
+     * Adds a sequence of int symbols to a tree of int symbols, followed by
+     * its own end marker; returns the index of the sequence, or -1 if it
+     * was not added. Throws an IllegalStateException if the tree holds
+     * chars.
+     */
+    public final int addToken(int[] symbols) {
+        this.tokenIndex = this.myTree.addToken(symbols);
+        if (this.tokenIndex == -1) { return -1; }
+        this.addSuffixes(this.tokenIndex);
+        return this.tokenIndex;
+    }
+
+    /**
+     * adds the suffixes of the string at tokenIndex, which is already in
+     * the string collection of the tree
+     */
+    final void addSuffixes(int tokenIndex) {
+        this.noNodes = 0;
+        this.insertSuffixes(tokenIndex, this.myTree.getStart(tokenIndex));
+        this.myTree.updateNoNodes(this.noNodes);
+    }
+
+    /**
+     * Adds the strings to the tree this builder is constructed for, as
+     * addToken does, and returns the number of strings added. When tokens
+     * is a Collection, the strings of the tree are first grown to hold
+     * them all; other Iterables, such as stream::iterator, are read once.
+     * The count of the nodes of the tree is updated once, at the end.
+     */
+    public final int addTokens(Iterable<? extends CharSequence> tokens) {
+        if (tokens instanceof Collection) {
+            long length = 0;
+            for (CharSequence token : tokens) {
+                length += token.length();
             }
-            if(!isExplicit) {
-        	lastExplicit--;
-                this.goToLastExplicit();
+            /**
+             * the positions are ints: no more than that is reserved, and
+             * a longer batch fails once the text is full
+             */
+            int capacity = (int) Math.min(length, Integer.MAX_VALUE - this.myTree.getTotalLength());
+            this.myTree.getTokens().ensureCapacity(((Collection<?>) tokens).size(), capacity);
+        }
+        int added = 0;
+        this.noNodes = 0;
+        for (Iterator<? extends CharSequence> i = tokens.iterator(); i.hasNext(); ) {
+            int start = this.myTree.getTotalLength();
+            int tokenIndex = this.myTree.addToken(i.next());
+            if (tokenIndex != -1) {
+                this.insertSuffixes(tokenIndex, start);
+                added++;
             }
         }
         this.myTree.updateNoNodes(this.noNodes);
+        return added;
     }
 
     /**
-     * currentSuffix is the j index of the current phase, and the last explicit
-     * extension index + 1
-     * @preconditions the previous extension was explicit
+     * Adds the strings of the bytes of a tree made by SuffixTree(ByteBuffer),
+     * in place: each string ends with terminator, and the bytes after the
+     * last terminator are not read. The strings already in the tree are
+     * skipped. Returns the number of strings added.
      */
-    private void goUp(int currentSuffix, int currentRightEnd) {
+    public final int addTokens(char terminator) {
+        ListOfTokens tokens = this.myTree.getTokens();
+        int first = tokens.wrapTokens(terminator);
+        int last = tokens.getFirstToken() + tokens.getNoTokens();
+        int added = 0;
+        this.noNodes = 0;
+        for (int i = first; i < last; i++) {
+            if (tokens.contains(i)) {
+                this.insertSuffixes(i, tokens.getStart(i));
+                added++;
+            }
+        }
+        this.myTree.updateNoNodes(this.noNodes);
+        return added;
+    }
+
+    /**
+     * adds the suffixes of the string at tokenIndex, which starts at
+     * startPos, and counts the new nodes in noNodes
+     */
+    private void insertSuffixes(int tokenIndex, int startPos) {
+        this.tokenIndex = tokenIndex;
+        this.tokenLen = this.myTree.getTokenLength(tokenIndex);
+        this.startPos = startPos;
         /**
-         * first save current position in case next extension will be done
-         * by the rule 3, and to be able to add the sufix link
+         * every string is inserted starting from the root, with no
+         * implicit suffix
          */
+        this.activeNode = this.myTree.getRoot();
+        this.activeLength = 0;
+        this.remainder = 0;
+        for (int i = this.startPos; i < this.tokenLen + this.startPos; i++) {
+            this.extend(i);
+        }
+    }
 
-        this.previous = (LinkedList)this.current.clone();
-        if( this.current.getLast() instanceof InternalNode) {
-            /**
-             * the current node does not have a suffix link attached to it
-             */
-            if(((InternalNode)this.current.getLast()).getSuffixLink() == null) {
-        	/**
-        	 * this happens only after at least one explicit extension
-                     * with InternalNode creation was made in this phase,
-        	 * otherwise I would have had a suffix link;
-                 * note that if the first node on the current list is the root,
-                 * we cannot follow any suffix link
-                     */
-                    if((InternalNode)this.current.getFirst() != this.myTree.getRoot() ) {
-        	    int leftIndex = ((InternalNode)this.current.getLast()).getLeftIndex();
-        	    int length = ((InternalNode)this.current.getLast()).getLength();
-        	    this.gamma = this.myTree.getSubstring(leftIndex, length);
-                    this.gammaLen = length;
-                    this.current.removeLast();
-        	    this.current.addLast(((InternalNode)this.current.getFirst()).getSuffixLink());
-                    this.current.removeFirst();
-                    }else {
-        	    int leftIndex = currentSuffix;
-        	    int length = currentRightEnd - currentSuffix;
-        	    this.gamma = this.myTree.getSubstring(leftIndex, length);
-                    this.gammaLen = length;
-                    if(this.current.size() > 1) {
-                            this.current.removeLast();
-                    }
-                    }
+    /**
+     * Adds the chars read from in, followed by terminator, as a string of
+     * the tree. If in has a char that is not in the alphabet of the tree,
+     * or terminator, the chars before it are added, followed by
+     * terminator, and an IllegalArgumentException is thrown; if in throws
+     * an IOException, the chars read are added the same way. Does not
+     * close in. Returns the index of the string, or -1 if it was already
+     * in the tree: it is then removed once read, since it is compared
+     * with the other strings only once it ends.
+     */
+    public final int addToken(Reader in, char terminator) throws IOException {
+        this.beginToken(terminator);
+        try {
+            char[] buffer = new char[BUFFER];
+            int count;
+            while ((count = in.read(buffer, 0, BUFFER)) != -1) {
+                this.addChars(buffer, count);
             }
-            /**
-             * the current node has a suffix link attached to it;
-             * note that this node has a path
-             * S[last-explicit-extension-index...phase-of-last-explicit -1]
-             * gamma in this case is
-             * S[phase-of-last-explicit...current-phase -1]
-             */
-            else{
-        	this.gamma = this.myTree.getSubstring(this.lastExtPhase,
-        					      currentRightEnd - this.lastExtPhase);
-                this.gammaLen = currentRightEnd - this.lastExtPhase;
-        	if(this.current.size() > 1) {
-        	    this.current.removeFirst();
+        } finally {
+            this.endToken();
+        }
+        return this.tokenIndex;
+    }
+
+    /**
+     * adds the chars read from in, decoded with charset, followed by
+     * terminator, as addToken(Reader, char) does; does not close in
+     */
+    public final int addToken(ReadableByteChannel in, Charset charset, char terminator)
+        throws IOException {
+        return this.addToken(Channels.newReader(in, charset.newDecoder(), BUFFER), terminator);
+    }
+
+    /**
+     * adds the remaining bytes of in, decoded with charset, followed by
+     * terminator, as addToken(Reader, char) does; in can be a mapped file
+     */
+    public final int addToken(ByteBuffer in, Charset charset, char terminator)
+        throws CharacterCodingException {
+        CharsetDecoder decoder = charset.newDecoder();
+        CharBuffer buffer = CharBuffer.allocate(BUFFER);
+        this.beginToken(terminator);
+        try {
+            CoderResult result;
+            do {
+                result = decoder.decode(in, buffer, true);
+                if (result.isError()) {
+                    result.throwException();
                 }
-                this.current.addLast(((InternalNode)this.current.getFirst()).getSuffixLink());
-        	this.current.removeFirst();
-            }
-        }else{
-            /**
-             * the last node of the current list is a LeafNode; this happens
-             * when, in the previous extension I went down, the current gamma
-             * ended on the branch to a leaf node, and I did not perform any
-             * explicit extension
-             */
-            int leftIndex = currentSuffix;
-            int length = currentRightEnd - currentSuffix;
-            this.gamma = this.myTree.getSubstring(leftIndex, length);
-            this.gammaLen = length;
-            this.current.removeLast();
-            InternalNode next = (InternalNode)((InternalNode)this.current.getFirst()).getSuffixLink();
-            /**
-             * in case the parent of this leaf is not the root, follow the
-             * suffix link
-             */
-            if(next != null) {
-                this.current.addLast(next);
-                this.current.removeLast();
-            }
+                this.addChars(buffer.array(), buffer.position());
+                buffer.clear();
+            } while (result.isOverflow());
+            do {
+                result = decoder.flush(buffer);
+                this.addChars(buffer.array(), buffer.position());
+                buffer.clear();
+            } while (result.isOverflow());
+        } finally {
+            this.endToken();
         }
+        return this.tokenIndex;
     }
 
     /**
-     * walks down from node s(v) along the path gamma, using skip/count trick
+     * starts a string read piece by piece
      */
-    private void goDown() {
-        boolean where = true;
-        while((where) && (gammaLen > 0)) {
-            char branch = this.gamma.charAt(0);
-            where = this.findChild(branch);
+    private void beginToken(char terminator) {
+        this.myTree.checkChars();
+        if (!this.myTree.getTokens().accepts(terminator)) {
+            throw new IllegalArgumentException("the terminator is not in the alphabet");
+        }
+        this.terminator = terminator;
+        this.startPos = this.myTree.getTokens().beginToken();
+        this.tokenLen = OPEN - this.startPos;
+        if (this.openLeaves == null) {
+            this.openLeaves = new LeafNode[64];
         }
+        this.noOpenLeaves = 0;
+        this.activeNode = this.myTree.getRoot();
+        this.activeLength = 0;
+        this.remainder = 0;
+        this.noNodes = 0;
     }
 
     /**
-     * finds the child of the current node that has branchStart as its first character;
-     * this function will succeed in finding the child since the string S[j-1..i]
-     * is already in the tree
-     * returns true if there are more branches to be followed
+     * runs the phases of the count first chars of chars
      */
-    private boolean findChild(char branchStart) {
-        /**
-         * NOTE: findChild is called only when gamma is not empty; this means
-         * that the curent node is an InternalNode
-         * also, since the substring S[j..i] is already in the tree,
-         * we are bounded to find a child that starts with the first char of gamma
-         */
-        NodeInterface temp = (NodeInterface)((InternalNode)this.current.getLast()).getFirstChild();
-        /**
-         * I need to preserve the previous node in my search, in case my gamma ends
-         * on a branch, and that branch is not to the first child 
-         */
-        NodeInterface tempP = temp;
-        /**
-         * here the fact that a child node can be a leaf does not influence the result,
-         * since if gamma's first symbol is found on a branch of a LeafNode
-         * of the current string, gamma's length will be less than
-         * the real current rightEnd of that branch
-         */
+    private void addChars(char[] chars, int count) {
+        ListOfTokens tokens = this.myTree.getTokens();
+        int appended = 0;
+        while (appended < count && chars[appended] != this.terminator) {
+            appended++;
+        }
+        int phase = tokens.getTotalLength();
+        appended = tokens.appendChars(chars, 0, appended);
+        for (int i = 0; i < appended; i++) {
+            this.extend(phase + i);
+        }
+        if (appended < count) {
+            throw new IllegalArgumentException("'" + chars[appended] + "' cannot be added to the tree");
+        }
+    }
 
-        String branch = this.myTree.getSubstring(temp.getLeftIndex(),
-        					 temp.getLength());
-        char start = branch.charAt(0);
-        /**
-         * find the child whos branch starts with the first char of gamma
-         */
-        while(start > branchStart) {
-            tempP = temp;
-            temp = (NodeInterface)temp.getRightSybling();
-            branch = this.myTree.getSubstring(temp.getLeftIndex(),
-        				      temp.getLength());
-            start = branch.charAt(0);
+    /**
+     * adds the terminator, which is the last phase, and cuts the open
+     * leaves at the end of the string
+     */
+    private void endToken() {
+        ListOfTokens tokens = this.myTree.getTokens();
+        char[] last = { this.terminator };
+        int phase = tokens.getTotalLength();
+        tokens.appendChars(last, 0, 1);
+        this.tokenLen = phase + 1 - this.startPos;
+        this.extend(phase);
+        int end = phase + 1;
+        for (int i = 0; i < this.noOpenLeaves; i++) {
+            LeafNode leaf = this.openLeaves[i];
+            leaf.setLength(end - leaf.getLeftIndex());
+            this.openLeaves[i] = null;
         }
-        /**
-         * the this.current list has only one element when the last explicit
-         * extension was made from root
-         */
-        if(this.current.size() > 1) {
-            this.current.removeFirst();
-               }
-        this.current.addLast(temp);
-        /**
-         * if gamma's length is greater than the length of the branch, return true
-         * and set gamma to the remaining string;
-         * if gamma's length is equal to the branch length, return false, and set gamma to
-         * empty string; string S[j..i] finishes at current node
-         * if gamma's length is less than the branch legth, string S[j..i] ends
-         * somewhere inside this branch, leave gamma as it is, and return false
-         */
-        if(gammaLen > (temp.getLength())) {
-            this.gamma = this.gamma.substring(temp.getLength());
-            this.gammaLen = this.gamma.length();
-            return true;
-        } else {
-            if(gammaLen == (temp.getLength())) {
-                this.gamma = "";
-                this.gammaLen = 0;
-                return false;
-            }else{
-                /**
-                 * add both the node whos branch starts with first char of gammma
-                 * and its left sybling, because we need it to update its right sybling
-                 * link
-                 * if the node is the first child, it has no left sybling,
-                 * so we leave only two nodes in the current list
-                 */
-                if(tempP != temp) {
-        	    this.current.add(1, tempP);
-                }
-        	return false;
-            }
+        this.noOpenLeaves = 0;
+        this.tokenIndex = tokens.endToken();
+        this.myTree.updateNoNodes(this.noNodes);
+        if (tokens.isDuplicate(this.tokenIndex)) {
+            this.myTree.removeToken(this.tokenIndex);
+            this.tokenIndex = -1;
         }
     }
 
     /**
-     * @postconditions returns true if the extension was explicit 
+     * phase i: adds the char at position i to all the suffixes that are
+     * still implicit, until one of them is already in the tree (rule 3)
      */
-    private boolean extend(int phase, int extension) {
-        boolean isExplicit = false;
-        char phaseChar = this.token.charAt(phase - this.startPos);
-        /**
-         * NOTE: string gamma is S[j..i], where i is the index of the previous phase
-         * since index i is not the last character in the current string, it cannot be
-         * the string terminator, therefore, the node where it ends cannot be a LeafNode
-         * of one of the previously inserted strings
-         * moreover, each LeafNode of the current string has the rightIndex = to i+1, the index
-         * of the current phase, which makes it impossible for the string S[j..i]
-         * to end at it unless i = -1 ! meaning that I am in phase zero of the first string
-         */
-        if( gammaLen == 0) {
-            /**
-             * find the start char of the branch to first child, if there is one
-             */
-            NodeInterface temp = (NodeInterface)((InternalNode)this.current.getLast()).getFirstChild();
-            if (temp == null) {
-                this.noNodes +=1;
-        	LeafNode t = new LeafNode(this.startPos, this.tokenLen, null);
-                ((InternalNode)this.current.getLast()).setFirstChild(t);
-                isExplicit = true;
-            }else{
-
-
-                String branch = this.myTree.getSubstring(temp.getLeftIndex(),
-        						 temp.getLength());
-                char start = branch.charAt(0);
-
-        	NodeInterface tempP = temp;
-        	char startP = start;
-
-        	boolean goRight = (phaseChar <= start)&&(temp.getRightSybling() != null);
-                   while(goRight) {
-        	    tempP = temp;
-        	    startP = start;
-        	    temp = (NodeInterface)temp.getRightSybling();
-        	    if(temp == null) {
-        		goRight = false;
-        	    }else{
-        		/**
-                         * check if temp is a LeafNode of the current string
-                         */
-        		int branchStart = temp.getLeftIndex();
-        		int branchLen = 0;
-        		if(branchStart < this.startPos) {
-        		    branchLen = temp.getLength();
-        		}else{
-        		    branchLen = phase - branchStart + 1;
-        		}
-        		branch = this.myTree.getSubstring(branchStart, branchLen);
-
-        		start = branch.charAt(0);
-        		goRight = (phaseChar <= start);
-        	    }
-                   }
-
-                  if(startP == phaseChar) {
-        	    /**
-        	     * rule 3: do nothing
-        	     * actually, this is where we have to check if the currently
-        	     * inserted string ends at this leaf node;
-        	     * if it does, than we have to insert a new set of coordinates,
-        	     * without creating a new leaf node
-        	     */
-        	    String str1 = this.token.substring(phase-this.startPos);
-        	    String str2 = this.myTree.getSubstring(tempP.getLeftIndex(), tempP.getLength());
-        	    if(str1.equals(str2)) {
-                        ((LeafNode)tempP).addCoordinates(extension);
-        		isExplicit = true;
-        	    }else{
-                        isExplicit = false;
-        	    }
-                   }else{
-        	    this.noNodes +=1;
-        	    LeafNode t = new LeafNode(phase, this.tokenLen - (phase - this.startPos), null);
-        	    t.addCoordinates(extension);
-        	    if(phaseChar < startP) {
-                    	/**
-        		 * tempP holds the node after which I have to insert the new leafNode
-        		 * rule 2, without creating a new internal node
-        		 */
-                    	t.setRightSybling(tempP.getRightSybling());
-        		if(tempP instanceof LeafNode) {
-        		    ((LeafNode)tempP).setRightSybling(t);
-        		}else{
-        		    ((InternalNode)tempP).setRightSybling(t);
-        		}
-        	    }else{
-                    	/**
-        		 * tempP is the first child of this.current.getLast()
-        		 * and t must be inserted before it
-        		 */
-                    	t.setRightSybling(tempP);
-        		((InternalNode)this.current.getLast()).setFirstChild(t);
-        	    }
-        	    isExplicit = true;
-        	}
+    private void extend(int phase) {
+        int phaseChar = this.myTree.symbolAt(phase);
+        int end = this.startPos + this.tokenLen;
+        this.needSuffixLink = null;
+        this.remainder++;
+        while (this.remainder > 0) {
+            this.steps++;
+            if (this.activeLength == 0) {
+                this.activeEdge = phase;
             }
-        }else{
-            /**
-             * string gamma ends somewhere on the branch between the first
-             * and the last node of the current list
-             * it does not matter if the last element is a leaf node
-             * in case it is, and in case it is a leaf node of the current string
-             * all I need is the next character after the end of the gamma string
-             * I am not interested in any other characters, so the fact that my
-             * branch is not yet completed, since I didn't get
-             * to the last phase, doesn't affect the algorithm
-             */
-            NodeInterface down = (NodeInterface)this.current.getLast();
-            String branch = this.myTree.getSubstring(down.getLeftIndex(),
-        					     down.getLength());
-            char nextChar = branch.charAt(gammaLen);
-            if(nextChar == phaseChar) {
+            int edgeChar = this.myTree.symbolAt(this.activeEdge);
+            NodeInterface next = this.activeNode.getChild(edgeChar, this.myTree);
+            if (next == null) {
                 /**
-                 * do nothing; extension rule 3
-                 * remove the left sybling in case there is one
+                 * rule 2: a new leaf hangs from the active node
                  */
-                if(this.current.size() > 2) {
-        	    this.current.remove(1);
-                }
-                String str1 = this.token.substring(phase-this.startPos);
-                String str2 = this.myTree.getSubstring(down.getLeftIndex() + gammaLen,
-        					       down.getLength() - gammaLen) ;
-                if(str1.equals(str2)) {
-        	    ((LeafNode)down).addCoordinates(extension);
-                    isExplicit = true;
-                    }else{
-        	    isExplicit =  false;
-                    }
-            }else{
+                LeafNode leaf = this.newLeaf(phase, end);
+                this.activeNode.addChild(phaseChar, leaf, this.myTree);
+                this.noNodes += 1;
+                this.addSuffixLink(this.activeNode);
+            } else {
                 /**
-                 * insert a new internal node on the branch, and add a new leaf too
-                 * split the branch;
-                 * the down's node rightSybling always becomes the rightSybling
-                 * of the new internal node
+                 * skip/count trick: the leaves of the current string
+                 * only count up to the current phase
                  */
-                this.noNodes +=1;
-                InternalNode tempI = new InternalNode(down.getLeftIndex(),
-        					      gammaLen, down.getRightSybling(), null);
-                if(down instanceof InternalNode) {
-        	    ((InternalNode)down).setLeftIndex(down.getLeftIndex() + gammaLen);
-        	    ((InternalNode)down).setLength(down.getLength() - gammaLen);
-        	    ((InternalNode)down).setRightSybling(null);
-                }else{
-        	    ((LeafNode)down).setLeftIndex(down.getLeftIndex() + gammaLen);
-        	    ((LeafNode)down).setLength(down.getLength() - gammaLen);
-        	    ((LeafNode)down).setRightSybling(null);
+                int edgeLength = Math.min(next.getLength(), phase + 1 - next.getLeftIndex());
+                if (this.activeLength >= edgeLength) {
+                    this.activeEdge += edgeLength;
+                    this.activeLength -= edgeLength;
+                    this.activeNode = (InternalNode) next;
+                    continue;
                 }
-
-        	/**
-                 * create new leaf node, but do not setup the links yet
-                 */
-                this.noNodes +=1;
-                LeafNode tempL = new LeafNode(phase, this.tokenLen -(phase-this.startPos), null);
-                tempL.addCoordinates(extension);
-
-                /**
-                 * if the branch on which we perform insertion is not the first
-                 * branch, the middle element of this.current will have tempI
-                 * as new rightSybling
-                 * otherwise, the first element of this.current will have tempI
-                 * as new first child
-                 */
-        	if(this.current.size() > 2) {
-                    Object removed = this.current.remove(1);
-        	    if(removed instanceof InternalNode) {
-        		((InternalNode)(removed)).setRightSybling(tempI);
-                    }else{
-                        ((LeafNode)(removed)).setRightSybling(tempI);
+                int nextChar = this.myTree.symbolAt(next.getLeftIndex() + this.activeLength);
+                if (nextChar == phaseChar) {
+                    if ((phase == end - 1) && (next instanceof LeafNode) &&
+                        (this.activeLength + 1 == next.getLength())) {
+                        /**
+                         * the suffix ends at a leaf of a previous string:
+                         * insert a new set of coordinates, without creating
+                         * a new leaf node; the extension is explicit
+                         */
+                        ((LeafNode) next).addCoordinates(phase - this.remainder + 1, this.myTree);
+                        this.addSuffixLink(this.activeNode);
+                    } else {
+                        /**
+                         * rule 3: do nothing, the phase ends here
+                         */
+                        this.activeLength++;
+                        this.addSuffixLink(this.activeNode);
+                        break;
                     }
-                }else{
-                    ((InternalNode)this.current.getFirst()).setFirstChild(tempI);
-                }
-
-        	/**
-                 * now setup the children of new internal node tempI
-                 */
-                if(nextChar > phaseChar) {
-                    tempI.setFirstChild((NodeInterface)this.current.getLast());
-                    Object last = this.current.getLast();
-                    if(last instanceof LeafNode) {
-                            ((LeafNode)this.current.getLast()).setRightSybling(tempL);
-                    }else{
-        		((InternalNode)this.current.getLast()).setRightSybling(tempL);
+                } else {
+                    /**
+                     * split the branch: a new internal node at the end of
+                     * the active point, with next and a new leaf as children
+                     */
+                    InternalNode split = new InternalNode(next.getLeftIndex(), this.activeLength,
+                                                          next.getRightSybling(), null);
+                    this.activeNode.replaceChild(edgeChar, split, this.myTree);
+                    if (next instanceof InternalNode) {
+                        ((InternalNode) next).setLeftIndex(next.getLeftIndex() + this.activeLength);
+                        ((InternalNode) next).setLength(next.getLength() - this.activeLength);
+                    } else {
+                        ((LeafNode) next).setLeftIndex(next.getLeftIndex() + this.activeLength);
+                        ((LeafNode) next).setLength(next.getLength() - this.activeLength);
                     }
-                }else{
-        	    tempI.setFirstChild(tempL);
-                    tempL.setRightSybling((NodeInterface)this.current.getLast());
+                    LeafNode leaf = this.newLeaf(phase, end);
+                    /**
+                     * the children are kept in decreasing order of their
+                     * first char
+                     */
+                    if (nextChar > phaseChar) {
+                        split.setFirstChild(next);
+                        InternalNode.setRightSybling(next, leaf);
+                    } else {
+                        split.setFirstChild(leaf);
+                        leaf.setRightSybling(next);
+                        InternalNode.setRightSybling(next, null);
+                    }
+                    this.noNodes += 2;
+                    this.addSuffixLink(split);
+                    this.needSuffixLink = split;
                 }
-        	/**
-                 * replace this.current last element with  newly created internal
-                 * node, since it represents the end of substring S[j..i]
-                 * needed for the next extension performed, and for
-                 * suffix link setup
-                 */
-                this.current.removeLast();
-                this.current.addLast(tempI);
-                /**
-                 * sice I am creating a new internal node at the end of gamma
-                 * set gamma to empty string
-                 */
-                this.gamma = "";
-                this.gammaLen = 0;
-                /**
-                 * extension rule 2 with creation of a new internal node
-                 */
-                isExplicit = true;
             }
-        }
-        /**
-         * setup suffix link if it is necessary; note that there is no
-         * suffix link to add in the case previous does not contain any element
-         * which happens when we are inserting a string into an already grown tree
-         */
-        if((this.previous.size() != 0) &&
-           (previous.getLast() instanceof InternalNode) ) {
-            if((((InternalNode)previous.getLast()).getSuffixLink() == null)&&
-               ((InternalNode)this.previous.getLast() != this.myTree.getRoot())) {
-        	((InternalNode)this.previous.getLast()).setSuffixLink((InternalNode)this.current.getLast());
+            /**
+             * move the active point to the next shorter suffix
+             */
+            this.remainder--;
+            if ((this.activeNode == this.myTree.getRoot()) && (this.activeLength > 0)) {
+                this.activeLength--;
+                this.activeEdge = phase - this.remainder + 1;
+            } else {
+                InternalNode link = (InternalNode) this.activeNode.getSuffixLink();
+                this.activeNode = (link != null) ? link : this.myTree.getRoot();
             }
         }
+    }
 
-        if (isExplicit) {
-            this.lastExtPhase = phase;
+    /**
+     * returns a new leaf for the suffix being inserted in phase; its
+     * length is not known yet when end is OPEN
+     */
+    private LeafNode newLeaf(int phase, int end) {
+        LeafNode leaf = new LeafNode(phase, end - phase, null);
+        leaf.addCoordinates(phase - this.remainder + 1, this.myTree);
+        if (end == OPEN) {
+            if (this.noOpenLeaves == this.openLeaves.length) {
+                LeafNode[] temp = new LeafNode[2 * this.noOpenLeaves];
+                System.arraycopy(this.openLeaves, 0, temp, 0, this.noOpenLeaves);
+                this.openLeaves = temp;
+            }
+            this.openLeaves[this.noOpenLeaves++] = leaf;
         }
-        return isExplicit;
+        return leaf;
     }
 
     /**
-     * just before ending the current phase, after an implicit extension
-     * was made
+     * the internal node created by the previous extension gets node as its
+     * suffix link
      */
-
-    private void goToLastExplicit( ) {
-        this.current = (LinkedList)this.previous.clone();
+    private void addSuffixLink(InternalNode node) {
+        if (this.needSuffixLink != null) {
+            this.needSuffixLink.setSuffixLink(node);
+            this.needSuffixLink = null;
+        }
     }
 
 }
@@ -0,0 +1,47 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Interface to walk a tree from its root, whatever its storage.
+ * Implemented by SuffixTree, ArraySuffixTree, LazySuffixTree,
+ * MappedSuffixTree and CompressedSuffixTree, so that TreePrinter and
+ * Annotation work on all of them.
+ *
+ * @stereotype interface 
+ */
+
+public interface TreeInterface {
+
+    /**
+     * @return the root of the tree.
+     */
+
+    NodeInterface getRoot();
+
+    /**
+     * @return the first child of node, or null if node is a leaf.
+     */
+
+    NodeInterface getFirstChild(NodeInterface node);
+
+    /**
+     * @return the positions of the suffixes that end at the leaf node, or
+     * null if node is an internal node.
+     */
+
+    SuffixCoordinates getCoordinates(NodeInterface node);
+
+    /**
+     * @return the label of the branch leading to node: its chars, or its
+     * int symbols in brackets in a tree of int symbols.
+     */
+
+    String getLabel(NodeInterface node);
+}
@@ -10,9 +10,9 @@
 
 class TreePrinter {
 
-    private SuffixTree tree;
+    private TreeInterface tree;
 
-    public TreePrinter(SuffixTree tree) {
+    public TreePrinter(TreeInterface tree) {
         this.tree = tree;
     }
 
@@ -20,26 +20,26 @@ class TreePrinter {
 
         String nodeString = null;
 
-        if (this.tree.getRoot() == node) 
+        if (this.tree.getRoot().equals(node)) 
             nodeString = "root";
-        else {
-            String label = this.tree.getSubstring(node.getLeftIndex(), node.getLength());
-            nodeString = "label=" + label;
-        }
+        else
+            nodeString = "label=" + this.tree.getLabel(node);
 
         Info info = node.getInfo();
         if (info != null)
             nodeString = nodeString + " " + info;
 
-        if (node instanceof InternalNode) {
+        SuffixCoordinates coord = this.tree.getCoordinates(node);
+
+        if (coord == null) {
 
             System.out.println(depth + "<node " + nodeString + ">");
-            NodeInterface child = (NodeInterface)((InternalNode) node).getFirstChild();
-            prettyPrint(child, depth + "  ");
+            NodeInterface child = this.tree.getFirstChild(node);
+            if (child != null)
+                prettyPrint(child, depth + "  ");
             System.out.println(depth + "</node>");
 
         }else {
-            String coord = ((LeafNode) node).getCoordinates().toString();
             System.out.println(depth + "<leaf " + nodeString + " pos=" + coord + ">");
         }
 
@@ -50,6 +50,6 @@ class TreePrinter {
     }
 
     public void prettyPrint() {
-        prettyPrint((NodeInterface) tree.getRoot(), "");
+        prettyPrint(tree.getRoot(), "");
     }
 }
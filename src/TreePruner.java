@@ -0,0 +1,228 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+/**
+ * Removes strings from a tree.
+ *
+ * The suffixes of the string are removed from the longest to the
+ * shortest. The leaf of a suffix loses its coordinates, and is removed
+ * if it has none left; its parent is then spliced out if it has only one
+ * child left. After each suffix, the tree is the tree of a set of
+ * suffixes that holds the suffixes of all its suffixes, so the surviving
+ * nodes keep their suffix links, and no surviving node links to a node
+ * that was spliced out. The leaf of the next suffix is found from the
+ * suffix link of the grandparent of the leaf, with the skip/count trick,
+ * as in Ukkonen algorithm: removing a string costs time proportional to
+ * its length.
+ *
+ * The chars of a removed string stay in the text, since branches of other
+ * strings may still point to them. When there are more of these dead
+ * chars than live ones, the text is compacted: the tree is walked once,
+ * and every branch is pointed again to a suffix that is still in the tree.
+ */
+
+final class TreePruner {
+
+    private SuffixTree myTree;
+
+    /**
+     * the nodes still to visit during a compaction: node, the depth of its
+     * parent, the index of its parent in the stack, and the position of a
+     * suffix below it
+     */
+
+    private NodeInterface[] nodes;
+
+    private int[] depths;
+
+    private int[] parents;
+
+    private int[] suffixes;
+
+    private boolean[] visited;
+
+    private int size;
+
+    /**
+     * @stereotype constructor
+     */
+
+    TreePruner(SuffixTree tree) {
+        this.myTree = tree;
+    }
+
+    /**
+     * removes the suffixes of the string at indexToken, and the string
+     * itself; returns false if there is no such string in the tree
+     */
+
+    final boolean removeToken(int indexToken) {
+        SuffixTree tree = this.myTree;
+        ListOfTokens tokens = tree.getTokens();
+        if (!tokens.contains(indexToken)) {
+            return false;
+        }
+        int start = tree.getStart(indexToken);
+        int end = start + tree.getTokenLength(indexToken);
+        InternalNode root = tree.getRoot();
+        int removedNodes = 0;
+
+        /**
+         * the walk of a suffix starts at node, whose string is the first
+         * depth chars of the suffix
+         */
+        InternalNode node = root;
+        int depth = 0;
+        for (int position = start; position < end; position++) {
+            InternalNode parent = node;
+            InternalNode grandParent = null;
+            int parentDepth = depth;
+            NodeInterface child = parent.getChild(tree.symbolAt(position + parentDepth), tree);
+            while (child instanceof InternalNode) {
+                grandParent = parent;
+                parent = (InternalNode) child;
+                parentDepth += child.getLength();
+                child = parent.getChild(tree.symbolAt(position + parentDepth), tree);
+            }
+            int parentLength = parent.getLength();
+
+            LeafNode leaf = (LeafNode) child;
+            if (!leaf.removeCoordinates(position, tree)) {
+                parent.removeChild(tree.symbolAt(leaf.getLeftIndex()), tree);
+                removedNodes++;
+                NodeInterface only = (NodeInterface) parent.getFirstChild();
+                if (parent != root && only.getRightSybling() == null) {
+                    /**
+                     * parent has a single child left, which takes its place
+                     */
+                    int key = tree.symbolAt(parent.getLeftIndex());
+                    if (only instanceof InternalNode) {
+                        ((InternalNode) only).setLeftIndex(only.getLeftIndex() - parentLength);
+                        ((InternalNode) only).setLength(only.getLength() + parentLength);
+                    } else {
+                        ((LeafNode) only).setLeftIndex(only.getLeftIndex() - parentLength);
+                        ((LeafNode) only).setLength(only.getLength() + parentLength);
+                    }
+                    InternalNode.setRightSybling(only, parent.getRightSybling());
+                    grandParent.replaceChild(key, only, tree);
+                    parent.clearChildren();
+                    parent.setSuffixLink(null);
+                    removedNodes++;
+                }
+            }
+
+            /**
+             * the next suffix is one char shorter: its walk starts at the
+             * suffix link of the grandparent
+             */
+            node = root;
+            depth = 0;
+            if (grandParent != null && grandParent != root && grandParent.getSuffixLink() != null) {
+                node = (InternalNode) grandParent.getSuffixLink();
+                depth = parentDepth - parentLength - 1;
+            }
+        }
+
+        tokens.removeToken(indexToken);
+        tree.updateNoNodes(-removedNodes);
+        if (tokens.getDeadLength() > tokens.getLiveLength()) {
+            this.compact();
+        }
+        return true;
+    }
+
+    /**
+     * Drops the chars of the removed strings. Every branch is first
+     * pointed to the chars of a suffix below it: a leaf to its first
+     * coordinates, an internal node to the suffix of its first child.
+     */
+
+    final void compact() {
+        SuffixTree tree = this.myTree;
+        ListOfTokens tokens = tree.getTokens();
+        InternalNode root = tree.getRoot();
+        tokens.beginCompaction();
+
+        this.nodes = new NodeInterface[64];
+        this.depths = new int[64];
+        this.parents = new int[64];
+        this.suffixes = new int[64];
+        this.visited = new boolean[64];
+        this.size = 0;
+        this.push(root, 0, -1);
+        while (this.size > 0) {
+            int top = this.size - 1;
+            NodeInterface node = this.nodes[top];
+            if (node instanceof InternalNode && !this.visited[top]) {
+                /**
+                 * the children are done before their parent
+                 */
+                this.visited[top] = true;
+                int depth = this.depths[top] + node.getLength();
+                Object child = ((InternalNode) node).getFirstChild();
+                for (; child != null; child = ((NodeInterface) child).getRightSybling()) {
+                    this.push((NodeInterface) child, depth, top);
+                }
+                continue;
+            }
+            this.size--;
+            int suffix;
+            if (node instanceof LeafNode) {
+                LeafNode leaf = (LeafNode) node;
+                leaf.movePositions(tokens, tree);
+                suffix = leaf.getPosition(tree);
+                leaf.setLeftIndex(suffix + this.depths[top]);
+            } else {
+                suffix = this.suffixes[top];
+                if (node != root) {
+                    ((InternalNode) node).setLeftIndex(suffix + this.depths[top]);
+                }
+            }
+            if (this.parents[top] >= 0) {
+                this.suffixes[this.parents[top]] = suffix;
+            }
+            this.nodes[top] = null;
+        }
+        this.nodes = null;
+        this.depths = null;
+        this.parents = null;
+        this.suffixes = null;
+        this.visited = null;
+
+        tokens.compact();
+    }
+
+    private void push(NodeInterface node, int depth, int parent) {
+        if (this.size == this.nodes.length) {
+            int capacity = 2 * this.size;
+            NodeInterface[] tempNodes = new NodeInterface[capacity];
+            System.arraycopy(this.nodes, 0, tempNodes, 0, this.size);
+            this.nodes = tempNodes;
+            this.depths = grow(this.depths, capacity);
+            this.parents = grow(this.parents, capacity);
+            this.suffixes = grow(this.suffixes, capacity);
+            boolean[] tempVisited = new boolean[capacity];
+            System.arraycopy(this.visited, 0, tempVisited, 0, this.size);
+            this.visited = tempVisited;
+        }
+        this.nodes[this.size] = node;
+        this.depths[this.size] = depth;
+        this.parents[this.size] = parent;
+        this.visited[this.size] = false;
+        this.size++;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] temp = new int[capacity];
+        System.arraycopy(array, 0, temp, 0, array.length);
+        return temp;
+    }
+
+}
@@ -0,0 +1,282 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Saves a tree to a file that MappedSuffixTree maps in memory. All the
+ * ints are big-endian; the file holds, in order:
+ *
+ * - the header: MAGIC, the number of bytes of a symbol, the number of
+ *   chars of the alphabet (of int symbols in a tree of int symbols), the
+ *   number of strings, their total length, the number of nodes and the
+ *   number of cells of coordinates;
+ * - the chars of the alphabet, two bytes each, when the symbols number
+ *   them: the symbol of a char is its rank in the alphabet, and there
+ *   are no chars when the symbol of a char is the char itself;
+ * - the position of the first symbol of each string, and the total
+ *   length;
+ * - the symbols of the strings: one byte each for the bytes and for an
+ *   alphabet of 256 chars or fewer, an int each for int symbols and
+ *   their end markers, two bytes otherwise;
+ * - the nodes, five ints each, as in NodeArrays: leftIndex, length,
+ *   firstChild (LEAF for a leaf), rightSybling and suffixLink (the
+ *   coordinates of a leaf);
+ * - the coordinates of the leaves that have several, two ints per cell
+ *   as in CoordinatePool: the position and the next cell.
+ *
+ * The alphabet and the symbols are padded to a multiple of four bytes.
+ * The nodes of a SuffixTree are numbered in breadth-first order: the
+ * children of a node have consecutive ids, and the root is node 0.
+ */
+
+public final class TreeWriter {
+
+    /**
+     * the strings of the tree
+     */
+
+    private ListOfTokens tokens;
+
+    /**
+     * the nodes of the tree, numbered
+     */
+
+    private NodeArrays nodes;
+
+    /**
+     * @stereotype constructor
+     */
+
+    public TreeWriter(SuffixTree tree) {
+        this.tokens = tree.getTokens();
+        this.nodes = number(tree);
+    }
+
+    /**
+     * @stereotype constructor
+     */
+
+    public TreeWriter(ArraySuffixTree tree) {
+        this.tokens = tree.getTokens();
+        this.nodes = tree.getNodes();
+    }
+
+    /**
+     * writes the tree to file, replacing its content
+     */
+
+    public final void write(File file) throws IOException {
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            int noTokens = this.tokens.getNoTokens();
+            int length = this.tokens.getTotalLength();
+            int symbolSize = this.tokens.getSymbolSize();
+            CoordinatePool cells = this.nodes.getCoordinatePool();
+            writeHeader(out, symbolSize, this.tokens.getAlphabet(), this.tokens.getNoSymbols(),
+                        noTokens, length, this.nodes.size(), cells.size());
+            int first = this.tokens.getFirstToken();
+            for (int i = 0; i <= noTokens; i++) {
+                out.writeInt(this.tokens.getStart(first + i));
+            }
+            for (int i = 0; i < length; i++) {
+                if (symbolSize == 1) {
+                    out.writeByte(this.tokens.symbolAt(i));
+                } else if (symbolSize == 2) {
+                    out.writeChar(this.tokens.symbolAt(i));
+                } else {
+                    out.writeInt(this.tokens.symbolAt(i));
+                }
+            }
+            pad(out, (long) symbolSize * length);
+            for (int id = 0; id < this.nodes.size(); id++) {
+                out.writeInt(this.nodes.getLeftIndex(id));
+                out.writeInt(this.nodes.getLength(id));
+                out.writeInt(this.nodes.getFirstChild(id));
+                out.writeInt(this.nodes.getRightSybling(id));
+                out.writeInt(this.nodes.getSuffixLink(id));
+            }
+            for (int cell = 0; cell < cells.size(); cell++) {
+                out.writeInt(cells.getPosition(cell));
+                out.writeInt(cells.getNext(cell));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * writes the header of a tree, and the chars of alphabet, which is
+     * null if the symbol of a char is the char itself; noSymbols is the
+     * number of int symbols, 0 for chars. The starts follow.
+     */
+
+    static void writeHeader(DataOutputStream out, int symbolSize, Alphabet alphabet, int noSymbols,
+                            int noTokens, int length, int noNodes, int noCells) throws IOException {
+        int noChars = (alphabet == null) ? 0 : alphabet.size();
+        out.writeInt(MappedSuffixTree.MAGIC);
+        out.writeInt(symbolSize);
+        out.writeInt((symbolSize == 4) ? noSymbols : noChars);
+        out.writeInt(noTokens);
+        out.writeInt(length);
+        out.writeInt(noNodes);
+        out.writeInt(noCells);
+        for (int i = 0; i < noChars; i++) {
+            out.writeChar(alphabet.decode(i));
+        }
+        pad(out, 2L * noChars);
+    }
+
+    /**
+     * returns the offset of the nodes in the file of a tree
+     */
+
+    static long getNodeOffset(int symbolSize, Alphabet alphabet, int noTokens, int length) {
+        int noChars = (alphabet == null) ? 0 : alphabet.size();
+        return 4L * (MappedSuffixTree.HEADER + noTokens + 1) + 4L * ((2L * noChars + 3) / 4) +
+            4L * (((long) symbolSize * length + 3) / 4);
+    }
+
+    /**
+     * writes the zeros that follow size bytes up to a multiple of four
+     */
+
+    static void pad(DataOutputStream out, long size) throws IOException {
+        for (long i = size; (i & 3) != 0; i++) {
+            out.writeByte(0);
+        }
+    }
+
+    /**
+     * Copies the nodes of tree in NodeArrays, in breadth-first order. The
+     * internal nodes are dequeued in increasing order of their ids, so
+     * their ids are kept in a plain array.
+     */
+
+    private static NodeArrays number(SuffixTree tree) {
+        NodeArrays nodes = new NodeArrays(tree.getNoNodes());
+        ArrayDeque<InternalNode> queue = new ArrayDeque<InternalNode>();
+        int[] ids = new int[64];
+        int head = 0, tail = 0;
+        CoordinatePool cells = tree.getCoordinatePool();
+        int[] positions = new int[4];
+        queue.add(tree.getRoot());
+        ids[tail++] = 0;
+        while (!queue.isEmpty()) {
+            InternalNode node = queue.poll();
+            int id = ids[head++];
+            int count = 0;
+            for (Object c = node.getFirstChild(); c != null; c = ((NodeInterface) c).getRightSybling()) {
+                count++;
+            }
+            if (count == 0) {
+                continue;
+            }
+            int childId = nodes.size();
+            nodes.setFirstChild(id, childId);
+            for (Object c = node.getFirstChild(); c != null; c = ((NodeInterface) c).getRightSybling()) {
+                NodeInterface child = (NodeInterface) c;
+                int rightSybling = (--count == 0) ? NodeArrays.NONE : childId + 1;
+                if (child instanceof InternalNode) {
+                    nodes.newInternalNode(child.getLeftIndex(), child.getLength(),
+                                          rightSybling, NodeArrays.NONE);
+                    queue.add((InternalNode) child);
+                    if (tail == ids.length) {
+                        int[] temp = new int[2 * ids.length];
+                        System.arraycopy(ids, head, temp, 0, tail - head);
+                        tail -= head;
+                        head = 0;
+                        ids = temp;
+                    }
+                    ids[tail++] = childId;
+                } else {
+                    /**
+                     * the coordinates are added from the last one, so that
+                     * their order is kept
+                     */
+                    LeafNode leaf = (LeafNode) child;
+                    int noPositions = 0;
+                    int coordinates = leaf.getPositions();
+                    if (coordinates >= 0) {
+                        positions[noPositions++] = coordinates;
+                    } else {
+                        int cell = -1 - coordinates;
+                        for (; cell != CoordinatePool.NONE; cell = cells.getNext(cell)) {
+                            if (noPositions == positions.length) {
+                                int[] temp = new int[2 * noPositions];
+                                System.arraycopy(positions, 0, temp, 0, noPositions);
+                                positions = temp;
+                            }
+                            positions[noPositions++] = cells.getPosition(cell);
+                        }
+                    }
+                    nodes.newLeafNode(child.getLeftIndex(), child.getLength(),
+                                      rightSybling, positions[noPositions - 1]);
+                    for (int i = noPositions - 2; i >= 0; i--) {
+                        nodes.addCoordinates(childId, positions[i]);
+                    }
+                }
+                childId++;
+            }
+        }
+
+        /**
+         * the suffix links, from the top: the parent of a node has a
+         * smaller id
+         */
+        for (int id = 0; id < nodes.size(); id++) {
+            if (nodes.isLeaf(id)) {
+                continue;
+            }
+            int child = nodes.getFirstChild(id);
+            for (; child != NodeArrays.NONE; child = nodes.getRightSybling(child)) {
+                if (nodes.isLeaf(child)) {
+                    continue;
+                }
+                int link;
+                if (id == 0) {
+                    link = walkDown(tree, nodes, 0, nodes.getLeftIndex(child) + 1,
+                                    nodes.getLength(child) - 1);
+                } else {
+                    link = walkDown(tree, nodes, nodes.getSuffixLink(id),
+                                    nodes.getLeftIndex(child), nodes.getLength(child));
+                }
+                nodes.setSuffixLink(child, link);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * returns the node found length chars below node, following the chars
+     * from position
+     */
+
+    private static int walkDown(SuffixTree tree, NodeArrays nodes, int node, int position, int length) {
+        while (length > 0) {
+            int symbol = tree.symbolAt(position);
+            int child = nodes.getFirstChild(node);
+            while (tree.symbolAt(nodes.getLeftIndex(child)) != symbol) {
+                child = nodes.getRightSybling(child);
+            }
+            position += nodes.getLength(child);
+            length -= nodes.getLength(child);
+            node = child;
+        }
+        return node;
+    }
+
+}
@@ -0,0 +1,151 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Checks that the other ways to build a tree give the same tree as
+// TreeBuilder.
+//
+// The same random strings are indexed by TreeBuilder, ArrayTreeBuilder,
+// ParallelTreeBuilder, SuffixArrayBuilder, LazySuffixTree and
+// CompressedSuffixTree. Each tree is walked through TreeInterface and
+// written out with the children of each node sorted by label, and the
+// positions of each leaf sorted; the strings are added in the same
+// order, so the positions are the same in all the trees. The program
+// prints the first tree that differs from the one of TreeBuilder, and
+// exits with status 1 then. The strings are short and drawn from small
+// alphabets, so that they share many suffixes, and some of them are
+// repeated.
+//
+// usage: java Backends [rounds [seed]]
+
+class Backends {
+
+    private static String randomString(Random random, String alphabet, int length) {
+
+        StringBuffer buffer = new StringBuffer(length + 1);
+
+        for (int i=0; i<length; i++)
+            buffer.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+        buffer.append('$');
+
+        return buffer.toString();
+    }
+
+    // writes node and its subtree, the label of its branch first, then
+    // the children in order of their text, or the positions of a leaf
+
+    private static String dump(TreeInterface tree, NodeInterface node) {
+
+        StringBuffer buffer = new StringBuffer();
+        buffer.append('(').append(tree.getLabel(node));
+
+        NodeInterface child = tree.getFirstChild(node);
+        if (child == null) {
+            List<Integer> positions = new ArrayList<Integer>();
+            for (SuffixCoordinates c = tree.getCoordinates(node); c != null; c = c.getNext())
+                positions.add(c.getPosition());
+            Collections.sort(positions);
+            buffer.append(positions);
+        }
+
+        List<String> children = new ArrayList<String>();
+        for (; child != null; child = (NodeInterface) child.getRightSybling())
+            children.add(dump(tree, child));
+
+        Collections.sort(children);
+        for (String s : children)
+            buffer.append(s);
+
+        return buffer.append(')').toString();
+    }
+
+    private static String dump(TreeInterface tree) {
+        return dump(tree, tree.getRoot());
+    }
+
+    // prints the tree if it differs from expected, and returns false then
+
+    private static boolean same(String what, String expected, TreeInterface tree, String[] strings) {
+
+        String found = dump(tree);
+
+        if (expected.equals(found))
+            return true;
+
+        System.out.println(what + " differs from TreeBuilder for " + Arrays.asList(strings));
+        System.out.println("  expected " + expected);
+        System.out.println("  found    " + found);
+
+        return false;
+    }
+
+    private static boolean round(Random random) {
+
+        String alphabet = random.nextBoolean() ? "ab" : "acgt";
+
+        String[] strings = new String[1 + random.nextInt(8)];
+        for (int i=0; i<strings.length; i++)
+            strings[i] = (i > 0 && random.nextInt(4) == 0)
+                ? strings[random.nextInt(i)]
+                : randomString(random, alphabet, random.nextInt(20));
+
+        SuffixTree tree = new SuffixTree(alphabet + "$");
+        TreeBuilder builder = new TreeBuilder(tree);
+        for (int i=0; i<strings.length; i++)
+            builder.addToken(strings[i]);
+
+        String expected = dump(tree);
+
+        ArraySuffixTree array = new ArraySuffixTree(alphabet + "$");
+        ArrayTreeBuilder arrayBuilder = new ArrayTreeBuilder(array);
+        for (int i=0; i<strings.length; i++)
+            arrayBuilder.addToken(strings[i]);
+
+        SuffixTree parallel = new SuffixTree(alphabet + "$");
+        new ParallelTreeBuilder(parallel).addTokens(strings);
+
+        SuffixTree sorted = new SuffixTree(alphabet + "$");
+        new SuffixArrayBuilder(sorted).addTokens(strings);
+
+        return same("ArrayTreeBuilder", expected, array, strings)
+            && same("ParallelTreeBuilder", expected, parallel, strings)
+            && same("SuffixArrayBuilder", expected, sorted, strings)
+            && same("LazySuffixTree", expected, new LazySuffixTree(alphabet + "$", strings), strings)
+            && same("CompressedSuffixTree", expected, new CompressedSuffixTree(alphabet + "$", strings), strings);
+    }
+
+    public static void main(String[] args) {
+
+        int rounds = 1000;
+        long seed = 1;
+
+        if (args.length > 0)
+            rounds = Integer.parseInt(args[0]);
+
+        if (args.length > 1)
+            seed = Long.parseLong(args[1]);
+
+        Random random = new Random(seed);
+
+        for (int i=0; i<rounds; i++) {
+            if (!round(random))
+                System.exit(1);
+        }
+
+        System.out.println(rounds + " rounds: the trees are the same");
+    }
+
+}
@@ -0,0 +1,197 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License.
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Checks that removing strings from a tree leaves the same tree as
+// building it again from the strings that are left.
+//
+// Random DNA strings are added to a tree, and some of them, picked at
+// random, are removed with SuffixTree.removeToken (see TreePruner). The
+// strings are also fed to a SlidingWindow, whose strings are followed
+// here from its budget. After each change, the tree is written out with
+// the children of each node sorted by label, and each position replaced
+// by its string and its offset in the string, since the positions of a
+// tree that removed strings are not those of a new tree. The result is
+// compared with the one of a tree built from the strings left. The
+// program prints the first difference and exits with status 1 if they
+// differ.
+//
+// usage: java Removal [rounds [seed]]
+
+class Removal {
+
+    private static String randomString(Random random, int length) {
+
+        String alphabet = "acgt";
+
+        StringBuffer buffer = new StringBuffer(length + 1);
+
+        for (int i=0; i<length; i++)
+            buffer.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+        buffer.append('$');
+
+        return buffer.toString();
+    }
+
+    // returns the tree of strings, built from scratch
+
+    private static SuffixTree build(List<String> strings) {
+
+        SuffixTree tree = new SuffixTree("acgt$");
+        TreeBuilder builder = new TreeBuilder(tree);
+
+        for (String s : strings)
+            builder.addToken(s);
+
+        return tree;
+    }
+
+    // writes node and its subtree, the label of its branch first, then
+    // the children in order of their text, or the positions of a leaf
+
+    private static String dump(SuffixTree tree, NodeInterface node) {
+
+        StringBuffer buffer = new StringBuffer();
+        buffer.append('(').append(tree.getLabel(node));
+
+        List<String> parts = new ArrayList<String>();
+
+        NodeInterface child = tree.getFirstChild(node);
+        if (child == null) {
+            for (SuffixCoordinates c = tree.getCoordinates(node); c != null; c = c.getNext()) {
+                int start = tree.getStart(tree.getIndex(c.getPosition()));
+                parts.add(tree.getSubstring(start) + "@" + (c.getPosition() - start));
+            }
+        }
+
+        for (; child != null; child = (NodeInterface) child.getRightSybling())
+            parts.add(dump(tree, child));
+
+        Collections.sort(parts);
+        for (String part : parts)
+            buffer.append(part);
+
+        return buffer.append(')').toString();
+    }
+
+    private static String dump(SuffixTree tree) {
+        return dump(tree, tree.getRoot());
+    }
+
+    // prints the trees if they differ, and returns false then
+
+    private static boolean same(String what, SuffixTree tree, List<String> strings) {
+
+        String expected = dump(build(strings));
+        String found = dump(tree);
+
+        if (expected.equals(found))
+            return true;
+
+        System.out.println(what + " differs from the tree of " + strings);
+        System.out.println("  expected " + expected);
+        System.out.println("  found    " + found);
+
+        return false;
+    }
+
+    // adds strings to a tree and removes some of them at random
+
+    private static boolean removal(Random random) {
+
+        SuffixTree tree = new SuffixTree("acgt$");
+        TreeBuilder builder = new TreeBuilder(tree);
+
+        List<String> strings = new ArrayList<String>();
+        List<Integer> indexes = new ArrayList<Integer>();
+
+        for (int i=0; i<20; i++) {
+
+            String s = randomString(random, 1 + random.nextInt(30));
+            int index = builder.addToken(s);
+            if (index != -1) {
+                strings.add(s);
+                indexes.add(index);
+            }
+
+            if (strings.size() > 1 && random.nextInt(3) == 0) {
+                int k = random.nextInt(strings.size());
+                String removed = strings.remove(k);
+                tree.removeToken(indexes.remove(k));
+                if (!same("removing " + removed, tree, strings))
+                    return false;
+            }
+        }
+
+        return same("the tree", tree, strings);
+    }
+
+    // feeds strings to a sliding window, and follows its budget
+
+    private static boolean window(Random random) {
+
+        int maxLength = 20 + random.nextInt(100);
+        int maxTokens = 1 + random.nextInt(8);
+
+        SuffixTree tree = new SuffixTree("acgt$");
+        SlidingWindow window = new SlidingWindow(tree, maxLength, maxTokens);
+
+        List<String> strings = new ArrayList<String>();
+        int length = 0;
+
+        for (int i=0; i<50; i++) {
+
+            // short strings, so that some are seen again
+            String s = randomString(random, 1 + random.nextInt(i % 2 == 0 ? 3 : 30));
+
+            if (strings.remove(s))
+                length -= s.length();
+            strings.add(s);
+            length += s.length();
+
+            while (strings.size() > 1 && (length > maxLength || strings.size() > maxTokens))
+                length -= strings.remove(0).length();
+
+            window.addToken(s);
+
+            if (!same("the window after " + s, tree, strings))
+                return false;
+        }
+
+        return true;
+    }
+
+    public static void main(String[] args) {
+
+        int rounds = 200;
+        long seed = 1;
+
+        if (args.length > 0)
+            rounds = Integer.parseInt(args[0]);
+
+        if (args.length > 1)
+            seed = Long.parseLong(args[1]);
+
+        Random random = new Random(seed);
+
+        for (int i=0; i<rounds; i++) {
+            if (!removal(random) || !window(random))
+                System.exit(1);
+        }
+
+        System.out.println(rounds + " rounds: the trees are the same");
+    }
+
+}
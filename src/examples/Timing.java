@@ -0,0 +1,156 @@
+/* This copyrighted source code is freely distributed under the terms
+ * of the GNU General Public License. 
+ *
+ * See LICENSE for details.
+ *
+ * Copyrights (C) 2003-7 University of Ottawa, D. Cernea and M. Turcotte
+ *
+ * Contact: turcotte@site.uottawa.ca
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Builds the suffix tree of random DNA strings whose length doubles at
+// each step, and prints the construction time and the number of steps
+// of the builder per char.
+//
+// The steps are what shows that the construction is linear: each step
+// of Ukkonen algorithm inserts a suffix, ends a phase, or skips a branch,
+// and there are at most MAX_STEPS of them per char. The steps of each
+// string, and of a string of a single char repeated, which goes the
+// deepest, are checked against that bound; the program exits with
+// status 1 if one of them is above it. The count does not depend on the
+// machine, so the check always gives the same answer.
+//
+// The times only give an idea: the builder is first run a few times so
+// that it is compiled, the garbage of the previous build is collected
+// before each build, and the median of several builds is kept, but the
+// nodes of a larger tree miss the caches of the processor more often,
+// and the ratio between two consecutive steps is often well above 2.
+//
+// usage: java Timing [length [steps [runs]]]
+
+class Timing {
+
+    // the most steps per char of Ukkonen algorithm: one per suffix
+    // inserted, one per phase ended, and two per char for the branches
+    // skipped down, since each suffix link goes up at most one node
+
+    private static final int MAX_STEPS = 4;
+
+    private static String randomString(Random random, int length) {
+
+        String alphabet = "acgt";
+
+        StringBuffer buffer = new StringBuffer(length + 1);
+
+        for (int i=0; i<length; i++)
+            buffer.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+        buffer.append('$');
+
+        return buffer.toString();
+    }
+
+    // returns the time taken to build the tree of s, in nanoseconds
+
+    private static long build(String s) {
+
+        long start = System.nanoTime();
+
+        SuffixTree tree = new SuffixTree("acgt$");
+        TreeBuilder builder = new TreeBuilder(tree);
+        builder.addToken(s);
+
+        return System.nanoTime() - start;
+    }
+
+    // returns the number of steps taken to build the tree of s
+
+    private static long steps(String s) {
+
+        SuffixTree tree = new SuffixTree("acgt$");
+        TreeBuilder builder = new TreeBuilder(tree);
+        builder.addToken(s);
+
+        return builder.getSteps();
+    }
+
+    // returns a string of length times the char a, followed by '$'
+
+    private static String repeat(int length) {
+
+        StringBuffer buffer = new StringBuffer(length + 1);
+
+        for (int i=0; i<length; i++)
+            buffer.append('a');
+
+        buffer.append('$');
+
+        return buffer.toString();
+    }
+
+    public static void main(String[] args) {
+
+        int length = 1 << 20;
+        int steps = 4;
+        int runs = 5;
+
+        if (args.length > 0)
+            length = Integer.parseInt(args[0]);
+
+        if (args.length > 1)
+            steps = Integer.parseInt(args[1]);
+
+        if (args.length > 2)
+            runs = Integer.parseInt(args[2]);
+
+        Random random = new Random(1);
+        long previous = 0;
+        boolean linear = true;
+
+        String warmup = randomString(random, length);
+        for (int i=0; i<10; i++)
+            build(warmup);
+
+        for (int i=0; i<steps; i++) {
+
+            String s = randomString(random, length);
+
+            long[] times = new long[runs];
+
+            for (int j=0; j<runs; j++) {
+                System.gc();
+                times[j] = build(s);
+            }
+
+            Arrays.sort(times);
+            long elapsed = times[runs / 2];
+
+            String ratio = previous == 0 ? "-" : Double.toString((double) elapsed / previous);
+
+            double perChar = (double) steps(s) / s.length();
+            double repeated = (double) steps(repeat(length)) / (length + 1);
+
+            System.out.println("length=" + s.length() +
+                               " ms=" + (elapsed / 1000000) +
+                               " ns/char=" + (elapsed / s.length()) +
+                               " ratio=" + ratio +
+                               " steps/char=" + perChar +
+                               " repeated=" + repeated);
+
+            if (perChar > MAX_STEPS || repeated > MAX_STEPS)
+                linear = false;
+
+            previous = elapsed;
+            length *= 2;
+        }
+
+        if (!linear) {
+            System.out.println("more than " + MAX_STEPS + " steps per char: the construction is not linear");
+            System.exit(1);
+        }
+    }
+
+}